@@ -0,0 +1,214 @@
+package net.sf.gilead.core;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.gilead.util.ConcurrentIdentityMap;
+
+/**
+ * State of a clone or merge operation : bean stacks, pending proxy informations, already cloned beans and the
+ * operation state of the proxy stores (attributes). It is created for each top level operation and passed to the lazy
+ * killer, the replicators and the proxy stores. It is also bound to the running thread for the duration of the
+ * operation, for the callers of the proxy store methods without context, and can be bound to another thread to hand
+ * the operation off. A context must not be used by several threads at the same time.<br/>
+ * The Hibernate session of HibernateUtil and the HTTP session of HttpSessionProxyStore are not part of it : they are
+ * scoped by the request, that spans several operations.
+ *
+ * @author bruno.marchesson
+ */
+public class CloneContext {
+
+    /**
+     * Context bound to the running thread
+     */
+    private static final ThreadLocal<CloneContext> boundContext = new ThreadLocal<>();
+
+    /**
+     * Proxy informations of the collection or map being merged
+     */
+    private Map<String, Serializable> proxyInformations;
+
+    /**
+     * Current from bean stack. It is used to get embedded entities (component type) parent to determine unique ID in
+     * stateful mode.
+     */
+    private final Deque<Object> fromBeanStack = new ArrayDeque<>();
+
+    /**
+     * Current target bean stack. It is used for persistent collections, that need to know their parent entity.
+     */
+    private final Deque<Object> toBeanStack = new ArrayDeque<>();
+
+    /**
+     * The cloned map. It is used to propagate treated beans throughout collection clone and merge.
+     */
+    private Map<Object, Object> clonedMap;
+
+    /**
+     * Clones shared by all the partitions of a parallel clone (null otherwise)
+     */
+    private ConcurrentIdentityMap<Object, Object> sharedClones;
+
+    /**
+     * Nesting depth of the clone or merge operations
+     */
+    private int depth;
+
+    /**
+     * Operation state of the proxy stores, by owner key (created lazily)
+     */
+    private Map<Object, Object> attributes;
+
+    /**
+     * @return the context bound to the running thread, or null
+     */
+    public static CloneContext current() {
+        return boundContext.get();
+    }
+
+    /**
+     * @return the context bound to the running thread, or a new (not bound) one
+     */
+    public static CloneContext currentOrNew() {
+        CloneContext context = boundContext.get();
+        if (context == null) {
+            context = new CloneContext();
+        }
+        return context;
+    }
+
+    /**
+     * Bind the context to the running thread
+     *
+     * @return the previously bound context, to give back to {@link #restore(CloneContext)}
+     */
+    public CloneContext bind() {
+        CloneContext previous = boundContext.get();
+        boundContext.set(this);
+        return previous;
+    }
+
+    /**
+     * Restore the previously bound context
+     *
+     * @param previous the context returned by {@link #bind()}
+     */
+    public static void restore(CloneContext previous) {
+        if (previous == null) {
+            boundContext.remove();
+        } else {
+            boundContext.set(previous);
+        }
+    }
+
+    /**
+     * @return the proxy informations
+     */
+    public Map<String, Serializable> getProxyInformations() {
+        return proxyInformations;
+    }
+
+    /**
+     * @param proxyInformations the proxy informations to set
+     */
+    public void setProxyInformations(Map<String, Serializable> proxyInformations) {
+        this.proxyInformations = proxyInformations;
+    }
+
+    /**
+     * @return the from bean stack
+     */
+    public Deque<Object> getFromBeanStack() {
+        return fromBeanStack;
+    }
+
+    /**
+     * @return the to bean stack
+     */
+    public Deque<Object> getToBeanStack() {
+        return toBeanStack;
+    }
+
+    /**
+     * @return the cloned map, or null
+     */
+    public Map<Object, Object> getClonedMap() {
+        return clonedMap;
+    }
+
+    /**
+     * @param clonedMap the cloned map to set
+     */
+    public void setClonedMap(Map<Object, Object> clonedMap) {
+        this.clonedMap = clonedMap;
+    }
+
+    /**
+     * @return the clones shared by all the partitions of a parallel clone, or null
+     */
+    public ConcurrentIdentityMap<Object, Object> getSharedClones() {
+        return sharedClones;
+    }
+
+    /**
+     * @param sharedClones the clones shared by all the partitions of a parallel clone
+     */
+    public void setSharedClones(ConcurrentIdentityMap<Object, Object> sharedClones) {
+        this.sharedClones = sharedClones;
+    }
+
+    /**
+     * @param key the attribute key, owned by the caller
+     * @return the attribute value, or null
+     */
+    public Object getAttribute(Object key) {
+        return (attributes != null) ? attributes.get(key) : null;
+    }
+
+    /**
+     * @param key the attribute key, owned by the caller
+     * @param value the attribute value
+     */
+    public void setAttribute(Object key, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(key, value);
+    }
+
+    /**
+     * @param key the attribute key
+     * @return the removed value, or null
+     */
+    public Object removeAttribute(Object key) {
+        return (attributes != null) ? attributes.remove(key) : null;
+    }
+
+    /**
+     * Enter a (possibly nested) operation
+     *
+     * @return true for the top level operation
+     */
+    public boolean enter() {
+        return depth++ == 0;
+    }
+
+    /**
+     * Exit the current operation
+     *
+     * @return true when the top level operation is exited
+     */
+    public boolean exit() {
+        return --depth == 0;
+    }
+
+    /**
+     * @return true if an operation is running in this context
+     */
+    public boolean isInOperation() {
+        return depth > 0;
+    }
+}
@@ -10,15 +10,15 @@ import net.sf.beanlib.provider.BeanPopulator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.gilead.core.beanlib.ClassMapper;
 import net.sf.gilead.core.beanlib.clone.CloneBeanReplicator;
-import net.sf.gilead.core.beanlib.merge.BeanlibCache;
+import net.sf.gilead.core.beanlib.clone.ClonePlanCompiler;
 import net.sf.gilead.core.beanlib.merge.MergeBeanPopulator;
-import net.sf.gilead.core.cache.SoftLocalCache;
 import net.sf.gilead.core.store.ProxyStore;
 
 /**
  * This class replaces all "lazy but not loaded" Hibernate association with null to allow the argument POJO to be used
  * in other libraries without additional loading of 'LazyInitializationException'. The lazy properties are stored as
- * string. They can be reused for "reattaching" the clone pojo to a fresh Hibernate object.
+ * string. They can be reused for "reattaching" the clone pojo to a fresh Hibernate object. The state of the operation
+ * is held by a {@link CloneContext} : the one given as argument, or the one bound to the running thread, or a new one.
  *
  * @author bruno.marchesson
  */
@@ -42,9 +42,9 @@ public class LazyKiller {
     private ProxyStore proxyStore;
 
     /**
-     * The cloned map. It is used to propagate treated beans throughout collection clone and merge.
+     * The clone plan compiler, shared by all clone operations
      */
-    private SoftLocalCache<Map<Object, Object>> clonedMap;
+    private volatile ClonePlanCompiler clonePlanCompiler;
 
     /**
      * Empty constructor
@@ -61,7 +61,6 @@ public class LazyKiller {
      * @param proxyStore the proxy store
      */
     public LazyKiller(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
-        this.clonedMap = new SoftLocalCache<>();
         setClassMapper(classMapper);
         setPersistenceUtil(persistenceUtil);
         setProxyStore(proxyStore);
@@ -86,6 +85,14 @@ public class LazyKiller {
      */
     public void setClassMapper(ClassMapper classMapper) {
         this.classMapper = classMapper;
+        this.clonePlanCompiler = new ClonePlanCompiler(classMapper);
+    }
+
+    /**
+     * @return the clone plan compiler
+     */
+    public ClonePlanCompiler getClonePlanCompiler() {
+        return clonePlanCompiler;
     }
 
     /**
@@ -103,10 +110,13 @@ public class LazyKiller {
     }
 
     /**
-     * Reset the clone map.
+     * Reset the clone map of the bound context.
      */
     public void reset() {
-        clonedMap.remove();
+        CloneContext context = CloneContext.current();
+        if (context != null) {
+            context.setClonedMap(null);
+        }
     }
 
     /**
@@ -126,12 +136,12 @@ public class LazyKiller {
         // Search for Proxy
         Class<?> targetClass = hibernatePojo.getClass();
         if (classMapper != null) {
-            Class<?> mappedClass = classMapper.getTargetClass(targetClass);
+            Class<?> mappedClass = clonePlanCompiler.getTargetClass(targetClass);
             if (mappedClass != null) {
                 targetClass = mappedClass;
             }
         }
-        return clone(hibernatePojo, targetClass);
+        return clone(hibernatePojo, targetClass, CloneContext.currentOrNew());
     }
 
     /**
@@ -141,6 +151,18 @@ public class LazyKiller {
      * @return a pure Java clone
      */
     public Object detach(Object hibernatePojo, Class<?> cloneClass) {
+        return detach(hibernatePojo, cloneClass, CloneContext.currentOrNew());
+    }
+
+    /**
+     * Hibernate detachment
+     *
+     * @param hibernatePojo the input hibernate pojo
+     * @param cloneClass the clone class
+     * @param context the operation context
+     * @return a pure Java clone
+     */
+    public Object detach(Object hibernatePojo, Class<?> cloneClass, CloneContext context) {
         // Precondition checking
         if (hibernatePojo == null) {
             return null;
@@ -149,7 +171,7 @@ public class LazyKiller {
         LOGGER.debug("Detaching [{}].", hibernatePojo.toString());
 
         // Clone with beanLib
-        return clone(hibernatePojo, cloneClass);
+        return clone(hibernatePojo, cloneClass, context);
     }
 
     /**
@@ -159,6 +181,17 @@ public class LazyKiller {
      * @param clonePojo the cloned pojo
      */
     public void attach(Object hibernatePojo, Object clonePojo) {
+        attach(hibernatePojo, clonePojo, CloneContext.currentOrNew());
+    }
+
+    /**
+     * Hibernate attachment
+     *
+     * @param hibernatePojo the stored or fresh Hibernate POJO
+     * @param clonePojo the cloned pojo
+     * @param context the operation context
+     */
+    public void attach(Object hibernatePojo, Object clonePojo, CloneContext context) {
         // Precondition checking
         if ((hibernatePojo == null) || (clonePojo == null)) {
             return;
@@ -167,7 +200,7 @@ public class LazyKiller {
         LOGGER.debug("Attaching [{}].", clonePojo.getClass());
 
         // Populate with BeanLib
-        populate(hibernatePojo, clonePojo);
+        populate(hibernatePojo, clonePojo, context);
     }
 
     /**
@@ -177,9 +210,20 @@ public class LazyKiller {
      * @param pojo
      * @return
      */
-    protected Object clone(Object hibernatePojo, Class<?> cloneClass) {
-        HibernateBeanReplicator replicator = new CloneBeanReplicator(classMapper, persistenceUtil, proxyStore);
-        return replicator.copy(hibernatePojo, cloneClass);
+    protected Object clone(Object hibernatePojo, Class<?> cloneClass, CloneContext context) {
+        HibernateBeanReplicator replicator = new CloneBeanReplicator(clonePlanCompiler, persistenceUtil, proxyStore, context);
+
+        CloneContext previous = CloneContext.current();
+        if (previous != context) {
+            context.bind();
+        }
+        try {
+            return replicator.copy(hibernatePojo, cloneClass);
+        } finally {
+            if (previous != context) {
+                CloneContext.restore(previous);
+            }
+        }
     }
 
     /**
@@ -187,26 +231,44 @@ public class LazyKiller {
      * Hibernate POJO holds the lazy properties information
      */
     public void populate(Object hibernatePojo, Object clonePojo) {
+        populate(hibernatePojo, clonePojo, CloneContext.currentOrNew());
+    }
+
+    /**
+     * Populate the hibernatePojo (a fresh new one or the one used to clone) with the clone detached object, in the
+     * argument operation context
+     */
+    public void populate(Object hibernatePojo, Object clonePojo, CloneContext context) {
         // Populate hibernate POJO from the cloned pojo
-        BeanPopulator replicator = MergeBeanPopulator.newBeanPopulator(clonePojo, hibernatePojo, classMapper, persistenceUtil, proxyStore);
+        BeanPopulator replicator = MergeBeanPopulator.newBeanPopulator(clonePojo, hibernatePojo, classMapper, persistenceUtil, proxyStore,
+                context);
 
         // Propagate cloned map if needed
         BeanTransformerSpi transformer = (BeanTransformerSpi) replicator.getTransformer();
-        Map<Object, Object> clonedMap = this.clonedMap.get();
+        Map<Object, Object> clonedMap = context.getClonedMap();
         if (clonedMap != null) {
             transformer.getClonedMap().putAll(clonedMap);
         }
 
         // Store root pojo on bean stack
-        BeanlibCache.getFromBeanStack().push(clonePojo);
-        BeanlibCache.getToBeanStack().push(hibernatePojo);
+        context.getFromBeanStack().push(clonePojo);
+        context.getToBeanStack().push(hibernatePojo);
 
-        replicator.populate();
-
-        BeanlibCache.getFromBeanStack().pop();
-        BeanlibCache.getToBeanStack().pop();
+        CloneContext previous = CloneContext.current();
+        if (previous != context) {
+            context.bind();
+        }
+        try {
+            replicator.populate();
+        } finally {
+            if (previous != context) {
+                CloneContext.restore(previous);
+            }
+            context.getFromBeanStack().pop();
+            context.getToBeanStack().pop();
+        }
 
         // Fill cloned map if needed
-        this.clonedMap.set(transformer.getClonedMap());
+        context.setClonedMap(transformer.getClonedMap());
     }
 }
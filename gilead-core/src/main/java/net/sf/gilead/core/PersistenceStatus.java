@@ -0,0 +1,131 @@
+package net.sf.gilead.core;
+
+import java.io.Serializable;
+
+import net.sf.gilead.exception.ComponentTypeException;
+import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.TransientObjectException;
+
+/**
+ * Persistence status of a pojo, as returned by the non throwing persistence checks of {@link PersistenceUtil}.
+ *
+ * @author bruno.marchesson
+ */
+public final class PersistenceStatus {
+
+    /**
+     * The possible persistence states
+     */
+    public enum State {
+        /**
+         * Persistent pojo, with an id
+         */
+        PERSISTENT,
+
+        /**
+         * Persistent class, but transient (unsaved) pojo
+         */
+        TRANSIENT,
+
+        /**
+         * Persistent component (embedded) class : no id of its own
+         */
+        COMPONENT,
+
+        /**
+         * Not persistent class
+         */
+        NOT_PERSISTENT
+    }
+
+    /**
+     * Transient status
+     */
+    public static final PersistenceStatus TRANSIENT = new PersistenceStatus(State.TRANSIENT, null);
+
+    /**
+     * Component status
+     */
+    public static final PersistenceStatus COMPONENT = new PersistenceStatus(State.COMPONENT, null);
+
+    /**
+     * Not persistent status
+     */
+    public static final PersistenceStatus NOT_PERSISTENT = new PersistenceStatus(State.NOT_PERSISTENT, null);
+
+    /**
+     * The persistence state
+     */
+    private final State state;
+
+    /**
+     * The pojo id (only for persistent state)
+     */
+    private final Serializable id;
+
+    /**
+     * Constructor
+     */
+    private PersistenceStatus(State state, Serializable id) {
+        this.state = state;
+        this.id = id;
+    }
+
+    /**
+     * @return the status of a persistent pojo with the argument id
+     */
+    public static PersistenceStatus persistent(Serializable id) {
+        return new PersistenceStatus(State.PERSISTENT, id);
+    }
+
+    /**
+     * @return the persistence state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the pojo id, or null if the pojo is not persistent
+     */
+    public Serializable getId() {
+        return id;
+    }
+
+    /**
+     * @return true for a persistent pojo
+     */
+    public boolean isPersistent() {
+        return state == State.PERSISTENT;
+    }
+
+    /**
+     * Return the id of a persistent pojo, or throw the exception matching the status otherwise
+     *
+     * @param pojo the pojo the status belongs to
+     * @return the pojo id
+     * @throws NotPersistentObjectException if the pojo class is not persistent
+     * @throws ComponentTypeException if the pojo is a component
+     * @throws TransientObjectException if the pojo is transient
+     */
+    public Serializable getIdOrThrow(Object pojo) {
+        switch (state) {
+            case PERSISTENT:
+                return id;
+            case COMPONENT:
+                throw new ComponentTypeException(pojo);
+            case TRANSIENT:
+                throw new TransientObjectException(pojo);
+            default:
+                throw new NotPersistentObjectException(pojo);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (state == State.PERSISTENT) {
+            return state + "[" + id + "]";
+        }
+        return state.toString();
+    }
+}
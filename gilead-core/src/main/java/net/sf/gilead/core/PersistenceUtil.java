@@ -5,6 +5,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import net.sf.gilead.exception.ComponentTypeException;
+import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.TransientObjectException;
+
 /**
  * Interface for all Facade over (JPA) persistence engines. It allows the library to work with Hibernate and (soon)
  * OpenJPA and EclipseLink
@@ -51,6 +55,43 @@ public interface PersistenceUtil {
      */
     Serializable getId(Object pojo, Class<?> persistentClass);
 
+    /**
+     * Compute the persistence status of the argument pojo, without throwing exception for transient or not persistent
+     * pojos. The default implementation relies on {@link #getPersistenceStatus(Object, Class)}.
+     * 
+     * @return the persistence status (with the ID for persistent pojos)
+     */
+    default PersistenceStatus getPersistenceStatus(Object pojo) {
+        // Precondition checking
+        if (pojo == null) {
+            return PersistenceStatus.NOT_PERSISTENT;
+        }
+        return getPersistenceStatus(pojo, getUnenhancedClass(pojo.getClass()));
+    }
+
+    /**
+     * Compute the persistence status of the argument DTO with the same name than the persistent class. The default
+     * implementation relies on {@link #isPersistentClass(Class)} and {@link #getId(Object, Class)} exceptions :
+     * implementations computing the id from the status must override it.
+     * 
+     * @return the persistence status (with the ID for persistent pojos)
+     */
+    default PersistenceStatus getPersistenceStatus(Object pojo, Class<?> persistentClass) {
+        if (isPersistentClass(persistentClass) == false) {
+            return PersistenceStatus.NOT_PERSISTENT;
+        }
+        try {
+            Serializable id = getId(pojo, persistentClass);
+            return (id == null) ? PersistenceStatus.TRANSIENT : PersistenceStatus.persistent(id);
+        } catch (ComponentTypeException ex) {
+            return PersistenceStatus.COMPONENT;
+        } catch (TransientObjectException ex) {
+            return PersistenceStatus.TRANSIENT;
+        } catch (NotPersistentObjectException ex) {
+            return PersistenceStatus.NOT_PERSISTENT;
+        }
+    }
+
     /**
      * Indicates if the pojo is persistent or not. Its class must be declared as persistent and the pojo must have an ID
      */
@@ -1,15 +1,10 @@
 package net.sf.gilead.core;
 
-import java.beans.BeanInfo;
-import java.beans.IndexedPropertyDescriptor;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -17,6 +12,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,13 +22,12 @@ import org.slf4j.LoggerFactory;
 import net.sf.beanlib.utils.ClassUtils;
 import net.sf.gilead.core.beanlib.ClassMapper;
 import net.sf.gilead.core.store.ProxyStore;
+import net.sf.gilead.core.store.stateful.HttpSessionProxyStore;
 import net.sf.gilead.core.store.stateless.StatelessProxyStore;
 import net.sf.gilead.exception.CloneException;
-import net.sf.gilead.exception.InvocationException;
 import net.sf.gilead.exception.NotAssignableException;
-import net.sf.gilead.exception.NotPersistentObjectException;
 import net.sf.gilead.exception.TransientObjectException;
-import net.sf.gilead.util.CollectionHelper;
+import net.sf.gilead.util.ConcurrentIdentityMap;
 
 /**
  * Manager for Persistent POJO handling
@@ -41,6 +38,11 @@ public class PersistentBeanManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistentBeanManager.class);
 
+    /**
+     * Number of partitions of a parallel clone, per pool thread
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     /**
      * The unique instance of the Persistence Bean Manager
      */
@@ -66,6 +68,21 @@ public class PersistentBeanManager {
      */
     protected PersistenceUtil persistenceUtil;
 
+    /**
+     * The persistent holder analyzer (class analysis cache)
+     */
+    private volatile PersistentHolderAnalyzer holderAnalyzer;
+
+    /**
+     * Minimum size of the collections cloned in parallel (0 disables parallel clone)
+     */
+    private int parallelCloneThreshold;
+
+    /**
+     * The pool running parallel clones (the common pool if null)
+     */
+    private ForkJoinPool parallelClonePool;
+
     /**
      * @return the unique instance of the singleton
      */
@@ -134,6 +151,39 @@ public class PersistentBeanManager {
         lazyKiller.setPersistenceUtil(persistenceUtil);
     }
 
+    /**
+     * @return the minimum size of the collections cloned in parallel (0 if parallel clone is disabled)
+     */
+    public int getParallelCloneThreshold() {
+        return parallelCloneThreshold;
+    }
+
+    /**
+     * Enable parallel clone of the collections holding at least the argument number of elements. The collection is
+     * split in partitions, cloned on the parallel clone pool. It must only be enabled when the cloned entities are
+     * already initialized, or when the persistence util can be used from several threads. It is ignored for the HTTP
+     * session proxy store, that depends on the calling thread.
+     *
+     * @param parallelCloneThreshold the minimum collection size, or 0 to disable parallel clone
+     */
+    public void setParallelCloneThreshold(int parallelCloneThreshold) {
+        this.parallelCloneThreshold = parallelCloneThreshold;
+    }
+
+    /**
+     * @return the pool running parallel clones
+     */
+    public ForkJoinPool getParallelClonePool() {
+        return (parallelClonePool != null) ? parallelClonePool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * @param parallelClonePool the pool running parallel clones (null for the common pool)
+     */
+    public void setParallelClonePool(ForkJoinPool parallelClonePool) {
+        this.parallelClonePool = parallelClonePool;
+    }
+
     /**
      * Clone and store the Hibernate POJO(s)
      */
@@ -143,11 +193,23 @@ public class PersistentBeanManager {
     }
 
     public Object clone(Object object, boolean assignable) {
+        boolean topLevel = beginOperation();
+        CloneContext context = CloneContext.current();
         try {
+            if (topLevel && (object != null) && (persistenceUtil != null)) {
+                // Flush any pending modifications before clone
+                persistenceUtil.flushIfNeeded();
+            }
             return cloneInternal(object, assignable);
         } finally {
-            proxyStore.cleanUp();
-            lazyKiller.reset();
+            endOperation();
+            if (topLevel) {
+                if (persistenceUtil != null) {
+                    persistenceUtil.closeCurrentSession();
+                }
+                proxyStore.cleanUp(context);
+                lazyKiller.reset();
+            }
         }
     }
 
@@ -167,8 +229,10 @@ public class PersistentBeanManager {
             throw new RuntimeException("No Persistence Util set !");
         }
 
-        // Flush any pending modifications before clone
-        persistenceUtil.flushIfNeeded();
+        // Flush any pending modifications before clone (done once by the top level operation)
+        if (isInOperation() == false) {
+            persistenceUtil.flushIfNeeded();
+        }
 
         // Collection handling
         if (object instanceof Collection) {
@@ -200,7 +264,6 @@ public class PersistentBeanManager {
     /**
      * Merge the clone POJO to its Hibernate counterpart
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public Object merge(Object object, boolean assignable) {
         // Precondition checking
         if (object == null) {
@@ -211,6 +274,24 @@ public class PersistentBeanManager {
             throw new RuntimeException("No Persistence Util set !");
         }
 
+        boolean topLevel = beginOperation();
+        CloneContext context = CloneContext.current();
+        try {
+            return mergeInternal(object, assignable);
+        } finally {
+            endOperation();
+            if (topLevel) {
+                persistenceUtil.closeCurrentSession();
+                proxyStore.cleanUp(context);
+            }
+        }
+    }
+
+    /**
+     * Merge the clone POJO(s) to their Hibernate counterpart
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Object mergeInternal(Object object, boolean assignable) {
         // Collection handling
         if (object instanceof Collection) {
             return mergeCollection((Collection) object, assignable);
@@ -250,6 +331,7 @@ public class PersistentBeanManager {
         }
 
         // Precondition checking : is the pojo managed by Hibernate
+        CloneContext context = CloneContext.currentOrNew();
         try {
             Class<?> targetClass = pojo.getClass();
             if (persistenceUtil.isPersistentPojo(pojo) == true) {
@@ -283,10 +365,12 @@ public class PersistentBeanManager {
             }
 
             // Clone the pojo
-            return lazyKiller.detach(pojo, targetClass);
+            return lazyKiller.detach(pojo, targetClass, context);
         } finally {
-            persistenceUtil.closeCurrentSession();
-            proxyStore.cleanUp();
+            if (context.isInOperation() == false) {
+                persistenceUtil.closeCurrentSession();
+                proxyStore.cleanUp(context);
+            }
         }
     }
 
@@ -308,6 +392,10 @@ public class PersistentBeanManager {
      * Clone and store a collection of Hibernate POJO
      */
     protected Collection<?> cloneCollection(Collection<?> hibernatePojoList, boolean assignable) {
+        if (isParallelClone(hibernatePojoList)) {
+            return cloneCollectionInParallel(hibernatePojoList, assignable);
+        }
+
         // Clone each element of the collection
         Collection<Object> clonePojoList = createNewCollection(hibernatePojoList);
         for (Object hibernatePojo : hibernatePojoList) {
@@ -317,6 +405,37 @@ public class PersistentBeanManager {
         return clonePojoList;
     }
 
+    /**
+     * Clone a collection of Hibernate POJO in parallel : the elements are split in partitions, each cloned with its own
+     * operation context. Clones are shared between partitions, so that a bean referenced from several partitions has
+     * only one clone, and the element order is kept.
+     */
+    protected Collection<?> cloneCollectionInParallel(Collection<?> hibernatePojoList, boolean assignable) {
+        Object[] hibernatePojos = hibernatePojoList.toArray();
+        Object[] clonePojos = new Object[hibernatePojos.length];
+        ConcurrentIdentityMap<Object, Object> sharedClones = new ConcurrentIdentityMap<>(hibernatePojos.length);
+
+        // Split in partitions
+        ForkJoinPool pool = getParallelClonePool();
+        int partitionCount = Math.min(hibernatePojos.length, pool.getParallelism() * PARTITIONS_PER_THREAD);
+        int partitionSize = (hibernatePojos.length + partitionCount - 1) / partitionCount;
+        LOGGER.debug("Parallel clone of {} elements in partitions of {}.", hibernatePojos.length, partitionSize);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(partitionCount);
+        for (int start = 0; start < hibernatePojos.length; start += partitionSize) {
+            int end = Math.min(start + partitionSize, hibernatePojos.length);
+            tasks.add(pool.submit(new ClonePartition(hibernatePojos, clonePojos, start, end, assignable, sharedClones)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        // Fill the clone collection in the original order
+        Collection<Object> clonePojoList = createNewCollection(hibernatePojoList);
+        Collections.addAll(clonePojoList, clonePojos);
+        return clonePojoList;
+    }
+
     /**
      * Retrieve the Hibernate Pojo and merge the modification from GWT
      *
@@ -348,24 +467,28 @@ public class PersistentBeanManager {
         }
 
         // Retrieve the pojo
+        CloneContext context = CloneContext.currentOrNew();
         try {
-            Serializable id = null;
-            try {
-                id = persistenceUtil.getId(clonePojo, hibernateClass);
-                if (id == null) {
-                    LOGGER.debug("Hibernate POJO not found... Can be transient or deleted data [{}].", clonePojo.getClass().getName());
-                }
-            } catch (TransientObjectException ex) {
-                LOGGER.error("Transient object [{}].", clonePojo);
-            } catch (NotPersistentObjectException ex) {
-                if (holdPersistentObject(clonePojo) == false) {
-                    // Not a persistent instance, since they do not necessary implement the Java bean
-                    // specification
-                    LOGGER.debug("Not a persistent object, merge is not needed [{}].", clonePojo.getClass().getName());
-                    return clonePojo;
-                } else {
-                    LOGGER.debug("Merging wrapper object [{}].", clonePojo);
-                }
+            PersistenceStatus status = persistenceUtil.getPersistenceStatus(clonePojo, hibernateClass);
+            switch (status.getState()) {
+                case PERSISTENT:
+                    if (status.getId() == null) {
+                        LOGGER.debug("Hibernate POJO not found... Can be transient or deleted data [{}].", clonePojo.getClass().getName());
+                    }
+                    break;
+                case TRANSIENT:
+                case COMPONENT:
+                    LOGGER.error("Transient object [{}].", clonePojo);
+                    break;
+                default:
+                    if (holdPersistentObject(clonePojo) == false) {
+                        // Not a persistent instance, since they do not necessary implement the Java bean
+                        // specification
+                        LOGGER.debug("Not a persistent object, merge is not needed [{}].", clonePojo.getClass().getName());
+                        return clonePojo;
+                    } else {
+                        LOGGER.debug("Merging wrapper object [{}].", clonePojo);
+                    }
             }
 
             if (ClassUtils.immutable(hibernateClass)) {
@@ -387,13 +510,15 @@ public class PersistentBeanManager {
             }
 
             // Merge the modification in the Hibernate Pojo
-            lazyKiller.attach(hibernatePojo, clonePojo);
+            lazyKiller.attach(hibernatePojo, clonePojo, context);
 
             return hibernatePojo;
 
         } finally {
-            persistenceUtil.closeCurrentSession();
-            proxyStore.cleanUp();
+            if (context.isInOperation() == false) {
+                persistenceUtil.closeCurrentSession();
+                proxyStore.cleanUp(context);
+            }
         }
     }
 
@@ -493,7 +618,7 @@ public class PersistentBeanManager {
 
             if (collectionClass.getPackage().getName().startsWith("java") == false) {
                 // Extend collections (such as PagingList)
-                lazyKiller.populate(result, pojoCollection);
+                lazyKiller.populate(result, pojoCollection, CloneContext.currentOrNew());
             }
             return result;
         }
@@ -563,7 +688,7 @@ public class PersistentBeanManager {
      * @return true if the pojo contains persistent member, false otherwise
      */
     protected boolean holdPersistentObject(Object pojo) {
-        return holdPersistentObject(pojo, new ArrayList<>());
+        return getHolderAnalyzer().holdPersistentObject(pojo);
     }
 
     /**
@@ -571,134 +696,141 @@ public class PersistentBeanManager {
      * holding persistent associations)
      *
      * @param pojo the wrapping pojo
-     * @param alreadyChecked list of already checked pojos
+     * @param alreadyChecked already checked pojos
      * @return true if the pojo contains persistent member, false otherwise
      */
     protected boolean holdPersistentObject(Object pojo, List<Object> alreadyChecked) {
-        try {
-            // Precondition checking
-            if ((pojo == null) || (alreadyChecked.contains(pojo))) {
-                return false;
-            }
-
-            alreadyChecked.add(pojo);
-            Class<?> pojoClass = pojo.getClass();
-            if (classMapper != null) {
-                Class<?> sourceClass = classMapper.getSourceClass(pojoClass);
-                if (sourceClass != null) {
-                    pojoClass = sourceClass;
-                }
-            }
-
-            if ((persistenceUtil.isEnhanced(pojoClass) == true) || (persistenceUtil.isPersistentClass(pojoClass) == true)
-                    || (persistenceUtil.isPersistentCollection(pojoClass) == true)) {
-                return true;
-            }
-
-            if (pojo instanceof Collection) {
-                @SuppressWarnings({ "unchecked", "rawtypes" })
-                Collection<Object> pojoCollection = (Collection) pojo;
-                for (Object item : pojoCollection) {
-                    if (holdPersistentObject(item, alreadyChecked)) {
-                        return true;
-                    }
-                }
-
-                return false;
-            }
-
-            // Iterate over properties
-            BeanInfo info = Introspector.getBeanInfo(pojo.getClass());
-            PropertyDescriptor[] descriptors = info.getPropertyDescriptors();
-            for (PropertyDescriptor descriptor : descriptors) {
-                Class<?> propertyClass = descriptor.getPropertyType();
-                if (propertyClass == null) {
-                    // Indexed property
-                    propertyClass = ((IndexedPropertyDescriptor) descriptor).getPropertyType();
-                } else if (propertyClass.isArray()) {
-                    propertyClass = propertyClass.getComponentType();
-                }
-                if (propertyClass == null) {
-                    // Can do nothing with this...
-                    continue;
-                }
+        return getHolderAnalyzer().holdPersistentObject(pojo, alreadyChecked);
+    }
 
-                // Check needed for collection or property declared as bare Object
-                boolean isCollection = Collection.class.isAssignableFrom(propertyClass) || Map.class.isAssignableFrom(propertyClass);
-                boolean isObject = propertyClass.equals(Object.class);
+    /**
+     * Begin a (possibly nested) clone or merge operation. The top level operation creates the operation context and
+     * binds it to the running thread until its end. Flush, session close and proxy store clean up are only done once,
+     * by the top level operation.
+     *
+     * @return true for the top level operation
+     */
+    private boolean beginOperation() {
+        CloneContext context = CloneContext.current();
+        if (context == null) {
+            context = new CloneContext();
+            context.bind();
+        }
+        return context.enter();
+    }
 
-                if ((ClassUtils.immutable(propertyClass) == true)
-                        || ((ClassUtils.isJavaPackage(propertyClass) == true) && (isCollection == false) && (isObject == false))) {
-                    // Basic type : no check needed
-                    continue;
-                }
+    /**
+     * End the current clone or merge operation
+     */
+    private void endOperation() {
+        CloneContext context = CloneContext.current();
+        if (context.exit()) {
+            CloneContext.restore(null);
+        }
+    }
 
-                // Not a basic type, so a check is needed collection and recursive search handling
-                Method readMethod = descriptor.getReadMethod();
-                if (readMethod == null) {
-                    continue;
-                }
-                readMethod.setAccessible(true);
-                Object propertyValue = readMethod.invoke(pojo, (Object[]) null);
+    /**
+     * @return true if a clone or merge operation is running on the current thread
+     */
+    private boolean isInOperation() {
+        CloneContext context = CloneContext.current();
+        return (context != null) && context.isInOperation();
+    }
 
-                if (propertyValue == null) {
-                    continue;
-                }
+    /**
+     * @return true if the argument collection must be cloned in parallel
+     */
+    private boolean isParallelClone(Collection<?> hibernatePojoList) {
+        if ((parallelCloneThreshold <= 0) || (hibernatePojoList.size() < parallelCloneThreshold)
+                || (proxyStore instanceof HttpSessionProxyStore)) {
+            return false;
+        }
 
-                // Unmodifiable collection handling
-                if (CollectionHelper.isUnmodifiableCollection(propertyValue)) {
-                    propertyValue = CollectionHelper.getUnmodifiableCollection(propertyValue);
-                }
+        // Only in a top level operation, not in a partition of a parallel clone
+        CloneContext context = CloneContext.current();
+        return (context != null) && (context.getSharedClones() == null);
+    }
 
-                // Get real property class
-                propertyClass = propertyValue.getClass();
+    /**
+     * @return the persistent holder analyzer matching the current persistence util and class mapper
+     */
+    private PersistentHolderAnalyzer getHolderAnalyzer() {
+        PersistentHolderAnalyzer analyzer = holderAnalyzer;
+        if ((analyzer == null) || (analyzer.getPersistenceUtil() != persistenceUtil) || (analyzer.getClassMapper() != classMapper)) {
+            analyzer = new PersistentHolderAnalyzer(persistenceUtil, classMapper);
+            holderAnalyzer = analyzer;
+        }
+        return analyzer;
+    }
 
-                if ((classMapper != null) && (classMapper.getSourceClass(propertyClass) != null)) {
-                    propertyClass = classMapper.getSourceClass(propertyClass);
-                }
+    /**
+     * Partition of a parallel collection clone
+     *
+     * @author bruno.marchesson
+     */
+    private class ClonePartition extends RecursiveAction {
+
+        private static final long serialVersionUID = 3618520217311376434L;
+
+        /**
+         * The source elements
+         */
+        private final Object[] hibernatePojos;
+
+        /**
+         * The cloned elements, at the same index
+         */
+        private final Object[] clonePojos;
+
+        /**
+         * First index of the partition
+         */
+        private final int start;
+
+        /**
+         * Last index (excluded) of the partition
+         */
+        private final int end;
+
+        /**
+         * Assignable checking
+         */
+        private final boolean assignable;
+
+        /**
+         * Clones shared by all the partitions
+         */
+        private final ConcurrentIdentityMap<Object, Object> sharedClones;
+
+        ClonePartition(Object[] hibernatePojos, Object[] clonePojos, int start, int end, boolean assignable,
+                ConcurrentIdentityMap<Object, Object> sharedClones) {
+            this.hibernatePojos = hibernatePojos;
+            this.clonePojos = clonePojos;
+            this.start = start;
+            this.end = end;
+            this.assignable = assignable;
+            this.sharedClones = sharedClones;
+        }
 
-                if ((persistenceUtil.isPersistentClass(propertyClass) == true) || (persistenceUtil.isPersistentCollection(propertyClass) == true)) {
-                    return true;
+        @Override
+        protected void compute() {
+            CloneContext context = new CloneContext();
+            context.setSharedClones(sharedClones);
+            context.enter();
+            CloneContext previous = context.bind();
+            try {
+                for (int index = start; index < end; index++) {
+                    clonePojos[index] = cloneInternal(hibernatePojos[index], assignable);
                 }
-
-                // Check property value
-                if (propertyValue instanceof Collection<?>) {
-                    // Check collection values
-                    Collection<?> propertyCollection = (Collection<?>) propertyValue;
-                    for (Object value : propertyCollection) {
-                        if (holdPersistentObject(value, alreadyChecked) == true) {
-                            return true;
-                        }
-                    }
-                } else if (propertyValue instanceof Map<?, ?>) {
-                    // Check map entry and values
-                    Map<?, ?> propertyMap = (Map<?, ?>) propertyValue;
-                    for (Map.Entry<?, ?> value : propertyMap.entrySet()) {
-                        if ((holdPersistentObject(value.getKey(), alreadyChecked) == true)
-                                || (holdPersistentObject(value.getValue(), alreadyChecked) == true)) {
-                            return true;
-                        }
-                    }
-                } else if (propertyClass.isArray()) {
-                    // Check array elements
-                    Object[] propertyValues = (Object[]) propertyValue;
-                    for (Object propertyValue2 : propertyValues) {
-                        if (holdPersistentObject(propertyValue2) == true) {
-                            return true;
-                        }
-                    }
-                } else {
-                    // Recursive search
-                    if (holdPersistentObject(propertyValue, alreadyChecked) == true) {
-                        return true;
-                    }
+            } finally {
+                CloneContext.restore(previous);
+                proxyStore.cleanUp(context);
+                if (previous == null) {
+                    // Pool thread : close the session the partition opened (the calling thread is handled by the top
+                    // level operation)
+                    persistenceUtil.closeCurrentSession();
                 }
             }
-
-            // No persistent property
-            return false;
-        } catch (Exception e) {
-            throw new InvocationException(e);
         }
     }
 }
@@ -0,0 +1,363 @@
+package net.sf.gilead.core;
+
+import java.beans.BeanInfo;
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.beanlib.utils.ClassUtils;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.exception.InvocationException;
+import net.sf.gilead.util.CollectionHelper;
+import net.sf.gilead.util.MethodAccessor;
+
+/**
+ * In deep persistent association checker, used to detect wrapping objects (ie not persistent classes holding
+ * persistent associations). The class analysis (persistence and properties that can reach persistent data) is done
+ * once per class and cached, so only the properties that might hold persistent data are walked. The cache is attached
+ * to the classes (ClassValue), so it does not prevent class loaders from being unloaded.
+ *
+ * @author bruno.marchesson
+ */
+public class PersistentHolderAnalyzer {
+
+    /**
+     * The associated persistence util
+     */
+    private final PersistenceUtil persistenceUtil;
+
+    /**
+     * The class mapper (can be null)
+     */
+    private final ClassMapper classMapper;
+
+    /**
+     * Analysis results, by class
+     */
+    private final ClassValue<ClassAnalysis> analyses = new ClassValue<ClassAnalysis>() {
+        @Override
+        protected ClassAnalysis computeValue(Class<?> clazz) {
+            return new ClassAnalysis();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param persistenceUtil the persistence util
+     * @param classMapper the class mapper (can be null)
+     */
+    public PersistentHolderAnalyzer(PersistenceUtil persistenceUtil, ClassMapper classMapper) {
+        this.persistenceUtil = persistenceUtil;
+        this.classMapper = classMapper;
+    }
+
+    /**
+     * @return the persistence util
+     */
+    public PersistenceUtil getPersistenceUtil() {
+        return persistenceUtil;
+    }
+
+    /**
+     * @return the class mapper
+     */
+    public ClassMapper getClassMapper() {
+        return classMapper;
+    }
+
+    /**
+     * @param pojo the wrapping pojo
+     * @return true if the pojo contains persistent member, false otherwise
+     */
+    public boolean holdPersistentObject(Object pojo) {
+        return holdPersistentObject(pojo, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    /**
+     * @param pojo the wrapping pojo
+     * @param alreadyChecked already checked pojos
+     * @return true if the pojo contains persistent member, false otherwise
+     */
+    public boolean holdPersistentObject(Object pojo, List<Object> alreadyChecked) {
+        Set<Object> checked = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        checked.addAll(alreadyChecked);
+        return holdPersistentObject(pojo, checked);
+    }
+
+    /**
+     * @param pojo the wrapping pojo
+     * @param alreadyChecked identity set of already checked pojos
+     * @return true if the pojo contains persistent member, false otherwise
+     */
+    public boolean holdPersistentObject(Object pojo, Set<Object> alreadyChecked) {
+        try {
+            // Precondition checking
+            if ((pojo == null) || (alreadyChecked.add(pojo) == false)) {
+                return false;
+            }
+
+            HolderClass holderClass = getHolderClass(pojo.getClass());
+            if (holderClass.persistent) {
+                return true;
+            }
+
+            if (pojo instanceof Collection) {
+                return holdPersistentElement((Collection<?>) pojo, alreadyChecked);
+            }
+
+            // Iterate over the properties that might reach persistent data
+            for (MethodAccessor reader : holderClass.readers) {
+                Object propertyValue = reader.read(pojo);
+                if (propertyValue == null) {
+                    continue;
+                }
+
+                // Unmodifiable collection handling
+                if (CollectionHelper.isUnmodifiableCollection(propertyValue)) {
+                    propertyValue = CollectionHelper.getUnmodifiableCollection(propertyValue);
+                }
+
+                // Check real property class
+                Class<?> propertyClass = propertyValue.getClass();
+                if (getHolderClass(propertyClass).persistent) {
+                    return true;
+                }
+
+                // Check property value
+                if (propertyValue instanceof Collection<?>) {
+                    if (holdPersistentElement((Collection<?>) propertyValue, alreadyChecked)) {
+                        return true;
+                    }
+                } else if (propertyValue instanceof Map<?, ?>) {
+                    // Check map entry and values
+                    for (Map.Entry<?, ?> value : ((Map<?, ?>) propertyValue).entrySet()) {
+                        if ((holdPersistentObject(value.getKey(), alreadyChecked) == true)
+                                || (holdPersistentObject(value.getValue(), alreadyChecked) == true)) {
+                            return true;
+                        }
+                    }
+                } else if (propertyClass.isArray()) {
+                    // Check array elements
+                    if (propertyClass.getComponentType().isPrimitive() == false) {
+                        for (Object item : (Object[]) propertyValue) {
+                            if (holdPersistentObject(item, alreadyChecked) == true) {
+                                return true;
+                            }
+                        }
+                    }
+                } else if (holdPersistentObject(propertyValue, alreadyChecked) == true) {
+                    // Recursive search
+                    return true;
+                }
+            }
+
+            // No persistent property
+            return false;
+        } catch (Exception e) {
+            throw new InvocationException(e);
+        }
+    }
+
+    /**
+     * Check collection items
+     */
+    private boolean holdPersistentElement(Collection<?> collection, Set<Object> alreadyChecked) {
+        for (Object item : collection) {
+            if (holdPersistentObject(item, alreadyChecked)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get (and compute if needed) the holder analysis of the argument class
+     */
+    private HolderClass getHolderClass(Class<?> clazz) throws IntrospectionException {
+        return getHolderClass(clazz, new HashSet<Class<?>>());
+    }
+
+    /**
+     * Get (and compute if needed) the holder analysis of the argument class
+     */
+    private HolderClass getHolderClass(Class<?> clazz, Set<Class<?>> inProgress) throws IntrospectionException {
+        // Analysis is idempotent : concurrent analyses just overwrite the same result
+        ClassAnalysis analysis = analyses.get(clazz);
+        HolderClass holderClass = analysis.holderClass;
+        if (holderClass == null) {
+            holderClass = analyze(clazz, inProgress);
+            analysis.holderClass = holderClass;
+        }
+        return holderClass;
+    }
+
+    /**
+     * Class analysis
+     */
+    private HolderClass analyze(Class<?> clazz, Set<Class<?>> inProgress) throws IntrospectionException {
+        // Persistence checking
+        Class<?> sourceClass = clazz;
+        if (classMapper != null) {
+            Class<?> mappedClass = classMapper.getSourceClass(clazz);
+            if (mappedClass != null) {
+                sourceClass = mappedClass;
+            }
+        }
+        if (persistenceUtil.isEnhanced(sourceClass) || persistenceUtil.isPersistentClass(sourceClass)
+                || persistenceUtil.isPersistentCollection(sourceClass)) {
+            return new HolderClass(true, null);
+        }
+
+        // Readers of properties that can reach persistent data
+        List<MethodAccessor> readers = new ArrayList<>();
+        if (Collection.class.isAssignableFrom(clazz) == false) {
+            for (PropertyDescriptor descriptor : getPropertyDescriptors(clazz)) {
+                Method readMethod = descriptor.getReadMethod();
+                if ((readMethod != null) && canReach(readMethod.getGenericReturnType(), inProgress)) {
+                    readers.add(MethodAccessor.get(readMethod));
+                }
+            }
+        }
+        return new HolderClass(false, readers.toArray(new MethodAccessor[readers.size()]));
+    }
+
+    /**
+     * Can a value of the argument declared type reach persistent data ?
+     */
+    private boolean canReach(Type type, Set<Class<?>> inProgress) throws IntrospectionException {
+        if (type instanceof Class<?>) {
+            return canReach((Class<?>) type, inProgress);
+        } else if (type instanceof GenericArrayType) {
+            return canReach(((GenericArrayType) type).getGenericComponentType(), inProgress);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            if (Collection.class.isAssignableFrom(rawType) || Map.class.isAssignableFrom(rawType)) {
+                // The runtime value can be a persistent collection, even for basic elements (element collections)
+                return true;
+            }
+            return canReach(rawType, inProgress);
+        }
+
+        // Type variable or wildcard : unknown
+        return true;
+    }
+
+    /**
+     * Can a value of the argument declared class reach persistent data ?
+     */
+    private boolean canReach(Class<?> clazz, Set<Class<?>> inProgress) throws IntrospectionException {
+        if (clazz.isArray()) {
+            return canReach(clazz.getComponentType(), inProgress);
+        }
+        if (clazz.isPrimitive() || clazz.isEnum()) {
+            return false;
+        }
+
+        // Check needed for collection or property declared as bare Object
+        boolean isCollection = Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz);
+        boolean isObject = clazz.equals(Object.class);
+        if ((ClassUtils.immutable(clazz) == true) || ((ClassUtils.isJavaPackage(clazz) == true) && (isCollection == false) && (isObject == false))) {
+            // Basic type
+            return false;
+        }
+        if (isCollection || isObject || (Modifier.isFinal(clazz.getModifiers()) == false)) {
+            // Runtime value can be any subclass
+            return true;
+        }
+
+        // Final class : analyze its own properties
+        ClassAnalysis analysis = analyses.get(clazz);
+        Boolean reachable = analysis.reachable;
+        if (reachable == null) {
+            if (inProgress.add(clazz) == false) {
+                // Cycle : be conservative
+                return true;
+            }
+            reachable = Boolean.valueOf(getHolderClass(clazz, inProgress).mayHoldPersistentObject());
+            inProgress.remove(clazz);
+            analysis.reachable = reachable;
+        }
+        return reachable.booleanValue();
+    }
+
+    /**
+     * Introspection of the argument class properties
+     */
+    private static PropertyDescriptor[] getPropertyDescriptors(Class<?> clazz) throws IntrospectionException {
+        BeanInfo info = Introspector.getBeanInfo(clazz);
+        List<PropertyDescriptor> descriptors = new ArrayList<>();
+        for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+            if ((descriptor instanceof IndexedPropertyDescriptor) && (descriptor.getPropertyType() == null)) {
+                // Indexed only property : no global reader
+                continue;
+            }
+            descriptors.add(descriptor);
+        }
+        return descriptors.toArray(new PropertyDescriptor[descriptors.size()]);
+    }
+
+    /**
+     * Cached analysis results of a class
+     *
+     * @author bruno.marchesson
+     */
+    private static final class ClassAnalysis {
+        /**
+         * Holder analysis
+         */
+        volatile HolderClass holderClass;
+
+        /**
+         * 'Can reach persistent data' analysis (final types only)
+         */
+        volatile Boolean reachable;
+    }
+
+    /**
+     * Holder analysis of a class
+     *
+     * @author bruno.marchesson
+     */
+    private static final class HolderClass {
+        /**
+         * Is the class persistent ?
+         */
+        private final boolean persistent;
+
+        /**
+         * Readers of properties that can reach persistent data
+         */
+        private final MethodAccessor[] readers;
+
+        /**
+         * Constructor
+         */
+        HolderClass(boolean persistent, MethodAccessor[] readers) {
+            this.persistent = persistent;
+            this.readers = readers;
+        }
+
+        /**
+         * @return true if an instance of this class might hold persistent data
+         */
+        boolean mayHoldPersistentObject() {
+            return persistent || (readers.length > 0);
+        }
+    }
+}
@@ -6,10 +6,9 @@ import net.sf.beanlib.hibernate5.Hibernate5BlobReplicator;
 import net.sf.beanlib.hibernate5.Hibernate5MapReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.CustomBeanTransformerSpi;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.ClassMapper;
-import net.sf.gilead.core.beanlib.finder.FastPrivateReaderMethodFinder;
-import net.sf.gilead.core.beanlib.finder.FastPrivateSetterMethodCollector;
 import net.sf.gilead.core.beanlib.transformer.CustomTransformersFactory;
 import net.sf.gilead.core.store.ProxyStore;
 
@@ -21,10 +20,35 @@ import net.sf.gilead.core.store.ProxyStore;
 public class CloneBeanReplicator extends HibernateBeanReplicator {
 
     public CloneBeanReplicator(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
-        super(newBeanTransformer(classMapper, persistenceUtil, proxyStore));
+        this(new ClonePlanCompiler(classMapper), persistenceUtil, proxyStore);
     }
 
-    private static Hibernate5BeanTransformer newBeanTransformer(ClassMapper classMapper, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+    /**
+     * Constructor
+     *
+     * @param clonePlanCompiler the (shared) clone plan compiler, holding the class mapper
+     * @param persistenceUtil persistence util implementation
+     * @param proxyStore the proxy store
+     */
+    public CloneBeanReplicator(ClonePlanCompiler clonePlanCompiler, PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        this(clonePlanCompiler, persistenceUtil, proxyStore, CloneContext.currentOrNew());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clonePlanCompiler the (shared) clone plan compiler, holding the class mapper
+     * @param persistenceUtil persistence util implementation
+     * @param proxyStore the proxy store
+     * @param cloneContext the clone operation context
+     */
+    public CloneBeanReplicator(ClonePlanCompiler clonePlanCompiler, PersistenceUtil persistenceUtil, ProxyStore proxyStore,
+            CloneContext cloneContext) {
+        super(newBeanTransformer(clonePlanCompiler, persistenceUtil, proxyStore, cloneContext));
+    }
+
+    private static Hibernate5BeanTransformer newBeanTransformer(ClonePlanCompiler clonePlanCompiler, PersistenceUtil persistenceUtil,
+            ProxyStore proxyStore, CloneContext cloneContext) {
         Hibernate5BeanTransformer transformer = new Hibernate5BeanTransformer();
 
         // Custom collection replicator
@@ -39,9 +63,11 @@ public class CloneBeanReplicator extends HibernateBeanReplicator {
         // Custom bean replicatable
         transformer.initBeanReplicatableFactory(CloneClassBeanReplicator.factory);
 
-        // Set the associated class mapper
-        ((CloneClassBeanReplicator) transformer.getBeanReplicatable()).setClassMapper(classMapper);
+        // Set the associated class mapper and clone plans
+        ((CloneClassBeanReplicator) transformer.getBeanReplicatable()).setClassMapper(clonePlanCompiler.getClassMapper());
+        ((CloneClassBeanReplicator) transformer.getBeanReplicatable()).setClonePlanCompiler(clonePlanCompiler);
         ((CloneClassBeanReplicator) transformer.getBeanReplicatable()).setPersistenceUtil(persistenceUtil);
+        ((CloneClassBeanReplicator) transformer.getBeanReplicatable()).setCloneContext(cloneContext);
 
         // Custom transformers (timestamp handling)
         transformer.initCustomTransformerFactory(new CustomBeanTransformerSpi.Factory() {
@@ -52,11 +78,13 @@ public class CloneBeanReplicator extends HibernateBeanReplicator {
         });
 
         // Lazy properties handling
-        transformer.initDetailedPropertyFilter(new ClonePropertyFilter(persistenceUtil, proxyStore));
+        ClonePropertyFilter propertyFilter = new ClonePropertyFilter(persistenceUtil, proxyStore, clonePlanCompiler);
+        propertyFilter.setCloneContext(cloneContext);
+        transformer.initDetailedPropertyFilter(propertyFilter);
 
-        // Protected and private setter collection
-        transformer.initSetterMethodCollector(new FastPrivateSetterMethodCollector());
-        transformer.initReaderMethodFinder(new FastPrivateReaderMethodFinder());
+        // Protected and private setter collection, from precompiled clone plans
+        transformer.initSetterMethodCollector(clonePlanCompiler.getSetterMethodCollector());
+        transformer.initReaderMethodFinder(clonePlanCompiler.getReaderMethodFinder());
 
         return transformer;
     }
@@ -6,10 +6,11 @@ import org.slf4j.LoggerFactory;
 import net.sf.beanlib.hibernate5.Hibernate5JavaBeanReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.BeanReplicatorSpi;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.ClassMapper;
-import net.sf.gilead.core.beanlib.merge.BeanlibCache;
 import net.sf.gilead.core.beanlib.merge.MergeClassBeanReplicator;
+import net.sf.gilead.util.ConcurrentIdentityMap;
 
 /**
  * Bean replicator with different from and to classes for clone operation
@@ -27,13 +28,29 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
      */
     private ClassMapper classMapper;
 
+    /**
+     * The clone plan compiler (can be null)
+     */
+    private ClonePlanCompiler clonePlanCompiler;
+
     /**
      * Persistence util class
      */
     private PersistenceUtil persistenceUtil;
 
+    /**
+     * The clone or merge operation context
+     */
+    private CloneContext cloneContext;
+
+    /**
+     * The associated bean transformer
+     */
+    private final BeanTransformerSpi beanTransformer;
+
     protected CloneClassBeanReplicator(BeanTransformerSpi beanTransformer) {
         super(beanTransformer);
+        this.beanTransformer = beanTransformer;
     }
 
     /**
@@ -50,6 +67,20 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         this.classMapper = classMapper;
     }
 
+    /**
+     * @return the clone plan compiler
+     */
+    public ClonePlanCompiler getClonePlanCompiler() {
+        return clonePlanCompiler;
+    }
+
+    /**
+     * @param clonePlanCompiler the clone plan compiler to set
+     */
+    public void setClonePlanCompiler(ClonePlanCompiler clonePlanCompiler) {
+        this.clonePlanCompiler = clonePlanCompiler;
+    }
+
     /**
      * @return the persistence Util implementation to use
      */
@@ -64,15 +95,52 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         this.persistenceUtil = persistenceUtil;
     }
 
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     public <V extends Object, T extends Object> T replicateBean(V from, Class<T> toClass) {
         // Force persistence map computation (useful for subclass)
-        persistenceUtil.isPersistentPojo(from);
+        persistenceUtil.isPersistentClass(from.getClass());
+
+        // Parallel clone : reuse the clone made by another partition
+        ConcurrentIdentityMap<Object, Object> sharedClones = cloneContext.getSharedClones();
+        if (sharedClones != null) {
+            Object sharedClone = sharedClones.get(from);
+            if (sharedClone != null) {
+                return registerClone(from, sharedClone);
+            }
+        }
 
-        BeanlibCache.getFromBeanStack().push(from);
-        T result = super.replicateBean(from, toClass);
-        BeanlibCache.getFromBeanStack().pop();
-        return result;
+        cloneContext.getFromBeanStack().push(from);
+        try {
+            return super.replicateBean(from, toClass);
+        } catch (ClaimedCloneException ex) {
+            // Another partition claimed the same bean meanwhile
+            return registerClone(from, ex.getClone());
+        } finally {
+            cloneContext.getFromBeanStack().pop();
+        }
+    }
+
+    /**
+     * Register the clone made by another partition in the cloned map of this replicator
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T registerClone(Object from, Object clone) {
+        beanTransformer.getClonedMap().put(from, clone);
+        return (T) clone;
     }
 
     @Override
@@ -82,7 +150,12 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         // Class mapper indirection
         if (classMapper != null) {
             // Get target class
-            Class<T> targetClass = (Class<T>) classMapper.getTargetClass(from.getClass());
+            Class<T> targetClass;
+            if (clonePlanCompiler != null) {
+                targetClass = (Class<T>) clonePlanCompiler.getTargetClass(from.getClass());
+            } else {
+                targetClass = (Class<T>) classMapper.getTargetClass(from.getClass());
+            }
 
             // Keep target class only if not null
             if (targetClass != null) {
@@ -92,7 +165,49 @@ public class CloneClassBeanReplicator extends Hibernate5JavaBeanReplicator {
                 LOGGER.debug("Class mapper : no target class for [{}],", from.getClass());
             }
         }
-        return super.createToInstance(from, toClass);
+        return claimClone(super.createToInstance(from, toClass));
+    }
+
+    /**
+     * Parallel clone : claim the bean being replicated for this partition, before its properties are populated, so
+     * that each bean has exactly one clone. Another partition may get the claimed clone while it is still being
+     * populated : it is complete once all the partitions are joined.
+     *
+     * @exception ClaimedCloneException if another partition claimed the bean first
+     */
+    private <T> T claimClone(T clone) {
+        ConcurrentIdentityMap<Object, Object> sharedClones = cloneContext.getSharedClones();
+        if ((sharedClones != null) && (clone != null)) {
+            Object claimedClone = sharedClones.putIfAbsent(cloneContext.getFromBeanStack().peek(), clone);
+            if (claimedClone != null) {
+                throw new ClaimedCloneException(claimedClone);
+            }
+        }
+        return clone;
+    }
+
+    /**
+     * Bean already claimed by another partition of a parallel clone
+     *
+     * @author bruno.marchesson
+     */
+    private static final class ClaimedCloneException extends RuntimeException {
+
+        private static final long serialVersionUID = -1786204937513541127L;
+
+        /**
+         * The clone of the other partition
+         */
+        private final transient Object clone;
+
+        ClaimedCloneException(Object clone) {
+            super(null, null, false, false);
+            this.clone = clone;
+        }
+
+        Object getClone() {
+            return clone;
+        }
     }
 
     /**
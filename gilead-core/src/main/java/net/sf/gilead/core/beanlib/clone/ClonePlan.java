@@ -0,0 +1,240 @@
+package net.sf.gilead.core.beanlib.clone;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
+import net.sf.gilead.util.MethodAccessor;
+
+/**
+ * Precompiled clone plan of a class. It is computed once per class by the {@link ClonePlanCompiler} and holds
+ * everything the clone operation needs to know about it : the setters and the property readers with their lazy
+ * handling requirements.
+ *
+ * @author bruno.marchesson
+ */
+public final class ClonePlan {
+
+    /**
+     * The analyzed class
+     */
+    private final Class<?> beanClass;
+
+    /**
+     * The setters of the analyzed class
+     */
+    private final Method[] setters;
+
+    /**
+     * The property plans, by property name
+     */
+    private final Map<String, PropertyPlan> properties;
+
+    /**
+     * Constructor
+     */
+    ClonePlan(Class<?> beanClass, Method[] setters, Map<String, PropertyPlan> properties) {
+        this.beanClass = beanClass;
+        this.setters = setters;
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * @return the analyzed class
+     */
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * @return the setters of the analyzed class. The returned array must not be modified.
+     */
+    public Method[] getSetters() {
+        return setters;
+    }
+
+    /**
+     * @return the plan of the named property, or null if the class has no reader for it
+     */
+    public PropertyPlan getProperty(String propertyName) {
+        PropertyPlan property = properties.get(propertyName);
+        if ((property == null) && (propertyName.length() > 0) && Character.isLowerCase(propertyName.charAt(0))) {
+            property = properties.get(capitalize(propertyName));
+        }
+        return property;
+    }
+
+    /**
+     * @return the reader of the named property, or null if not found
+     */
+    public Method getReader(String propertyName) {
+        PropertyPlan property = getProperty(propertyName);
+        if (property == null) {
+            return null;
+        }
+        return property.getReader();
+    }
+
+    /**
+     * Capitalize the first letter of the argument
+     */
+    static String capitalize(String propertyName) {
+        if (propertyName.length() == 1) {
+            return propertyName.toUpperCase();
+        }
+        return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+    }
+
+    /**
+     * Precompiled property plan.
+     *
+     * @author bruno.marchesson
+     */
+    public static final class PropertyPlan {
+
+        /**
+         * The property name
+         */
+        private final String name;
+
+        /**
+         * The reader method
+         */
+        private final Method reader;
+
+        /**
+         * The reader direct accessor
+         */
+        private final MethodAccessor readerAccessor;
+
+        /**
+         * Is the property excluded from clone ?
+         */
+        private final boolean ignored;
+
+        /**
+         * Can the property hold a lazy proxy or a persistent collection ?
+         */
+        private final boolean lazyCandidate;
+
+        /**
+         * Constructor
+         */
+        PropertyPlan(String name, Method reader) {
+            this.name = name;
+            this.reader = reader;
+            this.ignored = CloneAndMergeConstants.PROXY_INFORMATIONS.equalsIgnoreCase(name)
+                    || CloneAndMergeConstants.INITIALIZATION_MAP.equalsIgnoreCase(name);
+            this.lazyCandidate = isLazyCandidate(reader.getReturnType());
+            this.readerAccessor = MethodAccessor.get(reader);
+        }
+
+        /**
+         * @return the property name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the reader method
+         */
+        public Method getReader() {
+            return reader;
+        }
+
+        /**
+         * @return true if the property is one of the Gilead internal properties, that are never cloned
+         */
+        public boolean isIgnored() {
+            return ignored;
+        }
+
+        /**
+         * @return true if the property value must be checked for lazy loading or persistent collection
+         */
+        public boolean isLazyCandidate() {
+            return lazyCandidate;
+        }
+
+        /**
+         * Read the property value of the argument bean
+         */
+        public Object readValue(Object bean) throws IllegalAccessException, InvocationTargetException {
+            return readerAccessor.read(bean);
+        }
+
+        /**
+         * Only non final classes (entity proxies are subclasses), interfaces, collections and maps can hold a lazy
+         * value.
+         */
+        private static boolean isLazyCandidate(Class<?> type) {
+            if (type.isPrimitive() || type.isArray() || type.isEnum()) {
+                return false;
+            }
+            if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+                return true;
+            }
+            return (Modifier.isFinal(type.getModifiers()) == false);
+        }
+    }
+
+    /**
+     * Build the property plans for the getters of the argument class.
+     */
+    static Map<String, PropertyPlan> compileProperties(Class<?> beanClass) {
+        // 'get' readers have priority over 'is' ones, and subclass declaration over superclass ones
+        Map<String, Method> getters = new HashMap<>();
+        Map<String, Method> booleanGetters = new HashMap<>();
+        for (Class<?> clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if ((method.getParameterTypes().length != 0) || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String methodName = method.getName();
+                if (methodName.startsWith("get") && (methodName.length() > 3)) {
+                    registerReader(getters, methodName.substring(3), clazz, methodName);
+                } else if (methodName.startsWith("is") && (methodName.length() > 2)) {
+                    registerReader(booleanGetters, methodName.substring(2), clazz, methodName);
+                }
+            }
+        }
+        for (Map.Entry<String, Method> entry : booleanGetters.entrySet()) {
+            if (getters.containsKey(entry.getKey()) == false) {
+                getters.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Index plans by capitalized and uncapitalized property name
+        Map<String, PropertyPlan> properties = new HashMap<>(getters.size() * 4);
+        for (Map.Entry<String, Method> entry : getters.entrySet()) {
+            String suffix = entry.getKey();
+            String name = Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+            PropertyPlan property = new PropertyPlan(name, entry.getValue());
+            properties.put(suffix, property);
+            properties.put(name, property);
+        }
+        return properties;
+    }
+
+    /**
+     * Register the first declared reader found for the property
+     */
+    private static void registerReader(Map<String, Method> readers, String suffix, Class<?> clazz, String methodName) {
+        if (readers.containsKey(suffix)) {
+            return;
+        }
+        try {
+            // Same resolution than getDeclaredMethod (covariant returns and bridges)
+            readers.put(suffix, clazz.getDeclaredMethod(methodName));
+        } catch (NoSuchMethodException e) {
+            // Should not happen
+            throw new IllegalStateException(e);
+        }
+    }
+}
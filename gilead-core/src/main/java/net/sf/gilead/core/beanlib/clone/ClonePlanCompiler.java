@@ -0,0 +1,158 @@
+package net.sf.gilead.core.beanlib.clone;
+
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.beanlib.spi.BeanMethodCollector;
+import net.sf.beanlib.spi.BeanMethodFinder;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.beanlib.finder.FastPrivateSetterMethodCollector;
+
+/**
+ * Clone plan compiler : analyzes each class once and caches the resulting {@link ClonePlan}. The compiler is thread
+ * safe and is meant to be shared by all the clone operations using the same class mapper. Plans are attached to their
+ * class (ClassValue), so they do not prevent class loaders from being unloaded.
+ *
+ * @author bruno.marchesson
+ */
+public class ClonePlanCompiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClonePlanCompiler.class);
+
+    /**
+     * The class mapper (can be null)
+     */
+    private final ClassMapper classMapper;
+
+    /**
+     * The compiled plans cache (replaced on clear)
+     */
+    private volatile ClassValue<ClonePlan> plans = createPlans();
+
+    /**
+     * The class mapper target classes cache, Void for no target class (replaced on clear)
+     */
+    private volatile ClassValue<Class<?>> targetClasses = createTargetClasses();
+
+    /**
+     * Plan based setter collector
+     */
+    private final BeanMethodCollector setterMethodCollector = new BeanMethodCollector() {
+        @Override
+        public Method[] collect(Object bean) {
+            return getPlan(bean.getClass()).getSetters();
+        }
+
+        @Override
+        public String getMethodPrefix() {
+            return "set";
+        }
+    };
+
+    /**
+     * Plan based reader finder
+     */
+    private final BeanMethodFinder readerMethodFinder = new BeanMethodFinder() {
+        @Override
+        public Method find(String propertyName, Object bean) {
+            return getPlan(bean.getClass()).getReader(propertyName);
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param classMapper the class mapper (can be null)
+     */
+    public ClonePlanCompiler(ClassMapper classMapper) {
+        this.classMapper = classMapper;
+    }
+
+    /**
+     * @return the class mapper
+     */
+    public ClassMapper getClassMapper() {
+        return classMapper;
+    }
+
+    /**
+     * @return a setter collector relying on the compiled plans
+     */
+    public BeanMethodCollector getSetterMethodCollector() {
+        return setterMethodCollector;
+    }
+
+    /**
+     * @return a reader finder relying on the compiled plans
+     */
+    public BeanMethodFinder getReaderMethodFinder() {
+        return readerMethodFinder;
+    }
+
+    /**
+     * Get (and compile if needed) the clone plan of the argument class
+     */
+    public ClonePlan getPlan(Class<?> beanClass) {
+        return plans.get(beanClass);
+    }
+
+    /**
+     * Get the class mapper target class of the argument class
+     *
+     * @return the target class, or null if there is no class mapper or no target class
+     */
+    public Class<?> getTargetClass(Class<?> sourceClass) {
+        if (classMapper == null) {
+            return null;
+        }
+
+        Class<?> targetClass = targetClasses.get(sourceClass);
+        return (targetClass == Void.class) ? null : targetClass;
+    }
+
+    /**
+     * Clear the compiled plans
+     */
+    public void clear() {
+        plans = createPlans();
+        targetClasses = createTargetClasses();
+    }
+
+    /**
+     * Compile the plan of the argument class
+     */
+    protected ClonePlan compile(Class<?> beanClass) {
+        LOGGER.debug("Compiling clone plan for [{}].", beanClass);
+
+        return new ClonePlan(beanClass, FastPrivateSetterMethodCollector.getSharedInstance().collect(beanClass),
+                ClonePlan.compileProperties(beanClass));
+    }
+
+    /**
+     * @return a new plans cache. Compilation is idempotent : concurrent compilations just keep the first plan
+     */
+    private ClassValue<ClonePlan> createPlans() {
+        return new ClassValue<ClonePlan>() {
+            @Override
+            protected ClonePlan computeValue(Class<?> beanClass) {
+                return compile(beanClass);
+            }
+        };
+    }
+
+    /**
+     * @return a new target classes cache
+     */
+    private ClassValue<Class<?>> createTargetClasses() {
+        return new ClassValue<Class<?>>() {
+            @Override
+            protected Class<?> computeValue(Class<?> sourceClass) {
+                Class<?> targetClass = classMapper.getTargetClass(sourceClass);
+                // Void for no target class
+                return (targetClass == null) ? Void.class : targetClass;
+            }
+        };
+    }
+}
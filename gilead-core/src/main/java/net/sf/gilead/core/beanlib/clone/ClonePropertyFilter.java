@@ -10,11 +10,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.beanlib.spi.DetailedPropertyFilter;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
+import net.sf.gilead.core.beanlib.clone.ClonePlan.PropertyPlan;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.pojo.base.ILightEntity;
 import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.MethodAccessor;
 
 /**
  * Populatable for Hibernate lazy handling
@@ -35,12 +38,30 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
      */
     private ProxyStore proxyStore;
 
+    /**
+     * The clone plan compiler (can be null)
+     */
+    private ClonePlanCompiler clonePlanCompiler;
+
+    /**
+     * The clone operation context (can be null)
+     */
+    private CloneContext cloneContext;
+
     /**
      * Constructor
      */
     public ClonePropertyFilter(PersistenceUtil persistenceUtil, ProxyStore proxyStore) {
+        this(persistenceUtil, proxyStore, null);
+    }
+
+    /**
+     * Constructor
+     */
+    public ClonePropertyFilter(PersistenceUtil persistenceUtil, ProxyStore proxyStore, ClonePlanCompiler clonePlanCompiler) {
         setPersistenceUtil(persistenceUtil);
         setProxyStore(proxyStore);
+        setClonePlanCompiler(clonePlanCompiler);
     }
 
     /**
@@ -71,18 +92,61 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
         this.proxyStore = proxyStore;
     }
 
+    /**
+     * @return the clone plan compiler
+     */
+    public ClonePlanCompiler getClonePlanCompiler() {
+        return clonePlanCompiler;
+    }
+
+    /**
+     * @param clonePlanCompiler the clone plan compiler to set
+     */
+    public void setClonePlanCompiler(ClonePlanCompiler clonePlanCompiler) {
+        this.clonePlanCompiler = clonePlanCompiler;
+    }
+
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     public boolean propagate(String propertyName, Object fromBean, Method readerMethod, Object toBean, Method setterMethod) {
         // Is the property lazy loaded ?
         //
         try {
-            if ((CloneAndMergeConstants.PROXY_INFORMATIONS.equals(propertyName) == true)
-                    || (CloneAndMergeConstants.INITIALIZATION_MAP.equals(propertyName) == true)) {
-                return false;
-            }
-
             // Get from value
-            Object fromValue = readPropertyValue(fromBean, readerMethod.getName());
+            Object fromValue;
+            PropertyPlan property = null;
+            if (clonePlanCompiler != null) {
+                property = clonePlanCompiler.getPlan(fromBean.getClass()).getProperty(propertyName);
+            }
+            if (property != null) {
+                if (property.isIgnored()) {
+                    return false;
+                }
+                if (property.isLazyCandidate() == false) {
+                    // Cannot be lazy : no need to read the value
+                    return true;
+                }
+                fromValue = property.readValue(fromBean);
+            } else {
+                if ((CloneAndMergeConstants.PROXY_INFORMATIONS.equals(propertyName) == true)
+                        || (CloneAndMergeConstants.INITIALIZATION_MAP.equals(propertyName) == true)) {
+                    return false;
+                }
+                fromValue = readPropertyValue(fromBean, readerMethod.getName());
+            }
             if (fromValue == null) {
                 return true;
             }
@@ -110,19 +174,19 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
                 proxyInformations.put(ILightEntity.INITIALISED, false);
 
                 // Store proxy information
-                proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
+                proxyStore.storeProxyInformations(cloneContext, toBean, fromBean, propertyName, proxyInformations);
 
                 return false;
             } else if (isPersistentMap) {
                 // Persistent map handling
                 Map<String, Serializable> proxyInformations = persistenceUtil.serializePersistentMap((Map<?, ?>) fromValue);
 
-                proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
+                proxyStore.storeProxyInformations(cloneContext, toBean, fromBean, propertyName, proxyInformations);
             } else if (isPersistentCollection) {
                 // Persistent collection handling
                 Map<String, Serializable> proxyInformations = persistenceUtil.serializePersistentCollection((Collection<?>) fromValue);
 
-                proxyStore.storeProxyInformations(toBean, fromBean, propertyName, proxyInformations);
+                proxyStore.storeProxyInformations(cloneContext, toBean, fromBean, propertyName, proxyInformations);
             }
 
             return true;
@@ -137,7 +201,6 @@ public class ClonePropertyFilter implements DetailedPropertyFilter {
     private Object readPropertyValue(Object bean, String propertyGetter)
             throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
         Method readMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertyGetter, (Class[]) null);
-        readMethod.setAccessible(true);
-        return readMethod.invoke(bean, (Object[]) null);
+        return MethodAccessor.get(readMethod).read(bean);
     }
 }
@@ -27,28 +27,21 @@ public class FastPrivateReaderMethodFinder implements BeanMethodFinder {
         }
 
         Class<?> beanClass = bean.getClass();
-        try {
-            Method reader = IntrospectionHelper.getRecursiveDeclaredMethod(beanClass, "get" + s, (Class[]) null);
-            if (isStatic(reader) == false) {
-                return reader;
-            } else {
-                // Private or static method
-                return null;
-            }
-        } catch (NoSuchMethodException ignore) {
-            try {
-                Method reader = IntrospectionHelper.getRecursiveDeclaredMethod(beanClass, "is" + s, (Class[]) null);
-                if (isStatic(reader) == false) {
-                    return reader;
-                } else {
-                    // Private or static method
-                    return null;
-                }
-            } catch (NoSuchMethodException ex) {
+        Method reader = IntrospectionHelper.findRecursiveDeclaredMethod(beanClass, "get" + s, (Class[]) null);
+        if (reader == null) {
+            reader = IntrospectionHelper.findRecursiveDeclaredMethod(beanClass, "is" + s, (Class[]) null);
+            if (reader == null) {
                 // Not found
                 return null;
             }
         }
+
+        if (isStatic(reader) == false) {
+            return reader;
+        } else {
+            // Private or static method
+            return null;
+        }
     }
 
     boolean isStatic(Method m) {
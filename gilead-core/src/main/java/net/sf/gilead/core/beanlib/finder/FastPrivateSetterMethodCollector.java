@@ -2,64 +2,99 @@ package net.sf.gilead.core.beanlib.finder;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
 import net.sf.beanlib.spi.BeanMethodCollector;
 
 /**
- * Fast Private Setter Method collector, inspired by the beanlib one but relying on IntropsectionHelper, that caches
- * getDeclaredMethod results
+ * Fast Private Setter Method collector, inspired by the beanlib one but caching the setters of each bean class. The
+ * cache is a ClassValue, so it is thread safe and does not prevent class unloading, and a shared instance can be used
+ * by all the replicators.
  *
  * @author bruno.marchesson
  */
 public class FastPrivateSetterMethodCollector implements BeanMethodCollector {
 
     /**
-     * Cache map
+     * Setter method prefix
      */
-    private HashMap<Class<?>, Method[]> cache = new HashMap<>();
+    private static final String SETTER_PREFIX = "set";
 
+    /**
+     * The shared instance
+     */
+    private static final FastPrivateSetterMethodCollector SHARED_INSTANCE = new FastPrivateSetterMethodCollector();
+
+    /**
+     * Setters cache, by bean class
+     */
+    private final ClassValue<Method[]> cache = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            return collectSetterMethods(type);
+        }
+    };
+
+    /**
+     * @return the shared instance
+     */
+    public static FastPrivateSetterMethodCollector getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * The returned array is cached and shared : it must not be modified.
+     */
     @Override
     public Method[] collect(Object bean) {
-        Class<?> beanClass = bean.getClass();
+        return cache.get(bean.getClass());
+    }
 
-        if (cache.containsKey(beanClass) == false) {
-            // Get all methods declared by the class or interface.
-            // This includes public, protected, default (package) access,
-            // and private methods, but excludes inherited methods.
-            Set<Method> set = new HashSet<>();
+    /**
+     * @param beanClass the bean class
+     * @return the (cached and shared) setter methods of the bean class
+     */
+    public Method[] collect(Class<?> beanClass) {
+        return cache.get(beanClass);
+    }
 
-            while (beanClass != Object.class) {
-                for (Method m : beanClass.getDeclaredMethods()) {
-                    if (!m.getName().startsWith(getMethodPrefix())) {
-                        continue;
-                    }
-                    if (m.getParameterTypes().length != 1) {
-                        continue;
-                    }
-                    final int mod = m.getModifiers();
+    /**
+     * Collect the non static setters declared by the argument class and its superclasses, whatever their visibility.
+     *
+     * @param beanClass the bean class
+     * @return the setter methods
+     */
+    public static Method[] collectSetterMethods(Class<?> beanClass) {
+        // Get all methods declared by the class or interface.
+        // This includes public, protected, default (package) access,
+        // and private methods, but excludes inherited methods.
+        Set<Method> set = new HashSet<>();
 
-                    if (Modifier.isStatic(mod)) {
-                        continue;
-                    }
-                    // Adds the specified element to the set if it is not already present
-                    set.add(m);
+        while ((beanClass != null) && (beanClass != Object.class)) {
+            for (Method m : beanClass.getDeclaredMethods()) {
+                if (!m.getName().startsWith(SETTER_PREFIX)) {
+                    continue;
                 }
-                // climb to the super class and repeat
-                beanClass = beanClass.getSuperclass();
-            }
+                if (m.getParameterTypes().length != 1) {
+                    continue;
+                }
+                final int mod = m.getModifiers();
 
-            // Add to cache
-            cache.put(beanClass, set.toArray(new Method[set.size()]));
+                if (Modifier.isStatic(mod)) {
+                    continue;
+                }
+                // Adds the specified element to the set if it is not already present
+                set.add(m);
+            }
+            // climb to the super class and repeat
+            beanClass = beanClass.getSuperclass();
         }
-        return cache.get(beanClass);
-
+        return set.toArray(new Method[set.size()]);
     }
 
     @Override
     public String getMethodPrefix() {
-        return "set";
+        return SETTER_PREFIX;
     }
 }
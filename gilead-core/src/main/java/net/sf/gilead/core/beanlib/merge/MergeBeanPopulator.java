@@ -3,7 +3,7 @@ package net.sf.gilead.core.beanlib.merge;
 import net.sf.beanlib.provider.BeanPopulator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.CustomBeanTransformerSpi;
-import net.sf.beanlib.spi.DetailedPropertyFilter;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.ClassMapper;
 import net.sf.gilead.core.beanlib.finder.FastPrivateReaderMethodFinder;
@@ -28,6 +28,20 @@ public class MergeBeanPopulator {
      */
     public static BeanPopulator newBeanPopulator(Object from, Object to, ClassMapper classMapper, PersistenceUtil persistenceUtil,
             ProxyStore proxyStore) {
+        return newBeanPopulator(from, to, classMapper, persistenceUtil, proxyStore, CloneContext.currentOrNew());
+    }
+
+    /**
+     * Create a new populator for merge operation
+     * 
+     * @param from the source class
+     * @param to the target class
+     * @param classMapper the associated class mapper
+     * @param cloneContext the merge operation context
+     * @return the created populator
+     */
+    public static BeanPopulator newBeanPopulator(Object from, Object to, ClassMapper classMapper, PersistenceUtil persistenceUtil,
+            ProxyStore proxyStore, CloneContext cloneContext) {
         BeanPopulator replicator = new BeanPopulator(from, to);
 
         // Change bean class replicator
@@ -36,12 +50,15 @@ public class MergeBeanPopulator {
         ((MergeClassBeanReplicator) transformer.getBeanReplicatable()).setClassMapper(classMapper);
         ((MergeClassBeanReplicator) transformer.getBeanReplicatable()).setPersistenceUtil(persistenceUtil);
         ((MergeClassBeanReplicator) transformer.getBeanReplicatable()).setProxyStore(proxyStore);
+        ((MergeClassBeanReplicator) transformer.getBeanReplicatable()).setCloneContext(cloneContext);
 
         transformer.initCollectionReplicatableFactory(MergeCollectionReplicator.factory);
         ((MergeCollectionReplicator) transformer.getCollectionReplicatable()).setPersistenceUtil(persistenceUtil);
+        ((MergeCollectionReplicator) transformer.getCollectionReplicatable()).setCloneContext(cloneContext);
 
         transformer.initMapReplicatableFactory(MergeMapReplicator.factory);
         ((MergeMapReplicator) transformer.getMapReplicatable()).setPersistenceUtil(persistenceUtil);
+        ((MergeMapReplicator) transformer.getMapReplicatable()).setCloneContext(cloneContext);
 
         // Custom transformers (timestamp handling)
         transformer.initCustomTransformerFactory(new CustomBeanTransformerSpi.Factory() {
@@ -52,11 +69,12 @@ public class MergeBeanPopulator {
         });
 
         // Lazy properties handling
-        DetailedPropertyFilter hibernateFilter = new MergePropertyFilter(persistenceUtil, proxyStore);
+        MergePropertyFilter hibernateFilter = new MergePropertyFilter(persistenceUtil, proxyStore);
+        hibernateFilter.setCloneContext(cloneContext);
         replicator.initDetailedPropertyFilter(hibernateFilter);
 
         // Merge based on protected and private setters
-        replicator.initSetterMethodCollector(new FastPrivateSetterMethodCollector());
+        replicator.initSetterMethodCollector(FastPrivateSetterMethodCollector.getSharedInstance());
         replicator.initReaderMethodFinder(new FastPrivateReaderMethodFinder());
 
         return replicator;
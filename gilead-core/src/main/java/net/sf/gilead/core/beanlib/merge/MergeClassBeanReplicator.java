@@ -7,6 +7,7 @@ import net.sf.beanlib.hibernate.UnEnhancer;
 import net.sf.beanlib.hibernate5.Hibernate5JavaBeanReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.BeanReplicatorSpi;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.ClassMapper;
 import net.sf.gilead.core.store.ProxyStore;
@@ -37,6 +38,11 @@ public class MergeClassBeanReplicator extends Hibernate5JavaBeanReplicator {
      */
     private ProxyStore proxyStore;
 
+    /**
+     * The clone or merge operation context
+     */
+    private CloneContext cloneContext;
+
     protected MergeClassBeanReplicator(BeanTransformerSpi beanTransformer) {
         super(beanTransformer);
     }
@@ -83,18 +89,32 @@ public class MergeClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         this.proxyStore = proxyStore;
     }
 
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     public <V extends Object, T extends Object> T replicateBean(V from, java.lang.Class<T> toClass) {
         // Reset bean local
-        BeanlibCache.setProxyInformations(null);
+        cloneContext.setProxyInformations(null);
 
-        // Force persistence map computation (useful for subclass)
-        persistenceUtil.isPersistentPojo(from);
+        // Force persistence map computation (useful for subclass), without computing the id
+        persistenceUtil.isPersistentClass(persistenceUtil.getUnenhancedClass(from.getClass()));
 
         // Add current bean to stack
-        BeanlibCache.getFromBeanStack().push(from);
+        cloneContext.getFromBeanStack().push(from);
         T result = super.replicateBean(from, toClass);
-        BeanlibCache.getFromBeanStack().pop();
+        cloneContext.getFromBeanStack().pop();
 
         return result;
     }
@@ -129,7 +149,7 @@ public class MergeClassBeanReplicator extends Hibernate5JavaBeanReplicator {
         }
 
         // Add the bean to stack
-        // BeanlibCache.getToBeanStack().push(result);
+        // cloneContext.getToBeanStack().push(result);
 
         return result;
     }
@@ -8,6 +8,7 @@ import java.util.Map;
 import net.sf.beanlib.hibernate5.Hibernate5CollectionReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.CollectionReplicatorSpi;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.util.CollectionHelper;
 
@@ -25,6 +26,11 @@ public class MergeCollectionReplicator extends Hibernate5CollectionReplicator {
      */
     private PersistenceUtil persistenceUtil;
 
+    /**
+     * The clone or merge operation context
+     */
+    private CloneContext cloneContext;
+
     /**
      * Constructor
      *
@@ -48,11 +54,25 @@ public class MergeCollectionReplicator extends Hibernate5CollectionReplicator {
         this.persistenceUtil = persistenceUtil;
     }
 
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected Object replicate(Object from) {
         // Reset bean local
-        BeanlibCache.setProxyInformations(null);
+        cloneContext.setProxyInformations(null);
         return super.replicate(from);
     }
 
@@ -63,15 +83,15 @@ public class MergeCollectionReplicator extends Hibernate5CollectionReplicator {
     @SuppressWarnings("unchecked")
     public <V, T> T replicateCollection(Collection<V> from, Class<T> toClass) {
         // Get and reset proxy informations if any
-        Map<String, Serializable> proxyInformations = BeanlibCache.getProxyInformations();
-        BeanlibCache.setProxyInformations(null);
+        Map<String, Serializable> proxyInformations = cloneContext.getProxyInformations();
+        cloneContext.setProxyInformations(null);
 
         // Clone collection
         T collection = super.replicateCollection(from, toClass);
 
         // Turn into persistent collection if needed
         if (proxyInformations != null) {
-            Object parent = BeanlibCache.getToBeanStack().peek();
+            Object parent = cloneContext.getToBeanStack().peek();
             return (T) persistenceUtil.createPersistentCollection(parent, proxyInformations, (Collection<?>) collection);
         } else {
             return collection;
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import net.sf.beanlib.hibernate5.Hibernate5MapReplicator;
 import net.sf.beanlib.spi.BeanTransformerSpi;
 import net.sf.beanlib.spi.replicator.MapReplicatorSpi;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 
 /**
@@ -27,6 +28,11 @@ public class MergeMapReplicator extends Hibernate5MapReplicator {
      */
     private PersistenceUtil persistenceUtil;
 
+    /**
+     * The clone or merge operation context
+     */
+    private CloneContext cloneContext;
+
     /**
      * Constructor
      *
@@ -50,11 +56,25 @@ public class MergeMapReplicator extends Hibernate5MapReplicator {
         this.persistenceUtil = persistenceUtil;
     }
 
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected Object replicate(Object from) {
         // Reset bean local
-        BeanlibCache.setProxyInformations(null);
+        cloneContext.setProxyInformations(null);
         return super.replicate(from);
     }
 
@@ -67,15 +87,15 @@ public class MergeMapReplicator extends Hibernate5MapReplicator {
         LOGGER.debug("Merge map from [{}] to class [{}].", from, toClass);
 
         // Get and reset persistent collection class if any
-        Map<String, Serializable> proxyInformations = BeanlibCache.getProxyInformations();
-        BeanlibCache.setProxyInformations(null);
+        Map<String, Serializable> proxyInformations = cloneContext.getProxyInformations();
+        cloneContext.setProxyInformations(null);
 
         // Clone map
         T map = super.replicateMap(from, toClass);
 
         // Turn into persistent map if needed
         if (proxyInformations != null) {
-            Object parent = BeanlibCache.getToBeanStack().peek();
+            Object parent = cloneContext.getToBeanStack().peek();
             return (T) persistenceUtil.createPersistentMap(parent, proxyInformations, (Map<?, ?>) map);
         } else {
             return map;
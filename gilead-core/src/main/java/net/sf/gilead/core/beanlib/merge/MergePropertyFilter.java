@@ -7,11 +7,13 @@ import java.util.Collection;
 import java.util.Map;
 
 import net.sf.beanlib.spi.DetailedPropertyFilter;
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.beanlib.CloneAndMergeConstants;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.pojo.base.ILightEntity;
 import net.sf.gilead.util.IntrospectionHelper;
+import net.sf.gilead.util.MethodAccessor;
 
 /**
  * Populatable for POJO with the lazy information of the Hibernate POJO This populatable is used to fill back an
@@ -33,6 +35,11 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
      */
     private ProxyStore proxyStore;
 
+    /**
+     * The clone or merge operation context
+     */
+    private CloneContext cloneContext;
+
     /**
      * Constructor
      */
@@ -69,10 +76,24 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
         this.proxyStore = proxyStore;
     }
 
+    /**
+     * @return the operation context
+     */
+    public CloneContext getCloneContext() {
+        return cloneContext;
+    }
+
+    /**
+     * @param cloneContext the operation context to set
+     */
+    public void setCloneContext(CloneContext cloneContext) {
+        this.cloneContext = cloneContext;
+    }
+
     @Override
     public boolean propagate(String propertyName, Object cloneBean, Method readerMethod, Object persistentBean, Method setterMethod) {
         // Always reset proxy information on stack
-        BeanlibCache.setProxyInformations(null);
+        cloneContext.setProxyInformations(null);
 
         try {
             // Precondition checking
@@ -82,7 +103,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
             }
 
             // Get proxy informations
-            Map<String, Serializable> proxyInformations = proxyStore.getProxyInformations(cloneBean, propertyName);
+            Map<String, Serializable> proxyInformations = proxyStore.getProxyInformations(cloneContext, cloneBean, propertyName);
 
             if (proxyInformations == null) {
                 // No proxy informations : just populate the property
@@ -105,7 +126,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
                     return false;
                 } else {
                     // Store proxy info for the copy operation
-                    BeanlibCache.setProxyInformations(proxyInformations);
+                    cloneContext.setProxyInformations(proxyInformations);
                 }
             } else if (isMap) {
                 if (isNullValue(cloneValue)) {
@@ -115,7 +136,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
                     return false;
                 } else {
                     // Store proxy info for the copy operation
-                    BeanlibCache.setProxyInformations(proxyInformations);
+                    cloneContext.setProxyInformations(proxyInformations);
                 }
             } else if (isNullValue(cloneValue) && isInitialized(proxyInformations) == false) {
                 // Set an entity proxy
@@ -158,9 +179,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
     private Object readPropertyValue(Object bean, String propertyGetter)
             throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
         Method readMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertyGetter, (Class[]) null);
-        readMethod.setAccessible(true);
-
-        return readMethod.invoke(bean, (Object[]) null);
+        return MethodAccessor.get(readMethod).read(bean);
     }
 
     /**
@@ -169,9 +188,7 @@ public class MergePropertyFilter implements DetailedPropertyFilter {
     private void writePropertyValue(Object bean, Object value, String propertySetter, Class<?>... parameterTypes)
             throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
         Method writeMethod = IntrospectionHelper.getRecursiveDeclaredMethod(bean.getClass(), propertySetter, parameterTypes);
-        writeMethod.setAccessible(true);
-
-        writeMethod.invoke(bean, value);
+        MethodAccessor.get(writeMethod).write(bean, value);
     }
 
     /**
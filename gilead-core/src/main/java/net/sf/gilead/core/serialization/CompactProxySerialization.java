@@ -0,0 +1,527 @@
+package net.sf.gilead.core.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.exception.ConvertorException;
+
+/**
+ * Compact binary proxy serialization. Proxy information maps are written with a dedicated format : known keys and
+ * value types are encoded as varint tags, strings (class names, roles, entity names) are written once per map and then
+ * referenced by index, and only exotic values (composite ids for instance) fall back on Java serialization. The result
+ * is Base64 encoded, so it can replace the default serialization with String based light entities. Java serialized
+ * (default serialization) data is still accepted when unserializing.
+ *
+ * @author bruno.marchesson
+ */
+public class CompactProxySerialization implements IProxySerialization {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactProxySerialization.class);
+
+    /**
+     * Compact proxy information map format
+     */
+    private static final int FORMAT_MAP = 1;
+
+    /**
+     * Java serialization format (not a proxy information map)
+     */
+    private static final int FORMAT_JAVA = 2;
+
+    /**
+     * First byte of a Java serialization stream (default serialization data)
+     */
+    private static final int JAVA_STREAM_MAGIC = 0xAC;
+
+    /**
+     * Known proxy information keys (index + 1 is the key token, 0 is for other keys)
+     */
+    private static final String[] KNOWN_KEYS = { "class", "id", "role", "key", "underlying", "idList", "valueList", "initialized" };
+
+    // Value tags
+    private static final int NULL = 0;
+
+    private static final int STRING = 1;
+
+    private static final int TRUE = 2;
+
+    private static final int FALSE = 3;
+
+    private static final int INTEGER = 4;
+
+    private static final int LONG = 5;
+
+    private static final int SERIALIZABLE_ID = 6;
+
+    private static final int ID_LIST = 7;
+
+    private static final int JAVA = 8;
+
+    @Override
+    public Object serialize(Serializable serializable) {
+        LOGGER.trace("Serialization of [{}].", serializable);
+        // Precondition checking
+        if (serializable == null) {
+            return null;
+        }
+        return Base64.getEncoder().encodeToString(encode(serializable));
+    }
+
+    @Override
+    public Serializable unserialize(Object object) {
+        // Precondition checking
+        if (object == null) {
+            return null;
+        }
+        if (object instanceof String == false) {
+            throw new RuntimeException("Cannot unserialize object : " + object + " (was expecting a String)");
+        }
+        return decode(Base64.getDecoder().decode((String) object));
+    }
+
+    /**
+     * Encode the argument Serializable to compact binary form
+     *
+     * @param serializable the proxy informations (or any Serializable)
+     * @return the encoded bytes
+     */
+    public byte[] encode(Serializable serializable) {
+        Output output = new Output();
+        if (isCompactMap(serializable)) {
+            output.write(FORMAT_MAP);
+            writeMap(output, (Map<?, ?>) serializable);
+        } else {
+            output.write(FORMAT_JAVA);
+            output.writeArray(javaSerialize(serializable));
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decode the argument bytes, generated by encode or by Java serialization
+     *
+     * @param bytes the encoded bytes
+     * @return the decoded Serializable
+     */
+    public Serializable decode(byte[] bytes) {
+        // Precondition checking
+        if ((bytes == null) || (bytes.length == 0)) {
+            return null;
+        }
+
+        int format = bytes[0] & 0xFF;
+        if (format == JAVA_STREAM_MAGIC) {
+            // Default proxy serialization data
+            return javaUnserialize(bytes);
+        }
+
+        Input input = new Input(bytes, 1);
+        if (format == FORMAT_MAP) {
+            return readMap(input);
+        } else if (format == FORMAT_JAVA) {
+            return javaUnserialize(input.readArray());
+        } else {
+            throw new ConvertorException("Unknown proxy serialization format : " + format);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //
+    // Internal methods
+    //
+    // -------------------------------------------------------------------------
+    /**
+     * @return true if the argument is a map with String keys
+     */
+    private static boolean isCompactMap(Serializable serializable) {
+        if (serializable.getClass() != HashMap.class) {
+            return false;
+        }
+        for (Object key : ((Map<?, ?>) serializable).keySet()) {
+            if (key instanceof String == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a proxy information map
+     */
+    private void writeMap(Output output, Map<?, ?> map) {
+        output.writeVarint(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String key = (String) entry.getKey();
+            int token = getKeyToken(key);
+            output.writeVarint(token);
+            if (token == 0) {
+                output.writeString(key);
+            }
+            writeValue(output, entry.getValue());
+        }
+    }
+
+    /**
+     * Read a proxy information map
+     */
+    private HashMap<String, Serializable> readMap(Input input) {
+        int size = input.readSize();
+        HashMap<String, Serializable> map = new HashMap<>(size * 2);
+        for (int index = 0; index < size; index++) {
+            int token = input.readVarint();
+            if ((token < 0) || (token > KNOWN_KEYS.length)) {
+                throw new ConvertorException("Unknown proxy serialization key token : " + token);
+            }
+            String key = (token == 0) ? input.readString() : KNOWN_KEYS[token - 1];
+            map.put(key, readValue(input));
+        }
+        return map;
+    }
+
+    /**
+     * Write a tagged value
+     */
+    private void writeValue(Output output, Object value) {
+        if (value == null) {
+            output.writeVarint(NULL);
+        } else if (value instanceof String) {
+            output.writeVarint(STRING);
+            output.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            output.writeVarint(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            output.writeVarint(INTEGER);
+            output.writeVarlong(zigzag(((Integer) value).longValue()));
+        } else if (value instanceof Long) {
+            output.writeVarint(LONG);
+            output.writeVarlong(zigzag(((Long) value).longValue()));
+        } else if (value.getClass() == SerializableId.class) {
+            output.writeVarint(SERIALIZABLE_ID);
+            writeSerializableId(output, (SerializableId) value);
+        } else if (isIdList(value)) {
+            List<?> idList = (List<?>) value;
+            output.writeVarint(ID_LIST);
+            output.writeVarint(idList.size());
+            for (Object sid : idList) {
+                writeSerializableId(output, (SerializableId) sid);
+            }
+        } else {
+            // Exotic value
+            output.writeVarint(JAVA);
+            output.writeArray(javaSerialize((Serializable) value));
+        }
+    }
+
+    /**
+     * Read a tagged value
+     */
+    private Serializable readValue(Input input) {
+        int tag = input.readVarint();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return input.readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return Integer.valueOf((int) unzigzag(input.readVarlong()));
+            case LONG:
+                return Long.valueOf(unzigzag(input.readVarlong()));
+            case SERIALIZABLE_ID:
+                return readSerializableId(input);
+            case ID_LIST:
+                int size = input.readSize();
+                ArrayList<SerializableId> idList = new ArrayList<>(size);
+                for (int index = 0; index < size; index++) {
+                    idList.add(readSerializableId(input));
+                }
+                return idList;
+            case JAVA:
+                return javaUnserialize(input.readArray());
+            default:
+                throw new ConvertorException("Unknown proxy serialization tag : " + tag);
+        }
+    }
+
+    /**
+     * Write a serializable id (entity name, id and value)
+     */
+    private void writeSerializableId(Output output, SerializableId sid) {
+        if (sid == null) {
+            output.writeVarint(0);
+            return;
+        }
+        output.writeVarint(1);
+        output.writeString(sid.getEntityName());
+        writeValue(output, sid.getId());
+        output.writeString(sid.getValue());
+    }
+
+    /**
+     * Read a serializable id
+     */
+    private SerializableId readSerializableId(Input input) {
+        if (input.readVarint() == 0) {
+            return null;
+        }
+        SerializableId sid = new SerializableId();
+        sid.setEntityName(input.readString());
+        sid.setId(readValue(input));
+        sid.setValue(input.readString());
+        return sid;
+    }
+
+    /**
+     * @return true if the argument is an ArrayList of SerializableId (or null)
+     */
+    private static boolean isIdList(Object value) {
+        if (value.getClass() != ArrayList.class) {
+            return false;
+        }
+        for (Object item : (List<?>) value) {
+            if ((item != null) && (item.getClass() != SerializableId.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the known key token, or 0 for unknown key
+     */
+    private static int getKeyToken(String key) {
+        for (int index = 0; index < KNOWN_KEYS.length; index++) {
+            if (KNOWN_KEYS[index].equals(key)) {
+                return index + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Zigzag encoding, for small negative numbers
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Zigzag decoding
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Java serialization
+     */
+    private static byte[] javaSerialize(Serializable serializable) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(serializable);
+            oos.flush();
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new ConvertorException("Error converting Serializable", ex);
+        }
+    }
+
+    /**
+     * Java unserialization
+     */
+    private static Serializable javaUnserialize(byte[] bytes) {
+        try (ByteArrayInputStream in = new ByteArrayInputStream(bytes); ObjectInputStream ois = new ObjectInputStream(in)) {
+            return (Serializable) ois.readObject();
+        } catch (Exception e) {
+            throw new ConvertorException("Error converting Serializable", e);
+        }
+    }
+
+    /**
+     * Binary output, with per stream string table
+     *
+     * @author bruno.marchesson
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        /**
+         * The already written strings, with their index
+         */
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        /**
+         * Constructor
+         */
+        Output() {
+            super(128);
+        }
+
+        /**
+         * Write an unsigned varint
+         */
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Write an unsigned varlong
+         */
+        void writeVarlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        /**
+         * Write a length prefixed byte array
+         */
+        void writeArray(byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Write a (nullable) string : 0 for null, 1 for a new string, or the already written string index + 2
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarint(index.intValue() + 2);
+            } else {
+                strings.put(value, Integer.valueOf(strings.size()));
+                writeVarint(1);
+                writeArray(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Binary input, with per stream string table
+     *
+     * @author bruno.marchesson
+     */
+    private static final class Input {
+
+        /**
+         * The read bytes
+         */
+        private final byte[] bytes;
+
+        /**
+         * The current position
+         */
+        private int position;
+
+        /**
+         * The already read strings
+         */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Constructor
+         */
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        /**
+         * Read an unsigned varint
+         */
+        int readVarint() {
+            return (int) readVarlong();
+        }
+
+        /**
+         * Read an unsigned varlong
+         */
+        long readVarlong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new ConvertorException("Truncated proxy serialization data");
+                }
+                int value = bytes[position++];
+                result |= (long) (value & 0x7F) << shift;
+                if ((value & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new ConvertorException("Malformed varint in proxy serialization data");
+        }
+
+        /**
+         * Read an element count : each element takes at least one byte, so it cannot exceed the remaining bytes
+         */
+        int readSize() {
+            int size = readVarint();
+            if ((size < 0) || (size > bytes.length - position)) {
+                throw new ConvertorException("Invalid size in proxy serialization data : " + size);
+            }
+            return size;
+        }
+
+        /**
+         * Read a byte length, within the remaining bytes
+         */
+        int readLength() {
+            int length = readVarint();
+            if ((length < 0) || (length > bytes.length - position)) {
+                throw new ConvertorException("Truncated proxy serialization data");
+            }
+            return length;
+        }
+
+        /**
+         * Read a length prefixed byte array
+         */
+        byte[] readArray() {
+            int length = readLength();
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, position, result, 0, length);
+            position += length;
+            return result;
+        }
+
+        /**
+         * Read a (nullable) string
+         */
+        String readString() {
+            int ref = readVarint();
+            if (ref == 0) {
+                return null;
+            } else if (ref == 1) {
+                int length = readLength();
+                String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+                strings.add(value);
+                return value;
+            } else if ((ref > 1) && (ref - 2 < strings.size())) {
+                return strings.get(ref - 2);
+            } else {
+                throw new ConvertorException("Invalid string reference in proxy serialization data : " + ref);
+            }
+        }
+    }
+}
@@ -3,8 +3,12 @@ package net.sf.gilead.core.store;
 import java.io.Serializable;
 import java.util.Map;
 
+import net.sf.gilead.core.CloneContext;
+
 /**
- * Handler for proxy informations storage and recovery
+ * Handler for proxy informations storage and recovery. Clone and merge operations call the methods taking the
+ * operation context, which stores can override to keep their operation state in the context : by default, they call
+ * the methods without context.
  * 
  * @author bruno.marchesson
  */
@@ -41,4 +45,41 @@ public interface ProxyStore {
      * Clean up the proxy store after a complete serialization process
      */
     void cleanUp();
+
+    /**
+     * Store the argument proxy informations, during the argument operation.
+     * 
+     * @see #storeProxyInformations(Object, Object, String, Map)
+     */
+    default void storeProxyInformations(CloneContext context, Object cloneBean, Object persistentBean, String property,
+            Map<String, Serializable> proxyInformations) {
+        storeProxyInformations(cloneBean, persistentBean, property, proxyInformations);
+    }
+
+    /**
+     * Remove the proxy informations, during the argument operation.
+     * 
+     * @see #removeProxyInformations(Object, String)
+     */
+    default void removeProxyInformations(CloneContext context, Object object, String property) {
+        removeProxyInformations(object, property);
+    }
+
+    /**
+     * Get the proxy informations, during the argument operation.
+     * 
+     * @see #getProxyInformations(Object, String)
+     */
+    default Map<String, Serializable> getProxyInformations(CloneContext context, Object pojo, String property) {
+        return getProxyInformations(pojo, property);
+    }
+
+    /**
+     * Clean up the proxy store at the end of the argument operation.
+     * 
+     * @see #cleanUp()
+     */
+    default void cleanUp(CloneContext context) {
+        cleanUp();
+    }
 }
@@ -0,0 +1,197 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.CloneContext;
+
+/**
+ * Base class for external (network or disk) stateful proxy stores, shared between nodes. Single key writes of a clone
+ * or merge operation are buffered in the operation context and sent to the backend in one storeAll call at clean up,
+ * so implementations only have to provide the batch operations. Writes outside of an operation are sent at once.
+ *
+ * @author bruno.marchesson
+ */
+public abstract class AbstractBatchProxyStore extends AbstractStatefulProxyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBatchProxyStore.class);
+
+    /**
+     * Operation context key of the pending writes (null value for deletion)
+     */
+    private final Object pendingWritesKey = new Object();
+
+    /**
+     * Flush pending writes asynchronously
+     */
+    private boolean asyncFlush;
+
+    /**
+     * @return true if pending writes are flushed asynchronously at clean up
+     */
+    public boolean isAsyncFlush() {
+        return asyncFlush;
+    }
+
+    /**
+     * @param asyncFlush true to flush pending writes asynchronously at clean up
+     */
+    public void setAsyncFlush(boolean asyncFlush) {
+        this.asyncFlush = asyncFlush;
+    }
+
+    @Override
+    public void store(ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        store(CloneContext.current(), key, proxyInformation);
+    }
+
+    @Override
+    protected void store(CloneContext context, ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        write(context, key, proxyInformation);
+    }
+
+    @Override
+    public Map<String, Serializable> get(ProxyStoreKey key) {
+        return get(CloneContext.current(), key);
+    }
+
+    @Override
+    protected Map<String, Serializable> get(CloneContext context, ProxyStoreKey key) {
+        Map<ProxyStoreKey, Map<String, Serializable>> pending = getPendingWrites(context, false);
+        if ((pending != null) && pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        return getAll(Collections.singleton(key)).get(key);
+    }
+
+    @Override
+    public void delete(ProxyStoreKey key) {
+        delete(CloneContext.current(), key);
+    }
+
+    @Override
+    protected void delete(CloneContext context, ProxyStoreKey key) {
+        write(context, key, null);
+    }
+
+    /**
+     * Flush the pending writes of the operation bound to the running thread
+     */
+    @Override
+    public void cleanUp() {
+        CloneContext context = CloneContext.current();
+        if (context != null) {
+            cleanUp(context);
+        }
+    }
+
+    /**
+     * Flush the pending writes of the operation in one batch
+     */
+    @Override
+    public void cleanUp(CloneContext context) {
+        @SuppressWarnings("unchecked")
+        Map<ProxyStoreKey, Map<String, Serializable>> pending = (Map<ProxyStoreKey, Map<String, Serializable>>) context.removeAttribute(pendingWritesKey);
+        if (pending == null) {
+            return;
+        }
+        if (asyncFlush) {
+            final int size = pending.size();
+            storeAllAsync(pending).whenComplete(new BiConsumer<Void, Throwable>() {
+                @Override
+                public void accept(Void result, Throwable error) {
+                    if (error != null) {
+                        LOGGER.error("Asynchronous flush of " + size + " proxy informations failed", error);
+                    }
+                }
+            });
+        } else {
+            storeAll(pending);
+        }
+    }
+
+    @Override
+    public abstract void storeAll(Map<ProxyStoreKey, Map<String, Serializable>> proxyInformations);
+
+    @Override
+    public abstract Map<ProxyStoreKey, Map<String, Serializable>> getAll(Collection<ProxyStoreKey> keys);
+
+    /**
+     * Drop the matching pending writes of the operation bound to the running thread, then delete from the backend
+     */
+    @Override
+    public void deleteByPrefix(String prefix) {
+        Map<ProxyStoreKey, Map<String, Serializable>> pending = getPendingWrites(CloneContext.current(), false);
+        if (pending != null) {
+            Iterator<ProxyStoreKey> iterator = pending.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().toString().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+        deleteStoredByPrefix(prefix);
+    }
+
+    /**
+     * Delete all the backend keys whose string form starts with the argument prefix
+     */
+    protected abstract void deleteStoredByPrefix(String prefix);
+
+    /**
+     * Drop the pending writes of the entity in the operation bound to the running thread, then delete from the backend
+     */
+    @Override
+    public void deleteEntity(Class<?> pojoClass, Serializable id) {
+        Map<ProxyStoreKey, Map<String, Serializable>> pending = getPendingWrites(CloneContext.current(), false);
+        if (pending != null) {
+            Iterator<ProxyStoreKey> iterator = pending.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isEntity(pojoClass, id)) {
+                    iterator.remove();
+                }
+            }
+        }
+        deleteStoredEntity(pojoClass, id);
+    }
+
+    /**
+     * Delete all the backend keys of the argument entity
+     */
+    protected abstract void deleteStoredEntity(Class<?> pojoClass, Serializable id);
+
+    /**
+     * Buffer the write in the operation, or send it at once without operation
+     */
+    private void write(CloneContext context, ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        if (context == null) {
+            storeAll(Collections.singletonMap(key, proxyInformation));
+        } else {
+            getPendingWrites(context, true).put(key, proxyInformation);
+        }
+    }
+
+    /**
+     * @return the pending writes of the operation
+     */
+    @SuppressWarnings("unchecked")
+    private Map<ProxyStoreKey, Map<String, Serializable>> getPendingWrites(CloneContext context, boolean create) {
+        if (context == null) {
+            return null;
+        }
+        Map<ProxyStoreKey, Map<String, Serializable>> pending = (Map<ProxyStoreKey, Map<String, Serializable>>) context.getAttribute(pendingWritesKey);
+        if ((pending == null) && create) {
+            pending = new LinkedHashMap<>();
+            context.setAttribute(pendingWritesKey, pending);
+        }
+        return pending;
+    }
+}
@@ -1,15 +1,23 @@
 package net.sf.gilead.core.store.stateful;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.PersistenceUtil;
 import net.sf.gilead.core.store.ProxyStore;
+import net.sf.gilead.core.store.stateless.SerializationExecutors;
 import net.sf.gilead.exception.NotPersistentObjectException;
 import net.sf.gilead.exception.TransientObjectException;
 
 /**
- * Abstract class for stateful proxy store.
+ * Abstract class for stateful proxy store. Besides single key operations, it exposes a batch API (storeAll, getAll and
+ * deleteByPrefix, with asynchronous variants) that network or disk backends can override to work in one round-trip.
  * 
  * @author bruno.marchesson
  */
@@ -20,6 +28,16 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
      */
     protected PersistenceUtil persistenceUtil;
 
+    /**
+     * Unenhanced class cache
+     */
+    private volatile ClassValue<Class<?>> unenhancedClasses;
+
+    /**
+     * Executor of asynchronous batch operations
+     */
+    private Executor asyncExecutor;
+
     /**
      * @return the persistence Util implementation
      */
@@ -30,20 +48,54 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
     /**
      * @param persistenceUtil the persistence Util to set
      */
-    public void setPersistenceUtil(PersistenceUtil persistenceUtil) {
+    public void setPersistenceUtil(final PersistenceUtil persistenceUtil) {
         this.persistenceUtil = persistenceUtil;
+        this.unenhancedClasses = new ClassValue<Class<?>>() {
+            @Override
+            protected Class<?> computeValue(Class<?> type) {
+                return persistenceUtil.getUnenhancedClass(type);
+            }
+        };
+    }
+
+    /**
+     * @return the executor of asynchronous batch operations
+     */
+    public Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            return SerializationExecutors.getSharedExecutor();
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * @param asyncExecutor the executor of asynchronous batch operations
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
     }
 
     @Override
     public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {
-        Serializable id = UniqueNameGenerator.getUniqueId(persistenceUtil, persistentBean);
-        store(computeKey(cloneBean, id, property), proxyInformations);
+        storeProxyInformations(CloneContext.current(), cloneBean, persistentBean, property, proxyInformations);
+    }
+
+    @Override
+    public void storeProxyInformations(CloneContext context, Object cloneBean, Object persistentBean, String property,
+            Map<String, Serializable> proxyInformations) {
+        Serializable id = UniqueNameGenerator.getUniqueId(persistenceUtil, persistentBean, context);
+        store(context, computeKey(cloneBean, id, property), proxyInformations);
     }
 
     @Override
     public Map<String, Serializable> getProxyInformations(Object pojo, String property) {
+        return getProxyInformations(CloneContext.current(), pojo, property);
+    }
+
+    @Override
+    public Map<String, Serializable> getProxyInformations(CloneContext context, Object pojo, String property) {
         try {
-            return get(computeKey(pojo, property));
+            return get(context, computeKey(pojo, property, context));
         } catch (TransientObjectException ex) {
             return null;
         } catch (NotPersistentObjectException e) {
@@ -53,7 +105,12 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
 
     @Override
     public void removeProxyInformations(Object pojo, String property) {
-        delete(computeKey(pojo, property));
+        removeProxyInformations(CloneContext.current(), pojo, property);
+    }
+
+    @Override
+    public void removeProxyInformations(CloneContext context, Object pojo, String property) {
+        delete(context, computeKey(pojo, property, context));
     }
 
     /**
@@ -62,56 +119,184 @@ public abstract class AbstractStatefulProxyStore implements ProxyStore {
     @Override
     public void cleanUp() {}
 
+    /**
+     * Store the value, during the argument operation (can be null). Stores keeping operation state override it.
+     */
+    protected void store(CloneContext context, ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        store(key, proxyInformation);
+    }
+
+    /**
+     * Get the proxy informations, during the argument operation (can be null)
+     */
+    protected Map<String, Serializable> get(CloneContext context, ProxyStoreKey key) {
+        return get(key);
+    }
+
+    /**
+     * Delete the key, during the argument operation (can be null)
+     */
+    protected void delete(CloneContext context, ProxyStoreKey key) {
+        delete(key);
+    }
+
     /**
      * Store the value in the map.
      */
-    public abstract void store(String key, Map<String, Serializable> proxyInformation);
+    public abstract void store(ProxyStoreKey key, Map<String, Serializable> proxyInformation);
 
     /**
      * Get the proxy informations associated with the key
      * 
      * @return the value if found, null otherwise
      */
-    public abstract Map<String, Serializable> get(String key);
+    public abstract Map<String, Serializable> get(ProxyStoreKey key);
 
     /**
      * Delete the key from the underlying storage
      * 
      * @param key
      */
-    public abstract void delete(String key);
+    public abstract void delete(ProxyStoreKey key);
 
     /**
-     * Compute the hashmap key
+     * Store all the argument proxy informations. A null value deletes the key.
+     */
+    public void storeAll(Map<ProxyStoreKey, Map<String, Serializable>> proxyInformations) {
+        for (Map.Entry<ProxyStoreKey, Map<String, Serializable>> entry : proxyInformations.entrySet()) {
+            if (entry.getValue() == null) {
+                delete(entry.getKey());
+            } else {
+                store(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the proxy informations associated with the keys
      * 
-     * @param pojo
+     * @return the found proxy informations, by key
+     */
+    public Map<ProxyStoreKey, Map<String, Serializable>> getAll(Collection<ProxyStoreKey> keys) {
+        Map<ProxyStoreKey, Map<String, Serializable>> result = new HashMap<>(keys.size() * 2);
+        for (ProxyStoreKey key : keys) {
+            Map<String, Serializable> proxyInformation = get(key);
+            if (proxyInformation != null) {
+                result.put(key, proxyInformation);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Delete all the keys whose string form (className@id.property) starts with the argument prefix, for instance all
+     * the proxy informations of a class with the "className@" prefix. This is a plain string match : "className@1" also
+     * matches the keys of ids 10 or 123, so use {@link #deleteEntity(Class, Serializable)} for a single entity.
+     */
+    public abstract void deleteByPrefix(String prefix);
+
+    /**
+     * Delete all the proxy informations of an entity : the keys with the argument class and id
+     */
+    public abstract void deleteEntity(Class<?> pojoClass, Serializable id);
+
+    /**
+     * Asynchronous storeAll
+     */
+    public CompletableFuture<Void> storeAllAsync(final Map<ProxyStoreKey, Map<String, Serializable>> proxyInformations) {
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                storeAll(proxyInformations);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Asynchronous getAll
+     */
+    public CompletableFuture<Map<ProxyStoreKey, Map<String, Serializable>>> getAllAsync(final Collection<ProxyStoreKey> keys) {
+        return CompletableFuture.supplyAsync(new Supplier<Map<ProxyStoreKey, Map<String, Serializable>>>() {
+            @Override
+            public Map<ProxyStoreKey, Map<String, Serializable>> get() {
+                return getAll(keys);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Asynchronous deleteByPrefix
+     */
+    public CompletableFuture<Void> deleteByPrefixAsync(final String prefix) {
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                deleteByPrefix(prefix);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Asynchronous deleteEntity
+     */
+    public CompletableFuture<Void> deleteEntityAsync(final Class<?> pojoClass, final Serializable id) {
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                deleteEntity(pojoClass, id);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Compute the store key
+     * 
+     * @param pojoClass
+     * @param id
      * @param property
      * @return
      */
-    public String computeKey(Class<?> pojoClass, Serializable id, String property) {
-        pojoClass = persistenceUtil.getUnenhancedClass(pojoClass);
-        return UniqueNameGenerator.generateUniqueName(id, pojoClass) + '.' + property;
+    public ProxyStoreKey computeKey(Class<?> pojoClass, Serializable id, String property) {
+        return new ProxyStoreKey(getUnenhancedClass(pojoClass), id, property);
     }
 
     /**
-     * Compute the hashmap key
+     * Compute the store key
      * 
      * @param pojo
      * @param property
      * @return
      */
-    protected String computeKey(Object pojo, Serializable id, String property) {
+    protected ProxyStoreKey computeKey(Object pojo, Serializable id, String property) {
         return computeKey(pojo.getClass(), id, property);
     }
 
     /**
-     * Compute the hashmap key
+     * Compute the store key
      * 
      * @param pojo
      * @param property
      * @return
      */
-    protected String computeKey(Object pojo, String property) {
-        return UniqueNameGenerator.generateUniqueName(persistenceUtil, pojo) + '.' + property;
+    protected ProxyStoreKey computeKey(Object pojo, String property) {
+        return computeKey(pojo, property, CloneContext.current());
+    }
+
+    /**
+     * Compute the store key, during the argument operation
+     */
+    protected ProxyStoreKey computeKey(Object pojo, String property, CloneContext context) {
+        return new ProxyStoreKey(pojo.getClass(), UniqueNameGenerator.getUniqueId(persistenceUtil, pojo, context), property);
+    }
+
+    /**
+     * @return the (cached) unenhanced class
+     */
+    private Class<?> getUnenhancedClass(Class<?> pojoClass) {
+        ClassValue<Class<?>> cache = unenhancedClasses;
+        if (cache == null) {
+            return persistenceUtil.getUnenhancedClass(pojoClass);
+        }
+        return cache.get(pojoClass);
     }
 }
@@ -0,0 +1,280 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.gilead.core.serialization.CompactProxySerialization;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Reference batch proxy store, backed by a local (or shared) directory : each entity has a directory named after the
+ * hash of its class name and compact encoded id (so that it does not depend on the id toString), holding one file per
+ * property. A file starts with the readable key string form, followed by the proxy informations in compact binary form,
+ * and is written atomically. Nodes sharing the directory share their stateful proxy informations, without sticky
+ * sessions.
+ *
+ * @author bruno.marchesson
+ */
+public class FileSystemProxyStore extends AbstractBatchProxyStore {
+
+    /**
+     * Proxy information file suffix
+     */
+    private static final String SUFFIX = ".proxy";
+
+    /**
+     * Maximum encoded property length in a file name (longer ones are hashed)
+     */
+    private static final int MAX_NAME_LENGTH = 128;
+
+    /**
+     * Binary encoding of proxy informations
+     */
+    private final CompactProxySerialization serialization = new CompactProxySerialization();
+
+    /**
+     * The store directory
+     */
+    private final Path directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory the store directory (created if needed)
+     */
+    public FileSystemProxyStore(File directory) {
+        this.directory = directory.toPath();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot create proxy store directory " + directory, ex);
+        }
+    }
+
+    /**
+     * @return the store directory
+     */
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    @Override
+    public void storeAll(Map<ProxyStoreKey, Map<String, Serializable>> proxyInformations) {
+        try {
+            for (Map.Entry<ProxyStoreKey, Map<String, Serializable>> entry : proxyInformations.entrySet()) {
+                ProxyStoreKey key = entry.getKey();
+                Path path = getPath(key);
+                if (entry.getValue() == null) {
+                    Files.deleteIfExists(path);
+                } else {
+                    // Write then rename, so that other nodes never read a partial file
+                    Path temp = Files.createTempFile(directory, null, ".tmp");
+                    try {
+                        Files.write(temp, write(key, entry.getValue()));
+                        move(temp, path);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot write proxy informations in " + directory, ex);
+        }
+    }
+
+    @Override
+    public Map<ProxyStoreKey, Map<String, Serializable>> getAll(Collection<ProxyStoreKey> keys) {
+        Map<ProxyStoreKey, Map<String, Serializable>> result = new HashMap<>(keys.size() * 2);
+        for (ProxyStoreKey key : keys) {
+            try {
+                byte[] data = Files.readAllBytes(getPath(key));
+                result.put(key, read(data));
+            } catch (NoSuchFileException ex) {
+                // Not stored
+            } catch (IOException ex) {
+                throw new ProxyStoreException("Cannot read proxy informations of " + key, ex);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void deleteStoredByPrefix(String prefix) {
+        try (DirectoryStream<Path> entities = Files.newDirectoryStream(directory)) {
+            for (Path entity : entities) {
+                if (Files.isDirectory(entity) == false) {
+                    continue;
+                }
+                for (Path path : listFiles(entity)) {
+                    String key = readKey(path);
+                    if ((key != null) && key.startsWith(prefix)) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+                deleteDirectory(entity);
+            }
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot delete proxy informations in " + directory, ex);
+        }
+    }
+
+    @Override
+    protected void deleteStoredEntity(Class<?> pojoClass, Serializable id) {
+        Path entity = getEntityDirectory(pojoClass, id);
+        try {
+            for (Path path : listFiles(entity)) {
+                Files.deleteIfExists(path);
+            }
+            deleteDirectory(entity);
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot delete proxy informations in " + entity, ex);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //
+    // Internal methods
+    //
+    // -------------------------------------------------------------------------
+    /**
+     * @return the file path of the key
+     */
+    private Path getPath(ProxyStoreKey key) {
+        String name = encode(key.getProperty());
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = hash(name.getBytes(StandardCharsets.UTF_8));
+        }
+        return getEntityDirectory(key.getPojoClass(), key.getId()).resolve(name + SUFFIX);
+    }
+
+    /**
+     * @return the directory of the entity, named after the hash of its class name and encoded id
+     */
+    private Path getEntityDirectory(Class<?> pojoClass, Serializable id) {
+        HashMap<String, Serializable> entity = new HashMap<>();
+        entity.put("class", pojoClass.getName());
+        entity.put("id", id);
+        return directory.resolve(hash(serialization.encode(entity)));
+    }
+
+    /**
+     * Move the written file to its path, creating the entity directory (again if removed by a concurrent delete)
+     */
+    private void move(Path temp, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException ex) {
+            Files.createDirectories(path.getParent());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * @return the proxy information files of the entity directory (empty if missing)
+     */
+    private static Collection<Path> listFiles(Path entity) throws IOException {
+        Collection<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entity, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        } catch (NoSuchFileException ex) {
+            // Nothing stored
+        }
+        return files;
+    }
+
+    /**
+     * Delete the entity directory if empty (a concurrent store may have written a new file)
+     */
+    private static void deleteDirectory(Path entity) throws IOException {
+        try {
+            Files.deleteIfExists(entity);
+        } catch (DirectoryNotEmptyException ex) {
+            // Still in use
+        }
+    }
+
+    /**
+     * @return the file content : readable key then encoded proxy informations
+     */
+    private byte[] write(ProxyStoreKey key, Map<String, Serializable> proxyInformations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(key.toString());
+        output.write(serialization.encode((Serializable) proxyInformations));
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the proxy informations of the file content
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Serializable> read(byte[] data) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        input.readUTF();
+        int offset = data.length - input.available();
+        return (Map<String, Serializable>) serialization.decode(Arrays.copyOfRange(data, offset, data.length));
+    }
+
+    /**
+     * @return the readable key of the file, or null if removed meanwhile
+     */
+    private static String readKey(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readUTF();
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Encode the property as a file name
+     */
+    private static String encode(String property) {
+        try {
+            return URLEncoder.encode(property, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 hash of the argument bytes
+     */
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package net.sf.gilead.core.store.stateful;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpSession;
@@ -8,17 +12,42 @@ import javax.servlet.http.HttpSession;
 import net.sf.gilead.exception.ProxyStoreException;
 
 /**
- * Proxy store for stateful web application
+ * Proxy store for stateful web application. By default, each proxy information is stored as its own session attribute.
+ * In bulk mode, all the proxy informations of a session are kept in a single ProxyInformationContainer attribute. At
+ * clean up, the changes of the request are set on the session as a small delta attribute instead, so that replicated
+ * sessions only send the modified entries. Every few deltas, the container is set again as a whole and the deltas are
+ * removed. A container restored from another node (or from a persistent session) applies the deltas stored next to
+ * it. Bulk mode needs the {@link SessionMutexListener} to be declared.
  *
  * @author bruno.marchesson
  */
 public class HttpSessionProxyStore extends AbstractStatefulProxyStore {
 
+    /**
+     * Session attribute name of the bulk container
+     */
+    public static final String CONTAINER_ATTRIBUTE = "net.sf.gilead.ProxyInformations";
+
+    /**
+     * Session attribute name prefix of the container deltas (followed by the delta sequence)
+     */
+    public static final String DELTA_ATTRIBUTE_PREFIX = CONTAINER_ATTRIBUTE + ".delta.";
+
     /**
      * The storage thread local
      */
     private static ThreadLocal<HttpSession> httpSession = new ThreadLocal<>();
 
+    /**
+     * Use a single container attribute per session
+     */
+    private boolean useBulkAttribute;
+
+    /**
+     * Maximum delta count before the container is set again as a whole
+     */
+    private int maxDeltaCount = 16;
+
     /**
      * Store the current HTTP session in the thread local
      */
@@ -26,20 +55,133 @@ public class HttpSessionProxyStore extends AbstractStatefulProxyStore {
         httpSession.set(session);
     }
 
+    /**
+     * @return true if proxy informations are stored in a single session attribute
+     */
+    public boolean isUseBulkAttribute() {
+        return useBulkAttribute;
+    }
+
+    /**
+     * @param useBulkAttribute true to store all proxy informations in a single session attribute
+     */
+    public void setUseBulkAttribute(boolean useBulkAttribute) {
+        this.useBulkAttribute = useBulkAttribute;
+    }
+
+    /**
+     * @return the maximum delta count before the container is set again as a whole
+     */
+    public int getMaxDeltaCount() {
+        return maxDeltaCount;
+    }
+
+    /**
+     * @param maxDeltaCount the maximum delta count before the container is set again as a whole
+     */
+    public void setMaxDeltaCount(int maxDeltaCount) {
+        this.maxDeltaCount = maxDeltaCount;
+    }
+
     @Override
-    public void delete(String key) {
-        getSession().removeAttribute(key);
+    public void delete(ProxyStoreKey key) {
+        if (useBulkAttribute) {
+            ProxyInformationContainer container = getContainer(false);
+            if (container != null) {
+                container.remove(key);
+            }
+        } else {
+            getSession().removeAttribute(key.toString());
+        }
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    public Map<String, Serializable> get(String key) {
-        return (Map<String, Serializable>) getSession().getAttribute(key);
+    public Map<String, Serializable> get(ProxyStoreKey key) {
+        if (useBulkAttribute) {
+            ProxyInformationContainer container = getContainer(false);
+            return (container != null) ? container.get(key) : null;
+        } else {
+            return (Map<String, Serializable>) getSession().getAttribute(key.toString());
+        }
     }
 
     @Override
-    public void store(String key, Map<String, Serializable> proxyInformation) {
-        getSession().setAttribute(key, proxyInformation);
+    public void store(ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        if (useBulkAttribute) {
+            getContainer(true).put(key, proxyInformation);
+        } else {
+            getSession().setAttribute(key.toString(), proxyInformation);
+        }
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) {
+        if (useBulkAttribute) {
+            ProxyInformationContainer container = getContainer(false);
+            if (container != null) {
+                container.removeByPrefix(prefix);
+            }
+        } else {
+            HttpSession session = getSession();
+            for (String name : Collections.list(session.getAttributeNames())) {
+                if (name.startsWith(prefix)) {
+                    session.removeAttribute(name);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void deleteEntity(Class<?> pojoClass, Serializable id) {
+        if (useBulkAttribute) {
+            ProxyInformationContainer container = getContainer(false);
+            if (container != null) {
+                container.removeEntity(pojoClass, id);
+            }
+        } else {
+            HttpSession session = getSession();
+            for (String name : Collections.list(session.getAttributeNames())) {
+                if (ProxyStoreKey.isEntityName(name, pojoClass, id)) {
+                    session.removeAttribute(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the changes of the request on the session as a delta attribute, or the whole container every few deltas
+     */
+    @Override
+    public void cleanUp() {
+        HttpSession session = httpSession.get();
+        if ((useBulkAttribute == false) || (session == null)) {
+            return;
+        }
+
+        try {
+            synchronized (SessionMutexListener.getSessionMutex(session)) {
+                ProxyInformationContainer container = (ProxyInformationContainer) session.getAttribute(CONTAINER_ATTRIBUTE);
+                if ((container == null) || (container.hasDelta() == false)) {
+                    return;
+                }
+
+                ProxyInformationContainer.Delta delta = container.getDelta();
+                if (container.getDeltaCount() > maxDeltaCount) {
+                    container.markFlushed();
+                    session.setAttribute(CONTAINER_ATTRIBUTE, container);
+                    for (String name : Collections.list(session.getAttributeNames())) {
+                        if (name.startsWith(DELTA_ATTRIBUTE_PREFIX)) {
+                            session.removeAttribute(name);
+                        }
+                    }
+                } else {
+                    session.setAttribute(DELTA_ATTRIBUTE_PREFIX + delta.getSequence(), delta);
+                }
+            }
+        } catch (IllegalStateException ex) {
+            // Invalidated session : nothing to flush
+        }
     }
 
     /**
@@ -48,8 +190,53 @@ public class HttpSessionProxyStore extends AbstractStatefulProxyStore {
     private HttpSession getSession() {
         HttpSession session = httpSession.get();
         if (session == null) {
-            throw new ProxyStoreException("No HTTP session stored", null);
+            throw new ProxyStoreException("No HTTP session stored");
         }
         return session;
     }
+
+    /**
+     * Get the container of the current session
+     *
+     * @param create create the container if not found
+     * @return the container, or null if not found and not created
+     */
+    private ProxyInformationContainer getContainer(boolean create) {
+        HttpSession session = getSession();
+        ProxyInformationContainer container = (ProxyInformationContainer) session.getAttribute(CONTAINER_ATTRIBUTE);
+        if (((container == null) && create) || ((container != null) && container.isRestored())) {
+            synchronized (SessionMutexListener.getSessionMutex(session)) {
+                container = (ProxyInformationContainer) session.getAttribute(CONTAINER_ATTRIBUTE);
+                if ((container == null) && create) {
+                    container = new ProxyInformationContainer();
+                    session.setAttribute(CONTAINER_ATTRIBUTE, container);
+                } else if ((container != null) && container.isRestored()) {
+                    applyDeltas(session, container);
+                }
+            }
+        }
+        return container;
+    }
+
+    /**
+     * Apply the deltas stored in the session to a restored container, in sequence order
+     */
+    private void applyDeltas(HttpSession session, ProxyInformationContainer container) {
+        List<ProxyInformationContainer.Delta> deltas = new ArrayList<>();
+        for (String name : Collections.list(session.getAttributeNames())) {
+            if (name.startsWith(DELTA_ATTRIBUTE_PREFIX)) {
+                deltas.add((ProxyInformationContainer.Delta) session.getAttribute(name));
+            }
+        }
+        Collections.sort(deltas, new Comparator<ProxyInformationContainer.Delta>() {
+            @Override
+            public int compare(ProxyInformationContainer.Delta first, ProxyInformationContainer.Delta second) {
+                return Long.compare(first.getSequence(), second.getSequence());
+            }
+        });
+        for (ProxyInformationContainer.Delta delta : deltas) {
+            container.applyDelta(delta);
+        }
+        container.setRestored(false);
+    }
 }
@@ -1,33 +1,533 @@
 package net.sf.gilead.core.store.stateful;
 
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.sf.gilead.exception.ProxyStoreException;
 
 /**
- * In Memory Proxy Information Store. This class stores POJO in a simple hashmap
- * 
+ * In Memory Proxy Information Store. Proxy informations are stored in a concurrent, segmented map. Each segment is
+ * guarded by its own lock and keeps its entries in LRU order, so the store can be bounded by entry count and by weight,
+ * and idle entries can expire. Hit, miss, eviction and expiration statistics are available. The store is unbounded by
+ * default.<br/>
+ * The weight is not a memory size : it is estimated as one unit per entry, per proxy information value and per
+ * serialized id. Bounds are split between segments, so entries can be evicted before the global bound is reached when
+ * keys are unevenly spread. Expired entries are removed when accessed, when an entry is stored in their segment, and
+ * from all segments on {@link #cleanUp()}. An entry heavier than the segment weight bound is rejected with a
+ * {@link ProxyStoreException}.<br/>
+ * Warning : the proxy informations of a clone still held by a client are needed to merge it back. If they were evicted
+ * or expired, the merge silently gets wrong (a lazy association is seen as loaded, or the other way round), so bounds
+ * and expiration must be larger than the client working set and session lifetime.
+ *
  * @author bruno.marchesson
  */
 public class InMemoryProxyStore extends AbstractStatefulProxyStore {
 
     /**
-     * The store hashmap
+     * Segment count (power of two)
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * The store segments
+     */
+    private final Segment[] segments;
+
+    /**
+     * Maximum entry count (0 for unbounded)
+     */
+    private volatile long maximumSize;
+
+    /**
+     * Maximum total weight (0 for unbounded)
+     */
+    private volatile long maximumWeight;
+
+    /**
+     * Idle time before expiration, in nanoseconds (0 for no expiration)
+     */
+    private volatile long expireAfterAccessNanos;
+
+    /**
+     * The time source of expiration
+     */
+    private volatile Ticker ticker = SYSTEM_TICKER;
+
+    // Statistics
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * Time source, in nanoseconds
+     *
+     * @author bruno.marchesson
+     */
+    public interface Ticker {
+        /**
+         * @return the current time, in nanoseconds (only differences are meaningful)
+         */
+        long read();
+    }
+
+    /**
+     * System time source
+     */
+    public static final Ticker SYSTEM_TICKER = new Ticker() {
+        @Override
+        public long read() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Constructor
+     */
+    public InMemoryProxyStore() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int index = 0; index < SEGMENT_COUNT; index++) {
+            segments[index] = new Segment();
+        }
+    }
+
+    /**
+     * @return the maximum entry count (0 for unbounded)
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @param maximumSize the maximum entry count (0 for unbounded), split between segments
+     */
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return the maximum total weight (0 for unbounded)
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @param maximumWeight the maximum total weight (0 for unbounded), split between segments. One unit per entry, per
+     *            proxy information value and per serialized id : this is not a size in bytes.
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * @return the idle time before expiration, in milliseconds (0 for no expiration)
+     */
+    public long getExpireAfterAccess() {
+        return TimeUnit.NANOSECONDS.toMillis(expireAfterAccessNanos);
+    }
+
+    /**
+     * @param expireAfterAccess the idle time before expiration, in milliseconds (0 for no expiration)
+     */
+    public void setExpireAfterAccess(long expireAfterAccess) {
+        this.expireAfterAccessNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterAccess);
+    }
+
+    /**
+     * @return the time source of expiration
+     */
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * @param ticker the time source of expiration (system time by default)
+     */
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return the current entry count (expired entries are removed first)
+     */
+    public long getSize() {
+        long size = 0;
+        for (Segment segment : segments) {
+            segment.expire();
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the evicted entry count (size or weight bound)
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return the expired entry count
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    /**
+     * Remove all the stored proxy informations
      */
-    protected Map<String, Map<String, Serializable>> map = new HashMap<>();
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
 
+    /**
+     * Remove the expired entries of all the segments
+     */
     @Override
-    public void delete(String key) {
-        map.remove(key);
+    public void cleanUp() {
+        for (Segment segment : segments) {
+            segment.expire();
+        }
     }
 
     @Override
-    public Map<String, Serializable> get(String key) {
-        return map.get(key);
+    public void delete(ProxyStoreKey key) {
+        getSegment(key).remove(key);
     }
 
     @Override
-    public void store(String key, Map<String, Serializable> proxyInformation) {
-        map.put(key, proxyInformation);
+    public Map<String, Serializable> get(ProxyStoreKey key) {
+        return getSegment(key).get(key);
+    }
+
+    @Override
+    public void store(ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        getSegment(key).put(key, proxyInformation);
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) {
+        for (Segment segment : segments) {
+            segment.removeByPrefix(prefix);
+        }
+    }
+
+    @Override
+    public void deleteEntity(Class<?> pojoClass, Serializable id) {
+        for (Segment segment : segments) {
+            segment.removeEntity(pojoClass, id);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //
+    // Internal methods
+    //
+    // -------------------------------------------------------------------------
+    /**
+     * @return the segment of the argument key
+     */
+    private Segment getSegment(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Estimate the weight of proxy informations
+     */
+    private static long weigh(Map<String, Serializable> proxyInformation) {
+        if (proxyInformation == null) {
+            return 1;
+        }
+        long weight = 1 + proxyInformation.size();
+        for (Serializable value : proxyInformation.values()) {
+            if (value instanceof Collection<?>) {
+                weight += ((Collection<?>) value).size();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @return the per segment bound of the argument global bound
+     */
+    private static long getSegmentBound(long bound) {
+        if (bound <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, (bound + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+    }
+
+    /**
+     * Store entry
+     *
+     * @author bruno.marchesson
+     */
+    private static final class Entry {
+        /**
+         * The proxy informations
+         */
+        final Map<String, Serializable> value;
+
+        /**
+         * The estimated weight
+         */
+        final long weight;
+
+        /**
+         * Last access time (nanoseconds)
+         */
+        long lastAccess;
+
+        /**
+         * Constructor
+         */
+        Entry(Map<String, Serializable> value, long weight, long lastAccess) {
+            this.value = value;
+            this.weight = weight;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Store segment : LRU ordered map guarded by a lock
+     *
+     * @author bruno.marchesson
+     */
+    private final class Segment {
+
+        /**
+         * The segment lock
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The entries, in access order
+         */
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * The segment total weight
+         */
+        private long weight;
+
+        /**
+         * Get the value associated with the key
+         */
+        Map<String, Serializable> get(Object key) {
+            lock.lock();
+            try {
+                long now = ticker.read();
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    missCount.increment();
+                    return null;
+                }
+                if (isExpired(entry, now)) {
+                    removeEntry(key);
+                    expirationCount.increment();
+                    missCount.increment();
+                    return null;
+                }
+                entry.lastAccess = now;
+                hitCount.increment();
+                return entry.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Store the value, and evict entries if needed
+         */
+        void put(Object key, Map<String, Serializable> value) {
+            long entryWeight = weigh(value);
+            lock.lock();
+            try {
+                if (entryWeight > getSegmentBound(maximumWeight)) {
+                    // Would be evicted at once : reject it rather than losing it silently
+                    removeEntry(key);
+                    throw new ProxyStoreException("Proxy informations of " + key + " weigh " + entryWeight
+                                                  + ", over the segment weight bound "
+                                                  + getSegmentBound(maximumWeight));
+                }
+                long now = ticker.read();
+                Entry entry = new Entry(value, entryWeight, now);
+                Entry previous = entries.put(key, entry);
+                if (previous != null) {
+                    weight -= previous.weight;
+                }
+                weight += entry.weight;
+                evict(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the key
+         */
+        void remove(Object key) {
+            lock.lock();
+            try {
+                removeEntry(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the keys whose string form starts with the prefix
+         */
+        void removeByPrefix(String prefix) {
+            lock.lock();
+            try {
+                Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Object, Entry> entry = iterator.next();
+                    if (entry.getKey().toString().startsWith(prefix)) {
+                        iterator.remove();
+                        weight -= entry.getValue().weight;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the keys of the argument entity
+         */
+        void removeEntity(Class<?> pojoClass, Serializable id) {
+            lock.lock();
+            try {
+                Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Object, Entry> entry = iterator.next();
+                    if (((ProxyStoreKey) entry.getKey()).isEntity(pojoClass, id)) {
+                        iterator.remove();
+                        weight -= entry.getValue().weight;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the segment entry count
+         */
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove all entries
+         */
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+                weight = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the expired entries
+         */
+        void expire() {
+            lock.lock();
+            try {
+                long now = ticker.read();
+                Iterator<Entry> iterator = entries.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry eldest = iterator.next();
+                    if (isExpired(eldest, now) == false) {
+                        // LRU order : other entries are more recent
+                        break;
+                    }
+                    iterator.remove();
+                    weight -= eldest.weight;
+                    expirationCount.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove expired and least recently used entries over bounds (lock held)
+         */
+        private void evict(long now) {
+            long sizeBound = getSegmentBound(maximumSize);
+            long weightBound = getSegmentBound(maximumWeight);
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                if (isExpired(eldest, now)) {
+                    expirationCount.increment();
+                } else if ((entries.size() > sizeBound) || (weight > weightBound)) {
+                    evictionCount.increment();
+                } else {
+                    // LRU order : other entries are more recent
+                    break;
+                }
+                iterator.remove();
+                weight -= eldest.weight;
+            }
+        }
+
+        /**
+         * Remove the key (lock held)
+         */
+        private void removeEntry(Object key) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                weight -= entry.weight;
+            }
+        }
+
+        /**
+         * @return true if the entry is expired
+         */
+        private boolean isExpired(Entry entry, long now) {
+            long ttl = expireAfterAccessNanos;
+            return (ttl > 0) && (now - entry.lastAccess >= ttl);
+        }
     }
 }
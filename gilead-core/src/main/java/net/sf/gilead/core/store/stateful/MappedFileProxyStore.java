@@ -0,0 +1,810 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.gilead.core.serialization.CompactProxySerialization;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Off heap stateful proxy store. Proxy informations are appended (compact binary form) to a memory mapped log file, and
+ * only an index of record positions is kept on heap. The log is mapped in fixed size segments (only the last one is
+ * remapped when it grows), so it can grow beyond 2GB. The segment size is recorded in the file header. The index is
+ * rebuilt from the log on startup, so the store survives restarts, and the log is compacted when obsolete records
+ * outweigh live ones.
+ *
+ * @author bruno.marchesson
+ */
+public class MappedFileProxyStore extends AbstractStatefulProxyStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileProxyStore.class);
+
+    /**
+     * Default initial mapped size
+     */
+    private static final long DEFAULT_CAPACITY = 16L * 1024 * 1024;
+
+    /**
+     * Default segment size
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Minimum obsolete size before compaction
+     */
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    /**
+     * File header size : segment size (int)
+     */
+    private static final int FILE_HEADER_SIZE = 4;
+
+    /**
+     * Record header size : record length (int) and type (byte)
+     */
+    private static final int HEADER_SIZE = 5;
+
+    /**
+     * Record length marking the end of a segment : the log goes on in the next segment
+     */
+    private static final int SEGMENT_END = -1;
+
+    /**
+     * Store record type
+     */
+    private static final byte STORE = 1;
+
+    /**
+     * Delete record type
+     */
+    private static final byte DELETE = 2;
+
+    /**
+     * Encoded key fields
+     */
+    private static final String KEY_CLASS = "class";
+
+    private static final String KEY_ID = "id";
+
+    private static final String KEY_PROPERTY = "property";
+
+    /**
+     * Binary encoding of proxy informations
+     */
+    private final CompactProxySerialization serialization = new CompactProxySerialization();
+
+    /**
+     * The log file
+     */
+    private final File file;
+
+    /**
+     * Initial (and minimum) mapped size
+     */
+    private final long initialCapacity;
+
+    /**
+     * Mapped segment size
+     */
+    private final int segmentSize;
+
+    /**
+     * Record positions, by key
+     */
+    private final Map<ProxyStoreKey, Record> index = new HashMap<>();
+
+    /**
+     * Store lock
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The open log
+     */
+    private Segments log;
+
+    /**
+     * Size of live records
+     */
+    private long liveSize;
+
+    /**
+     * Size of obsolete records
+     */
+    private long obsoleteSize;
+
+    /**
+     * Obsolete size to reach before retrying a failed automatic compaction
+     */
+    private long retryCompactionSize;
+
+    /**
+     * Constructor
+     *
+     * @param file the log file (created if needed)
+     */
+    public MappedFileProxyStore(File file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file the log file (created if needed)
+     * @param initialCapacity the initial mapped size
+     */
+    public MappedFileProxyStore(File file, long initialCapacity) {
+        this(file, initialCapacity, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file the log file (created if needed)
+     * @param initialCapacity the initial mapped size
+     * @param segmentSize the mapped segment size of a new log file, that is also the maximum record size
+     */
+    public MappedFileProxyStore(File file, long initialCapacity, int segmentSize) {
+        this.file = file;
+        this.initialCapacity = initialCapacity;
+        this.segmentSize = readSegmentSize(file, segmentSize);
+        try {
+            log = new Segments(file, Math.max(initialCapacity, file.length()));
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot open proxy store file " + file, ex);
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * @return the stored entry count
+     */
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the log file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void store(ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        if (proxyInformation == null) {
+            delete(key);
+            return;
+        }
+
+        byte[] keyBytes = encodeKey(key);
+        byte[] value = serialization.encode((Serializable) proxyInformation);
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            long position = append(STORE, keyBytes, value);
+            Record record = new Record(position, HEADER_SIZE + 4 + keyBytes.length + value.length, 4 + keyBytes.length, value.length);
+            Record previous = index.put(key, record);
+            liveSize += record.size;
+            if (previous != null) {
+                liveSize -= previous.size;
+                obsoleteSize += previous.size;
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Serializable> get(ProxyStoreKey key) {
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Record record = index.get(key);
+            if (record == null) {
+                return null;
+            }
+            value = log.read(record.position + HEADER_SIZE + record.keyLength, record.valueLength);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return decode(value);
+    }
+
+    @Override
+    public void delete(ProxyStoreKey key) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Record previous = index.remove(key);
+            if (previous != null) {
+                appendDelete(key, previous);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteByPrefix(String prefix) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Iterator<Map.Entry<ProxyStoreKey, Record>> iterator = index.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<ProxyStoreKey, Record> entry = iterator.next();
+                if (entry.getKey().toString().startsWith(prefix)) {
+                    iterator.remove();
+                    appendDelete(entry.getKey(), entry.getValue());
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteEntity(Class<?> pojoClass, Serializable id) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Iterator<Map.Entry<ProxyStoreKey, Record>> iterator = index.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<ProxyStoreKey, Record> entry = iterator.next();
+                if (entry.getKey().isEntity(pojoClass, id)) {
+                    iterator.remove();
+                    appendDelete(entry.getKey(), entry.getValue());
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Force the log content to the storage device
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            log.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the log : only live records are kept
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            doCompact();
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot compact proxy store file " + file, ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                log.force();
+                log.close();
+                log = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    //
+    // Internal methods
+    //
+    // -------------------------------------------------------------------------
+    /**
+     * Rebuild the index by scanning the log records
+     */
+    private void rebuildIndex() {
+        long position = FILE_HEADER_SIZE;
+        while (true) {
+            int offset = (int) (position % segmentSize);
+            ByteBuffer segment = log.getSegment(position);
+            if (segment == null) {
+                // End of mapped log
+                break;
+            }
+            if (segmentSize - offset < 4) {
+                // No room for a record at the end of the segment
+                obsoleteSize += segmentSize - offset;
+                position += segmentSize - offset;
+                continue;
+            }
+            if (offset + 4 > segment.capacity()) {
+                break;
+            }
+            int recordSize = segment.getInt(offset);
+            if (recordSize == SEGMENT_END) {
+                obsoleteSize += segmentSize - offset;
+                position += segmentSize - offset;
+                continue;
+            }
+            if ((recordSize < HEADER_SIZE + 4) || (offset + recordSize > segment.capacity())) {
+                // End of log (or truncated record)
+                break;
+            }
+            byte type = segment.get(offset + 4);
+            int keyLength = segment.getInt(offset + HEADER_SIZE);
+            ProxyStoreKey key = decodeKey(log.read(position + HEADER_SIZE + 4, keyLength));
+
+            Record previous = null;
+            if (key == null) {
+                obsoleteSize += recordSize;
+            } else if (type == STORE) {
+                Record record = new Record(position, recordSize, 4 + keyLength, recordSize - HEADER_SIZE - 4 - keyLength);
+                previous = index.put(key, record);
+                liveSize += recordSize;
+            } else {
+                previous = index.remove(key);
+                obsoleteSize += recordSize;
+            }
+            if (previous != null) {
+                liveSize -= previous.size;
+                obsoleteSize += previous.size;
+            }
+            position += recordSize;
+        }
+        log.writePosition = position;
+        LOGGER.debug("Proxy store [{}] opened with {} entries.", file, index.size());
+    }
+
+    /**
+     * Append a delete record for a removed index entry (write lock held)
+     */
+    private void appendDelete(ProxyStoreKey key, Record previous) {
+        byte[] keyBytes = encodeKey(key);
+        append(DELETE, keyBytes, new byte[0]);
+        liveSize -= previous.size;
+        obsoleteSize += previous.size + HEADER_SIZE + 4 + keyBytes.length;
+    }
+
+    /**
+     * Append a record to the log (write lock held)
+     *
+     * @return the record position
+     */
+    private long append(byte type, byte[] keyBytes, byte[] value) {
+        int recordSize = HEADER_SIZE + 4 + keyBytes.length + value.length;
+        if (recordSize > segmentSize) {
+            throw new ProxyStoreException("Proxy informations too large (" + recordSize + " bytes) for proxy store file " + file);
+        }
+        long skippedSize = log.skippedSize;
+        try {
+            return log.append(type, keyBytes, value, recordSize);
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot grow proxy store file " + file, ex);
+        } finally {
+            // Unused segment ends are obsolete
+            obsoleteSize += log.skippedSize - skippedSize;
+        }
+    }
+
+    /**
+     * Compact the log when obsolete records outweigh live ones (write lock held)
+     */
+    private void compactIfNeeded() {
+        if ((obsoleteSize > MIN_COMPACTION_SIZE) && (obsoleteSize > liveSize) && (obsoleteSize > retryCompactionSize)) {
+            try {
+                doCompact();
+                retryCompactionSize = 0;
+            } catch (IOException | RuntimeException ex) {
+                // The original log is kept (unless it cannot be reopened : the store is then closed)
+                LOGGER.error("Cannot compact proxy store file " + file, ex);
+                retryCompactionSize = 2 * obsoleteSize;
+            }
+        }
+    }
+
+    /**
+     * Copy live records to a new log file and replace the current one (write lock held)
+     */
+    private void doCompact() throws IOException {
+        LOGGER.debug("Compacting proxy store [{}] : {} live bytes, {} obsolete bytes.", file, liveSize, obsoleteSize);
+        File compactFile = new File(file.getPath() + ".compact");
+        Files.deleteIfExists(compactFile.toPath());
+        long capacity = Math.max(initialCapacity, FILE_HEADER_SIZE + liveSize);
+
+        Map<ProxyStoreKey, Record> compactIndex = new HashMap<>(index.size() * 2);
+        long writePosition;
+        long skippedSize;
+        Segments compactLog = new Segments(compactFile, capacity);
+        try {
+            for (Map.Entry<ProxyStoreKey, Record> entry : index.entrySet()) {
+                Record record = entry.getValue();
+                long position = compactLog.appendRaw(log.read(record.position, record.size));
+                compactIndex.put(entry.getKey(), new Record(position, record.size, record.keyLength, record.valueLength));
+            }
+            compactLog.force();
+            writePosition = compactLog.writePosition;
+            skippedSize = compactLog.skippedSize;
+        } finally {
+            compactLog.close();
+        }
+
+        // Release the current mapping before replacing the file
+        long previousWritePosition = log.writePosition;
+        long previousSkippedSize = log.skippedSize;
+        log.close();
+        log = null;
+        try {
+            replaceFile(compactFile, file);
+        } catch (IOException | RuntimeException ex) {
+            // Go on with the original log
+            Files.deleteIfExists(compactFile.toPath());
+            log = new Segments(file, file.length());
+            log.writePosition = previousWritePosition;
+            log.skippedSize = previousSkippedSize;
+            throw ex;
+        }
+        index.clear();
+        index.putAll(compactIndex);
+        obsoleteSize = skippedSize;
+
+        // The store stays closed if the compacted log cannot be opened
+        log = new Segments(file, Math.max(capacity, file.length()));
+        log.writePosition = writePosition;
+    }
+
+    /**
+     * Replace the log file with the compacted one (atomically when the file system supports it)
+     */
+    protected void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Check that the store is open (lock held)
+     */
+    private void checkOpen() {
+        if (log == null) {
+            throw new ProxyStoreException("Proxy store file " + file + " is closed");
+        }
+    }
+
+    /**
+     * Encode the store key
+     */
+    private byte[] encodeKey(ProxyStoreKey key) {
+        HashMap<String, Serializable> fields = new HashMap<>(4);
+        fields.put(KEY_CLASS, key.getPojoClass().getName());
+        fields.put(KEY_ID, key.getId());
+        fields.put(KEY_PROPERTY, key.getProperty());
+        return serialization.encode(fields);
+    }
+
+    /**
+     * Decode a store key
+     *
+     * @return the key, or null if its class cannot be loaded anymore
+     */
+    private ProxyStoreKey decodeKey(byte[] keyBytes) {
+        Map<String, Serializable> fields = decode(keyBytes);
+        String className = (String) fields.get(KEY_CLASS);
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = MappedFileProxyStore.class.getClassLoader();
+            }
+            Class<?> pojoClass = Class.forName(className, false, classLoader);
+            return new ProxyStoreKey(pojoClass, fields.get(KEY_ID), (String) fields.get(KEY_PROPERTY));
+        } catch (ClassNotFoundException ex) {
+            LOGGER.warn("Ignoring proxy informations of unknown class [{}].", className);
+            return null;
+        }
+    }
+
+    /**
+     * Decode proxy informations
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Serializable> decode(byte[] value) {
+        return (Map<String, Serializable>) serialization.decode(value);
+    }
+
+    /**
+     * Read the segment size from the header of an existing log file
+     *
+     * @return the recorded segment size, or the argument one for a new file
+     */
+    private static int readSegmentSize(File file, int defaultSegmentSize) {
+        if (file.length() < FILE_HEADER_SIZE) {
+            return defaultSegmentSize;
+        }
+        try (RandomAccessFile header = new RandomAccessFile(file, "r")) {
+            int segmentSize = header.readInt();
+            return (segmentSize > 0) ? segmentSize : defaultSegmentSize;
+        } catch (IOException ex) {
+            throw new ProxyStoreException("Cannot read proxy store file " + file, ex);
+        }
+    }
+
+    /**
+     * Release a mapping without waiting for garbage collection
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException ex) {
+                // Java 8 : direct buffer cleaner
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Exception ex) {
+            // The mapping is released by garbage collection
+            LOGGER.debug("Cannot release proxy store mapping : {}", ex.toString());
+        }
+    }
+
+    /**
+     * Log file mapped in fixed size segments. A record never spans two segments, and only the last segment can be
+     * mapped partially.
+     *
+     * @author bruno.marchesson
+     */
+    private final class Segments {
+        /**
+         * The open file
+         */
+        private final RandomAccessFile randomAccessFile;
+
+        /**
+         * The mapped segments
+         */
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+        /**
+         * Next record position
+         */
+        long writePosition;
+
+        /**
+         * Size of the unused segment ends
+         */
+        long skippedSize;
+
+        /**
+         * Open and map the log file
+         *
+         * @param file the log file
+         * @param capacity the initial mapped size
+         */
+        Segments(File file, long capacity) throws IOException {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                ensureMapped(Math.max(FILE_HEADER_SIZE, capacity));
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+            if (segments.get(0).getInt(0) == 0) {
+                segments.get(0).putInt(0, segmentSize);
+            }
+            writePosition = FILE_HEADER_SIZE;
+        }
+
+        /**
+         * @return the segment holding the position, or null if not mapped
+         */
+        ByteBuffer getSegment(long position) {
+            int segment = (int) (position / segmentSize);
+            if ((segment >= segments.size()) || (position % segmentSize >= segments.get(segment).capacity())) {
+                return null;
+            }
+            return segments.get(segment);
+        }
+
+        /**
+         * Read bytes, located in one segment
+         */
+        byte[] read(long position, int length) {
+            byte[] result = new byte[length];
+            ByteBuffer reader = getSegment(position).duplicate();
+            reader.position((int) (position % segmentSize));
+            reader.get(result);
+            return result;
+        }
+
+        /**
+         * Append a record
+         *
+         * @return the record position
+         */
+        long append(byte type, byte[] keyBytes, byte[] value, int recordSize) throws IOException {
+            long position = reserve(recordSize);
+            ByteBuffer writer = getSegment(position).duplicate();
+            int offset = (int) (position % segmentSize);
+            writer.position(offset + HEADER_SIZE);
+            writer.putInt(keyBytes.length);
+            writer.put(keyBytes);
+            writer.put(value);
+            writer.put(offset + 4, type);
+
+            // Record length is written last : a partially written record is ignored on restart
+            writer.putInt(offset, recordSize);
+            writePosition = position + recordSize;
+            return position;
+        }
+
+        /**
+         * Append an already encoded record
+         *
+         * @return the record position
+         */
+        long appendRaw(byte[] record) throws IOException {
+            long position = reserve(record.length);
+            ByteBuffer writer = getSegment(position).duplicate();
+            writer.position((int) (position % segmentSize));
+            writer.put(record);
+            writePosition = position + record.length;
+            return position;
+        }
+
+        /**
+         * Find room for a record, going to the next segment (and mapping it) if needed
+         *
+         * @return the record position
+         */
+        private long reserve(int recordSize) throws IOException {
+            long position = writePosition;
+            int offset = (int) (position % segmentSize);
+            if (offset + recordSize > segmentSize) {
+                // Not enough room in the current segment
+                if (segmentSize - offset >= 4) {
+                    ensureMapped(position + 4);
+                    getSegment(position).putInt(offset, SEGMENT_END);
+                }
+                skippedSize += segmentSize - offset;
+                position += segmentSize - offset;
+            }
+            ensureMapped(position + recordSize);
+            return position;
+        }
+
+        /**
+         * Map the log up to the argument size. A partial last segment is remapped with twice its size.
+         */
+        private void ensureMapped(long size) throws IOException {
+            FileChannel channel = randomAccessFile.getChannel();
+            while (getMappedSize() < size) {
+                int last = segments.size() - 1;
+                if ((last >= 0) && (segments.get(last).capacity() < segmentSize)) {
+                    long needed = size - (long) last * segmentSize;
+                    long capacity = Math.min(segmentSize, Math.max(needed, 2L * segments.get(last).capacity()));
+                    MappedByteBuffer previous = segments.get(last);
+                    segments.set(last, channel.map(FileChannel.MapMode.READ_WRITE, (long) last * segmentSize, capacity));
+                    unmap(previous);
+                } else {
+                    long needed = size - (long) segments.size() * segmentSize;
+                    long capacity = Math.min(segmentSize, needed);
+                    segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, capacity));
+                }
+            }
+        }
+
+        /**
+         * @return the mapped size
+         */
+        private long getMappedSize() {
+            int last = segments.size() - 1;
+            return (last < 0) ? 0 : (long) last * segmentSize + segments.get(last).capacity();
+        }
+
+        /**
+         * Force the log content to the storage device
+         */
+        void force() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        /**
+         * Release the mappings and close the file
+         */
+        void close() throws IOException {
+            for (MappedByteBuffer segment : segments) {
+                unmap(segment);
+            }
+            segments.clear();
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Position of a store record in the log
+     *
+     * @author bruno.marchesson
+     */
+    private static final class Record {
+        /**
+         * Record position
+         */
+        final long position;
+
+        /**
+         * Record size
+         */
+        final int size;
+
+        /**
+         * Key length (with its size prefix)
+         */
+        final int keyLength;
+
+        /**
+         * Value length
+         */
+        final int valueLength;
+
+        /**
+         * Constructor
+         */
+        Record(long position, int size, int keyLength, int valueLength) {
+            this.position = position;
+            this.size = size;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent container of all the proxy informations of an HTTP session, stored as a single session attribute. It
+ * tracks the entries changed since the last delta, so that replication layers can only send the modified entries.
+ * Deltas are numbered : the container version is the sequence of the last delta it includes, and older deltas are
+ * ignored when applied.
+ *
+ * @author bruno.marchesson
+ */
+public class ProxyInformationContainer implements Serializable {
+
+    private static final long serialVersionUID = -2917301985460218417L;
+
+    /**
+     * The proxy informations
+     */
+    private final ConcurrentHashMap<ProxyStoreKey, Map<String, Serializable>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Sequence of the last delta included in the container
+     */
+    private long version;
+
+    /**
+     * Version of the container when it was last flushed as a whole
+     */
+    private long flushedVersion;
+
+    /**
+     * Keys stored or removed since the last delta
+     */
+    private transient Set<ProxyStoreKey> dirtyKeys;
+
+    /**
+     * Unserialized and not yet updated with the deltas stored next to it ?
+     */
+    private transient volatile boolean restored;
+
+    /**
+     * Constructor
+     */
+    public ProxyInformationContainer() {
+        initTransientState();
+    }
+
+    /**
+     * @return the proxy informations associated with the key, or null
+     */
+    public Map<String, Serializable> get(ProxyStoreKey key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Store the proxy informations
+     */
+    public void put(ProxyStoreKey key, Map<String, Serializable> proxyInformation) {
+        if (proxyInformation == null) {
+            remove(key);
+            return;
+        }
+        entries.put(key, proxyInformation);
+        markDirty(key);
+    }
+
+    /**
+     * Remove the proxy informations of the key
+     */
+    public void remove(ProxyStoreKey key) {
+        if (entries.remove(key) != null) {
+            markDirty(key);
+        }
+    }
+
+    /**
+     * Remove the keys whose string form starts with the prefix
+     */
+    public void removeByPrefix(String prefix) {
+        for (ProxyStoreKey key : entries.keySet()) {
+            if (key.toString().startsWith(prefix)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the keys of the argument entity
+     */
+    public void removeEntity(Class<?> pojoClass, Serializable id) {
+        for (ProxyStoreKey key : entries.keySet()) {
+            if (key.isEntity(pojoClass, id)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the sequence of the last delta included in the container
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of deltas since the container was last flushed as a whole
+     */
+    public long getDeltaCount() {
+        return version - flushedVersion;
+    }
+
+    /**
+     * Mark the container as flushed as a whole
+     */
+    public void markFlushed() {
+        flushedVersion = version;
+    }
+
+    /**
+     * @return true if the container was unserialized and not updated with the deltas stored next to it yet
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * @param restored false once the deltas stored next to the container are applied
+     */
+    public void setRestored(boolean restored) {
+        this.restored = restored;
+    }
+
+    /**
+     * @return true if entries changed since the last delta
+     */
+    public boolean hasDelta() {
+        return dirtyKeys.isEmpty() == false;
+    }
+
+    /**
+     * Get the changes since the last delta, and reset dirty tracking
+     *
+     * @return the delta (stored and removed entries)
+     */
+    public synchronized Delta getDelta() {
+        Delta delta = new Delta(++version);
+        for (ProxyStoreKey key : dirtyKeys) {
+            dirtyKeys.remove(key);
+            Map<String, Serializable> proxyInformation = entries.get(key);
+            if (proxyInformation != null) {
+                delta.stored.put(key, proxyInformation);
+            } else {
+                delta.removed.add(key);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Apply the argument delta (from another node) to the container, unless it is already included
+     */
+    public synchronized void applyDelta(Delta delta) {
+        if (delta.sequence <= version) {
+            return;
+        }
+        version = delta.sequence;
+        entries.putAll(delta.stored);
+        for (ProxyStoreKey key : delta.removed) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Mark the key as changed
+     */
+    private void markDirty(ProxyStoreKey key) {
+        dirtyKeys.add(key);
+    }
+
+    /**
+     * Initialize dirty tracking state
+     */
+    private void initTransientState() {
+        dirtyKeys = Collections.newSetFromMap(new ConcurrentHashMap<ProxyStoreKey, Boolean>());
+    }
+
+    /**
+     * Unserialization : no pending changes, deltas to apply
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        initTransientState();
+        restored = true;
+    }
+
+    /**
+     * Changes of a container
+     *
+     * @author bruno.marchesson
+     */
+    public static class Delta implements Serializable {
+
+        private static final long serialVersionUID = 6870327510412604374L;
+
+        /**
+         * Delta sequence
+         */
+        private final long sequence;
+
+        /**
+         * Stored entries
+         */
+        private final HashMap<ProxyStoreKey, Map<String, Serializable>> stored = new HashMap<>();
+
+        /**
+         * Removed keys
+         */
+        private final HashSet<ProxyStoreKey> removed = new HashSet<>();
+
+        /**
+         * Constructor
+         */
+        Delta(long sequence) {
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return the delta sequence
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return the stored entries
+         */
+        public Map<ProxyStoreKey, Map<String, Serializable>> getStored() {
+            return stored;
+        }
+
+        /**
+         * @return the removed keys
+         */
+        public Set<ProxyStoreKey> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return true if the delta is empty
+         */
+        public boolean isEmpty() {
+            return stored.isEmpty() && removed.isEmpty();
+        }
+    }
+}
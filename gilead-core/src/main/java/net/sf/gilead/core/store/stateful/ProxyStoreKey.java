@@ -0,0 +1,132 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Serializable;
+
+/**
+ * Composite key of stateful proxy stores : persistent class, id and property name. The hash code is computed once, and
+ * the string form (className@id.property, as generated by UniqueNameGenerator) is only built when needed.
+ *
+ * @author bruno.marchesson
+ */
+public final class ProxyStoreKey implements Serializable {
+
+    private static final long serialVersionUID = 3542468726406725631L;
+
+    /**
+     * The (unenhanced) pojo class
+     */
+    private final Class<?> pojoClass;
+
+    /**
+     * The pojo id
+     */
+    private final Serializable id;
+
+    /**
+     * The (interned) property name
+     */
+    private final String property;
+
+    /**
+     * The cached hash code
+     */
+    private final int hash;
+
+    /**
+     * The string form, lazily computed
+     */
+    private transient String string;
+
+    /**
+     * Constructor
+     *
+     * @param pojoClass the (unenhanced) pojo class
+     * @param id the pojo id
+     * @param property the property name
+     */
+    public ProxyStoreKey(Class<?> pojoClass, Serializable id, String property) {
+        if ((pojoClass == null) || (id == null) || (property == null)) {
+            throw new IllegalArgumentException("Class, id and property are needed for proxy store key");
+        }
+        this.pojoClass = pojoClass;
+        this.id = id;
+        this.property = property.intern();
+        this.hash = 31 * (31 * pojoClass.getName().hashCode() + id.hashCode()) + this.property.hashCode();
+    }
+
+    /**
+     * @return the pojo class
+     */
+    public Class<?> getPojoClass() {
+        return pojoClass;
+    }
+
+    /**
+     * @return the pojo id
+     */
+    public Serializable getId() {
+        return id;
+    }
+
+    /**
+     * @return the property name
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @return true if the key belongs to the argument entity (same class and id)
+     */
+    public boolean isEntity(Class<?> entityClass, Serializable entityId) {
+        return (pojoClass == entityClass) && id.equals(entityId);
+    }
+
+    /**
+     * Check a key string form (className@id.property) against an entity, when the key itself is not available. Property
+     * names have no dot, so the rest of the string after the entity prefix must not contain one.
+     *
+     * @return true if the key string form belongs to the argument entity
+     */
+    static boolean isEntityName(String name, Class<?> entityClass, Serializable entityId) {
+        String prefix = UniqueNameGenerator.generateUniqueName(entityId, entityClass) + '.';
+        return name.startsWith(prefix) && (name.indexOf('.', prefix.length()) < 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other instanceof ProxyStoreKey == false) {
+            return false;
+        }
+        ProxyStoreKey key = (ProxyStoreKey) other;
+        return (hash == key.hash) && (pojoClass == key.pojoClass) && (property == key.property) && id.equals(key.id);
+    }
+
+    /**
+     * Re-intern the property name (and recompute hash) after unserialization
+     */
+    private Object readResolve() {
+        return new ProxyStoreKey(pojoClass, id, property);
+    }
+
+    /**
+     * @return the string form of the key : className@id.property
+     */
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            result = UniqueNameGenerator.generateUniqueName(id, pojoClass) + '.' + property;
+            string = result;
+        }
+        return result;
+    }
+}
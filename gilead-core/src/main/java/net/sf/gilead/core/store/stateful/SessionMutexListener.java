@@ -0,0 +1,50 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Serializable;
+
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * Session listener storing a mutex in each new HTTP session. The session object given to a request can be a per
+ * request facade, so it cannot be used to synchronize concurrent requests of the same session. To be declared in
+ * web.xml when the bulk mode of {@link HttpSessionProxyStore} is used.
+ *
+ * @author bruno.marchesson
+ */
+public class SessionMutexListener implements HttpSessionListener {
+
+    /**
+     * Session attribute name of the mutex
+     */
+    public static final String MUTEX_ATTRIBUTE = SessionMutexListener.class.getName() + ".MUTEX";
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        event.getSession().setAttribute(MUTEX_ATTRIBUTE, new Mutex());
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        event.getSession().removeAttribute(MUTEX_ATTRIBUTE);
+    }
+
+    /**
+     * @return the mutex of the session, or the session itself if the listener is not declared
+     */
+    public static Object getSessionMutex(HttpSession session) {
+        Object mutex = session.getAttribute(MUTEX_ATTRIBUTE);
+        return (mutex != null) ? mutex : session;
+    }
+
+    /**
+     * Serializable mutex, so that it survives session replication and persistence
+     *
+     * @author bruno.marchesson
+     */
+    private static class Mutex implements Serializable {
+
+        private static final long serialVersionUID = 4287326592183641522L;
+    }
+}
@@ -1,12 +1,11 @@
 package net.sf.gilead.core.store.stateful;
 
 import java.io.Serializable;
-import java.util.Stack;
 
+import net.sf.gilead.core.CloneContext;
+import net.sf.gilead.core.PersistenceStatus;
 import net.sf.gilead.core.PersistenceUtil;
-import net.sf.gilead.core.beanlib.merge.BeanlibCache;
 import net.sf.gilead.exception.ComponentTypeException;
-import net.sf.gilead.exception.TransientObjectException;
 
 /**
  * Static class for unique name generation
@@ -55,24 +54,40 @@ public class UniqueNameGenerator {
      * @return
      */
     public static Serializable getUniqueId(PersistenceUtil persistenceUtil, Object persistentBean) {
-        try {
-            return persistenceUtil.getId(persistentBean);
-        } catch (ComponentTypeException ex) {
-            // Component type : search parent in bean stack
-            Stack<Object> stack = BeanlibCache.getFromBeanStack();
-            for (int index = stack.size() - 1; index >= 0; index--) {
-                Object object = stack.get(index);
-                if (object != persistentBean) {
-                    try {
-                        return persistenceUtil.getId(object);
-                    } catch (TransientObjectException e) {
-                        // Go on next level
-                    }
+        return getUniqueId(persistenceUtil, persistentBean, CloneContext.current());
+    }
+
+    /**
+     * Gets a unique ID for the argument persistent bean, during the argument operation.
+     * 
+     * @param persistenceUtil the persistence util
+     * @param persistentBean the persistent bean
+     * @param context the operation context, holding the parents of component types (can be null)
+     * @return
+     */
+    public static Serializable getUniqueId(PersistenceUtil persistenceUtil, Object persistentBean, CloneContext context) {
+        PersistenceStatus status = persistenceUtil.getPersistenceStatus(persistentBean);
+        if (status.getState() != PersistenceStatus.State.COMPONENT) {
+            return status.getIdOrThrow(persistentBean);
+        }
+
+        // Component type : search parent in the bean stack of the operation
+        if (context == null) {
+            throw new ComponentTypeException(persistentBean);
+        }
+        for (Object object : context.getFromBeanStack()) {
+            if (object != persistentBean) {
+                PersistenceStatus parentStatus = persistenceUtil.getPersistenceStatus(object);
+                if (parentStatus.isPersistent()) {
+                    return parentStatus.getId();
+                } else if (parentStatus.getState() == PersistenceStatus.State.NOT_PERSISTENT) {
+                    return parentStatus.getIdOrThrow(object);
                 }
+                // Transient or component : go on next level
             }
-
-            // Cannot find parent ID : resend ComponentTypeException
-            throw ex;
         }
+
+        // Cannot find parent ID
+        throw new ComponentTypeException(persistentBean);
     }
 }
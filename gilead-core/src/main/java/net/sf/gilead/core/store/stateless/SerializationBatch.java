@@ -0,0 +1,290 @@
+package net.sf.gilead.core.store.stateless;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.sf.gilead.core.serialization.IProxySerialization;
+import net.sf.gilead.exception.ProxyStoreException;
+import net.sf.gilead.pojo.base.ILightEntity;
+
+/**
+ * Asynchronous proxy informations serialization of a request. Items are queued by the request thread and serialized
+ * by chunks on an executor : one chunk at a time in sequential mode, or all the chunks concurrently in parallel mode.
+ * The request thread waits for completion without polling, then attaches the serialized informations to the light
+ * entities itself (so entities are never updated concurrently). A failed item fails the whole batch, since a light
+ * entity without its proxy informations would be wrongly merged.
+ *
+ * @author bruno.marchesson
+ */
+public class SerializationBatch {
+
+    /**
+     * Serialization chunk size
+     */
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * Serializer for proxy informations
+     */
+    private final IProxySerialization proxySerializer;
+
+    /**
+     * The executor running serialization
+     */
+    private final Executor executor;
+
+    /**
+     * Are chunks serialized concurrently ?
+     */
+    private final boolean parallel;
+
+    /**
+     * All the items of the request, in storage order (request thread only)
+     */
+    private final List<SerializationItem> items = new ArrayList<>();
+
+    /**
+     * The chunk being filled (request thread only)
+     */
+    private List<SerializationItem> currentChunk = new ArrayList<>(CHUNK_SIZE);
+
+    /**
+     * Chunks waiting for the drain task (sequential mode)
+     */
+    private final Queue<List<SerializationItem>> chunkQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Submitted but not yet serialized chunk count
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * Is a drain task scheduled or running ? (sequential mode)
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Completion lock
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Completion condition
+     */
+    private final Condition finished = lock.newCondition();
+
+    /**
+     * The drain task (sequential mode)
+     */
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param proxySerializer the proxy serializer (can be null)
+     * @param executor the executor running serialization
+     * @param parallel true to serialize chunks concurrently
+     */
+    public SerializationBatch(IProxySerialization proxySerializer, Executor executor, boolean parallel) {
+        this.proxySerializer = proxySerializer;
+        this.executor = executor;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Add serialization item
+     */
+    public void serialize(ILightEntity entity, String propertyName, Map<String, Serializable> proxyInfo) {
+        SerializationItem item = new SerializationItem();
+
+        item.entity = entity;
+        item.propertyName = propertyName;
+        item.proxyInfo = proxyInfo;
+        items.add(item);
+
+        if ((proxyInfo == null) || (proxySerializer == null)) {
+            // No serialization needed
+            item.serialized = proxyInfo;
+            return;
+        }
+
+        currentChunk.add(item);
+        if (currentChunk.size() >= CHUNK_SIZE) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Indicates if serialization is finished or not
+     */
+    public boolean isSerializationFinished() {
+        return (pendingCount.get() == 0) && currentChunk.isEmpty();
+    }
+
+    /**
+     * Wait for the end of serialization of all the queued items, and store the results in the light entities
+     *
+     * @exception ProxyStoreException if the thread is interrupted while waiting, or if an item serialization failed :
+     *                the light entities are incomplete
+     */
+    public void awaitCompletion() {
+        submitChunk();
+
+        lock.lock();
+        try {
+            while (pendingCount.get() > 0) {
+                finished.await();
+            }
+        } catch (InterruptedException e) {
+            // Keep interruption status
+            Thread.currentThread().interrupt();
+            throw new ProxyStoreException("Interrupted while waiting for proxy informations serialization", e);
+        } finally {
+            lock.unlock();
+        }
+
+        // Report failures (the first one as cause, the others as suppressed)
+        ProxyStoreException failure = null;
+        for (SerializationItem item : items) {
+            if (item.failure != null) {
+                if (failure == null) {
+                    failure = new ProxyStoreException("Cannot serialize proxy informations of property " + item.propertyName, item.failure);
+                } else {
+                    failure.addSuppressed(item.failure);
+                }
+            }
+        }
+        if (failure != null) {
+            items.clear();
+            throw failure;
+        }
+
+        // Attach results, on the request thread
+        for (SerializationItem item : items) {
+            item.entity.addProxyInformation(item.propertyName, item.serialized);
+        }
+        items.clear();
+    }
+
+    /**
+     * Submit the current chunk for serialization
+     */
+    private void submitChunk() {
+        if (currentChunk.isEmpty()) {
+            return;
+        }
+        final List<SerializationItem> chunk = currentChunk;
+        currentChunk = new ArrayList<>(CHUNK_SIZE);
+        pendingCount.incrementAndGet();
+
+        if (parallel) {
+            Runnable chunkTask = new Runnable() {
+                @Override
+                public void run() {
+                    process(chunk);
+                }
+            };
+            try {
+                executor.execute(chunkTask);
+            } catch (RejectedExecutionException ex) {
+                // Executor shutdown or saturated : serialize on caller thread
+                process(chunk);
+            }
+        } else {
+            chunkQueue.add(chunk);
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Schedule the drain task if not already running
+     */
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException ex) {
+                // Executor shutdown or saturated : serialize on caller thread
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Serialize all the queued chunks
+     */
+    private void drain() {
+        do {
+            List<SerializationItem> chunk;
+            while ((chunk = chunkQueue.poll()) != null) {
+                process(chunk);
+            }
+            draining.set(false);
+
+            // Chunks queued after the last poll but before the flag reset
+        } while ((chunkQueue.isEmpty() == false) && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Serialize a chunk of items
+     */
+    private void process(List<SerializationItem> chunk) {
+        for (SerializationItem item : chunk) {
+            try {
+                item.serialized = proxySerializer.serialize((Serializable) item.proxyInfo);
+            } catch (Throwable ex) {
+                // Reported by the request thread
+                item.failure = ex;
+            }
+        }
+
+        if (pendingCount.decrementAndGet() == 0) {
+            signalFinished();
+        }
+    }
+
+    /**
+     * Wake up the waiting request thread
+     */
+    private void signalFinished() {
+        lock.lock();
+        try {
+            finished.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Serialization item.
+     *
+     * @author bruno.marchesson
+     */
+    private static final class SerializationItem {
+
+        public ILightEntity entity;
+
+        public String propertyName;
+
+        public Map<String, Serializable> proxyInfo;
+
+        public Object serialized;
+
+        public Throwable failure;
+    }
+}
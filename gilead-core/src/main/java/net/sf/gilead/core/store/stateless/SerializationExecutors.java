@@ -0,0 +1,108 @@
+package net.sf.gilead.core.store.stateless;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factory for the executors running asynchronous proxy informations serialization. A single bounded executor is
+ * shared by all the stateless proxy stores by default.
+ *
+ * @author bruno.marchesson
+ */
+public final class SerializationExecutors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializationExecutors.class);
+
+    /**
+     * Maximum pending tasks of bounded executors (the caller runs the task when the queue is full)
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Thread name prefix
+     */
+    private static final String THREAD_NAME = "gilead-serialization-";
+
+    /**
+     * The shared executor, lazily created
+     */
+    private static volatile ExecutorService sharedExecutor;
+
+    /**
+     * Utility class
+     */
+    private SerializationExecutors() {}
+
+    /**
+     * @return the shared bounded executor (one daemon thread per available processor)
+     */
+    public static ExecutorService getSharedExecutor() {
+        ExecutorService executor = sharedExecutor;
+        if (executor == null) {
+            synchronized (SerializationExecutors.class) {
+                executor = sharedExecutor;
+                if (executor == null) {
+                    executor = newBoundedExecutor(Runtime.getRuntime().availableProcessors());
+                    sharedExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Create a bounded executor : fixed thread count, bounded task queue, and caller runs policy when the queue is full.
+     *
+     * @param threadCount the worker thread count
+     * @return the created executor
+     */
+    public static ExecutorService newBoundedExecutor(int threadCount) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new DaemonThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Create a virtual thread per task executor, when running on a JVM supporting virtual threads.
+     *
+     * @return the created executor, or a bounded executor if virtual threads are not available
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception ex) {
+            LOGGER.info("Virtual threads not available, using bounded executor instead.");
+            return newBoundedExecutor(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Daemon thread factory, so that serialization workers never prevent JVM shutdown
+     *
+     * @author bruno.marchesson
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        /**
+         * Thread counter
+         */
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package net.sf.gilead.core.store.stateless;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.core.CloneContext;
 import net.sf.gilead.core.serialization.IProxySerialization;
+import net.sf.gilead.core.serialization.SerializableId;
 import net.sf.gilead.core.store.ProxyStore;
 import net.sf.gilead.exception.ProxyStoreException;
 import net.sf.gilead.pojo.base.ILightEntity;
+import net.sf.gilead.pojo.gwt.ProxyInformationDictionary;
 
 /**
  * Stateless proxy store. The proxy informations is stored on the pojo, by implementing the ILightEntity interface.
@@ -21,6 +28,21 @@ public class StatelessProxyStore implements ProxyStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StatelessProxyStore.class);
 
+    /**
+     * Proxy informations key of the shared dictionary
+     */
+    private static final String DICTIONARY = "dictionary";
+
+    /**
+     * Proxy informations keys whose (String) values are replaced by dictionary references
+     */
+    private static final String[] DICTIONARY_KEYS = { "class", "role", "underlying" };
+
+    /**
+     * Proxy informations keys of serializable id lists, whose entity names are shared
+     */
+    private static final String[] ID_LIST_KEYS = { "idList", "valueList" };
+
     /**
      * Serializer for proxy informations
      */
@@ -32,9 +54,29 @@ public class StatelessProxyStore implements ProxyStore {
     private boolean _useSerializationThread;
 
     /**
-     * Separate serialization thread
+     * Serialize proxy informations of independent entities in parallel
+     */
+    private boolean _parallelSerialization;
+
+    /**
+     * Executor for asynchronous serialization (default executor if null)
      */
-    private ThreadLocal<SerializationThread> _serializationThread;
+    private Executor _serializationExecutor;
+
+    /**
+     * Operation context key of the asynchronous serialization batch
+     */
+    private final Object _serializationBatchKey = new Object();
+
+    /**
+     * Use a per response dictionary for repeated proxy informations strings
+     */
+    private boolean _useDictionary;
+
+    /**
+     * Operation context key of the response dictionary
+     */
+    private final Object _dictionaryKey = new Object();
 
     /**
      * @return the proxy serializer
@@ -45,8 +87,10 @@ public class StatelessProxyStore implements ProxyStore {
 
     /**
      * @param serializer the serializer to set
+     * @exception IllegalStateException if the dictionary is used and the serializer encodes to strings
      */
     public void setProxySerializer(IProxySerialization serializer) {
+        checkDictionaryMode(_useDictionary, _useSerializationThread || _parallelSerialization, serializer);
         _proxySerializer = serializer;
     }
 
@@ -61,20 +105,112 @@ public class StatelessProxyStore implements ProxyStore {
      * @param serializationThread the _useSerializationThread to set
      */
     public void setUseSerializationThread(boolean serializationThread) {
+        checkDictionaryMode(_useDictionary, serializationThread || _parallelSerialization, _proxySerializer);
         _useSerializationThread = serializationThread;
     }
 
+    /**
+     * @return true if proxy informations are serialized in parallel
+     */
+    public boolean getParallelSerialization() {
+        return _parallelSerialization;
+    }
+
+    /**
+     * Enable parallel serialization : the proxy informations of a clone are serialized by chunks, fanned out on a fork
+     * join pool (common pool by default), and attached to the light entities once all of them are finished.
+     *
+     * @param parallelSerialization the parallel serialization flag
+     */
+    public void setParallelSerialization(boolean parallelSerialization) {
+        checkDictionaryMode(_useDictionary, _useSerializationThread || parallelSerialization, _proxySerializer);
+        _parallelSerialization = parallelSerialization;
+    }
+
+    /**
+     * @return the executor used for asynchronous serialization
+     */
+    public Executor getSerializationExecutor() {
+        if (_serializationExecutor == null) {
+            if (_parallelSerialization) {
+                return ForkJoinPool.commonPool();
+            }
+            return SerializationExecutors.getSharedExecutor();
+        }
+        return _serializationExecutor;
+    }
+
+    /**
+     * Set the executor used for asynchronous serialization (for instance SerializationExecutors.newVirtualThreadExecutor()).
+     * The shared bounded executor (or the common fork join pool for parallel serialization) is used by default.
+     *
+     * @param executor the executor to set
+     */
+    public void setSerializationExecutor(Executor executor) {
+        _serializationExecutor = executor;
+    }
+
+    /**
+     * @return true if a per response dictionary is used for proxy informations
+     */
+    public boolean getUseDictionary() {
+        return _useDictionary;
+    }
+
+    /**
+     * Enable the per response dictionary : collection roles, class names and entity names are stored once in a shared
+     * dictionary, and replaced by integer references in proxy informations. It is only useful with reference
+     * preserving transports (GWT RPC, or no proxy serializer), since the dictionary is shared by all the entities of
+     * a response. It cannot be used with asynchronous or parallel serialization, that serialize each proxy
+     * informations map on its own while the shared dictionary is still filled.
+     *
+     * @param useDictionary the dictionary flag
+     * @exception IllegalStateException if asynchronous or parallel serialization is enabled, or if the proxy
+     *                serializer encodes to strings
+     */
+    public void setUseDictionary(boolean useDictionary) {
+        checkDictionaryMode(useDictionary, _useSerializationThread || _parallelSerialization, _proxySerializer);
+        _useDictionary = useDictionary;
+    }
+
+    /**
+     * Refuse the dictionary with asynchronous serialization, or with a string serializer : each proxy informations map
+     * would be encoded with its own copy of the whole dictionary, so the response would grow quadratically
+     */
+    private static void checkDictionaryMode(boolean useDictionary, boolean asynchronous, IProxySerialization serializer) {
+        if (useDictionary == false) {
+            return;
+        }
+        if (asynchronous) {
+            throw new IllegalStateException("Proxy informations dictionary cannot be used with asynchronous or parallel serialization");
+        }
+        if ((serializer != null) && (serializer.serialize(new HashMap<String, Serializable>()) instanceof String)) {
+            throw new IllegalStateException("Proxy informations dictionary cannot be used with the string serializer "
+                    + serializer.getClass().getName());
+        }
+    }
+
     /**
      * Constructor
      */
     public StatelessProxyStore() {
         // default value
-        _serializationThread = new ThreadLocal<>();
         _useSerializationThread = false;
+        _useDictionary = false;
     }
 
     @Override
     public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {
+        storeProxyInformations(CloneContext.current(), cloneBean, persistentBean, property, proxyInformations);
+    }
+
+    /**
+     * Store the proxy informations in the clone bean. The dictionary and the asynchronous serialization batch are kept
+     * in the operation context : without context, proxy informations are serialized synchronously, without dictionary.
+     */
+    @Override
+    public void storeProxyInformations(CloneContext context, Object cloneBean, Object persistentBean, String property,
+            Map<String, Serializable> proxyInformations) {
 
         // ILightEntity checking
         if (!(cloneBean instanceof ILightEntity)) {
@@ -92,11 +228,16 @@ public class StatelessProxyStore implements ProxyStore {
             }
         }
 
+        // Replace repeated strings with dictionary references
+        if ((_useDictionary == true) && (proxyInformations != null) && (context != null)) {
+            encodeWithDictionary(proxyInformations, getDictionary(context));
+        }
+
         // Store information in the POJO
-        if (!_useSerializationThread) {
+        if (((!_useSerializationThread) && (!_parallelSerialization)) || (context == null)) {
             ((ILightEntity) cloneBean).addProxyInformation(property, convertMap(proxyInformations));
         } else {
-            getSerializationThread().serialize((ILightEntity) cloneBean, property, proxyInformations);
+            getSerializationBatch(context).serialize((ILightEntity) cloneBean, property, proxyInformations);
         }
     }
 
@@ -117,6 +258,9 @@ public class StatelessProxyStore implements ProxyStore {
         }
 
         Map<String, Serializable> proxyInformations = convertToSerializable(((ILightEntity) pojo).getProxyInformation(property));
+        if (proxyInformations != null) {
+            decodeWithDictionary(proxyInformations);
+        }
 
         // Add initialization information
         boolean initialized = ((ILightEntity) pojo).isInitialized(property);
@@ -132,20 +276,26 @@ public class StatelessProxyStore implements ProxyStore {
      */
     @Override
     public void cleanUp() {
-        if ((_useSerializationThread == true) && (_serializationThread.get() != null)) {
-            LOGGER.debug("Cleaning up serialization thread");
-            SerializationThread thread = getSerializationThread();
+        CloneContext context = CloneContext.current();
+        if (context != null) {
+            cleanUp(context);
+        }
+    }
+
+    /**
+     * Wait for the end of the asynchronous serialization of the operation
+     */
+    @Override
+    public void cleanUp(CloneContext context) {
+        // The dictionary is per response
+        context.removeAttribute(_dictionaryKey);
+
+        SerializationBatch batch = (SerializationBatch) context.removeAttribute(_serializationBatchKey);
+        if (batch != null) {
+            LOGGER.debug("Cleaning up serialization batch");
 
             // Wait for end of serialization
-            while (!thread.isSerializationFinished()) {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    // does not matter
-                }
-            }
-            thread.setRunning(false);
-            _serializationThread.set(null);
+            batch.awaitCompletion();
         }
     }
 
@@ -187,17 +337,70 @@ public class StatelessProxyStore implements ProxyStore {
     }
 
     /**
-     * @return the serialization thread.
+     * @return the dictionary of the argument operation
+     */
+    protected ProxyInformationDictionary getDictionary(CloneContext context) {
+        ProxyInformationDictionary dictionary = (ProxyInformationDictionary) context.getAttribute(_dictionaryKey);
+        if (dictionary == null) {
+            dictionary = new ProxyInformationDictionary();
+            context.setAttribute(_dictionaryKey, dictionary);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Replace the repeated strings of the argument proxy informations with references in the argument response
+     * dictionary
+     */
+    protected void encodeWithDictionary(Map<String, Serializable> proxyInformations, ProxyInformationDictionary dictionary) {
+        for (String key : DICTIONARY_KEYS) {
+            Serializable value = proxyInformations.get(key);
+            if (value instanceof String) {
+                proxyInformations.put(key, dictionary.getReference((String) value));
+            }
+        }
+
+        // Share entity names of serializable ids
+        for (String key : ID_LIST_KEYS) {
+            Serializable idList = proxyInformations.get(key);
+            if (idList instanceof Collection<?>) {
+                for (Object item : (Collection<?>) idList) {
+                    if (item instanceof SerializableId) {
+                        SerializableId sid = (SerializableId) item;
+                        sid.setEntityName(dictionary.intern(sid.getEntityName()));
+                    }
+                }
+            }
+        }
+
+        proxyInformations.put(DICTIONARY, dictionary);
+    }
+
+    /**
+     * Replace the dictionary references of the argument proxy informations with their string values
+     */
+    protected void decodeWithDictionary(Map<String, Serializable> proxyInformations) {
+        Serializable dictionary = proxyInformations.remove(DICTIONARY);
+        if (dictionary instanceof ProxyInformationDictionary) {
+            for (String key : DICTIONARY_KEYS) {
+                Serializable value = proxyInformations.get(key);
+                if (value instanceof Integer) {
+                    proxyInformations.put(key, ((ProxyInformationDictionary) dictionary).getValue(((Integer) value).intValue()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the serialization batch of the argument operation.
      */
-    protected SerializationThread getSerializationThread() {
-        SerializationThread thread = _serializationThread.get();
-        if (thread == null) {
-            thread = new SerializationThread();
-            thread.setProxySerializer(_proxySerializer);
-            new Thread(thread).start();
-            _serializationThread.set(thread);
+    protected SerializationBatch getSerializationBatch(CloneContext context) {
+        SerializationBatch batch = (SerializationBatch) context.getAttribute(_serializationBatchKey);
+        if (batch == null) {
+            batch = new SerializationBatch(_proxySerializer, getSerializationExecutor(), _parallelSerialization);
+            context.setAttribute(_serializationBatchKey, batch);
         }
 
-        return thread;
+        return batch;
     }
 }
@@ -28,7 +28,7 @@ public class ProxyStoreException extends RuntimeException {
      * Base constructor
      */
     public ProxyStoreException(String message) {
-        this(message, null);
+        this(message, (Object) null);
     }
 
     /**
@@ -38,4 +38,11 @@ public class ProxyStoreException extends RuntimeException {
         super(message);
         this.object = object;
     }
+
+    /**
+     * Constructor with cause
+     */
+    public ProxyStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
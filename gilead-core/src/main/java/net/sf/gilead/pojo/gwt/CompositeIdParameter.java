@@ -0,0 +1,59 @@
+package net.sf.gilead.pojo.gwt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GWT serializable version of an embedded composite id : the id class name and its field values, in declaration order.
+ *
+ * @author bruno.marchesson
+ */
+public class CompositeIdParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297499L;
+
+    /**
+     * The composite id class name
+     */
+    private String className;
+
+    /**
+     * The field values
+     */
+    private ArrayList<IGwtSerializableParameter> values;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public CompositeIdParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public CompositeIdParameter(String className, ArrayList<IGwtSerializableParameter> values) {
+        this.className = className;
+        this.values = values;
+    }
+
+    /**
+     * @return the composite id class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the field values
+     */
+    public List<IGwtSerializableParameter> getValues() {
+        return values;
+    }
+
+    /**
+     * @return the field values
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return values;
+    }
+}
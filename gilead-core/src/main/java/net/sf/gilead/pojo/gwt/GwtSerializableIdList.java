@@ -0,0 +1,57 @@
+package net.sf.gilead.pojo.gwt;
+
+/**
+ * GWT serializable version of a list of SerializableId sharing the same entity name, with Long ids : only the entity
+ * name and a primitive array of ids are sent.
+ *
+ * @author bruno.marchesson
+ */
+public class GwtSerializableIdList implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = -1283640218706364418L;
+
+    /**
+     * The associated entity name
+     */
+    protected String entityName;
+
+    /**
+     * The ids
+     */
+    protected long[] ids;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public GwtSerializableIdList() {}
+
+    /**
+     * Constructor.
+     */
+    public GwtSerializableIdList(String entityName, long[] ids) {
+        this.entityName = entityName;
+        this.ids = ids;
+    }
+
+    /**
+     * @return the entityName
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * @return the ids
+     */
+    public long[] getIds() {
+        return ids;
+    }
+
+    /**
+     * @return the ids
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return ids;
+    }
+}
@@ -0,0 +1,93 @@
+package net.sf.gilead.pojo.gwt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary of the strings repeated in proxy informations (collection roles, persistent collection class names,
+ * entity names). A single dictionary instance is shared by all the proxy informations of a response, which only
+ * contain integer references to its entries : with reference preserving transports (GWT RPC, unserialized maps), it is
+ * sent only once.
+ *
+ * @author bruno.marchesson
+ */
+public class ProxyInformationDictionary implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = -5318470364627318837L;
+
+    /**
+     * The dictionary entries
+     */
+    private ArrayList<String> entries = new ArrayList<String>();
+
+    /**
+     * Reference index, by entry (server side only)
+     */
+    private transient Map<String, Integer> references;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public ProxyInformationDictionary() {}
+
+    /**
+     * Get (and add if needed) the reference of the argument string
+     *
+     * @param value the string value
+     * @return the reference in dictionary
+     */
+    public synchronized Integer getReference(String value) {
+        if (references == null) {
+            // Rebuild index (after serialization)
+            references = new HashMap<String, Integer>();
+            for (int index = 0; index < entries.size(); index++) {
+                references.put(entries.get(index), Integer.valueOf(index));
+            }
+        }
+
+        Integer reference = references.get(value);
+        if (reference == null) {
+            reference = Integer.valueOf(entries.size());
+            entries.add(value);
+            references.put(value, reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Get the canonical dictionary instance of the argument string
+     *
+     * @param value the string value
+     * @return the dictionary string (null for null value)
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        return getValue(getReference(value).intValue());
+    }
+
+    /**
+     * @param reference the reference
+     * @return the string associated with the reference
+     */
+    public synchronized String getValue(int reference) {
+        return entries.get(reference);
+    }
+
+    /**
+     * @return the dictionary entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the dictionary itself, since it must be kept shared
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this;
+    }
+}
@@ -0,0 +1,47 @@
+package net.sf.gilead.pojo.gwt.basic;
+
+import java.math.BigDecimal;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * BigDecimal parameter.
+ *
+ * @author bruno.marchesson
+ */
+public class BigDecimalParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297494L;
+
+    /**
+     * The underlying value.
+     */
+    private BigDecimal value;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public BigDecimalParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public BigDecimalParameter(BigDecimal value) {
+        this.value = value;
+    }
+
+    /**
+     * Change value.
+     */
+    public void setUnderlyingValue(BigDecimal value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the underlying value
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this.value;
+    }
+}
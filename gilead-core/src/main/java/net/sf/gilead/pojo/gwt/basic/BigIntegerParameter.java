@@ -0,0 +1,47 @@
+package net.sf.gilead.pojo.gwt.basic;
+
+import java.math.BigInteger;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * BigInteger parameter.
+ *
+ * @author bruno.marchesson
+ */
+public class BigIntegerParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297495L;
+
+    /**
+     * The underlying value.
+     */
+    private BigInteger value;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public BigIntegerParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public BigIntegerParameter(BigInteger value) {
+        this.value = value;
+    }
+
+    /**
+     * Change value.
+     */
+    public void setUnderlyingValue(BigInteger value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the underlying value
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this.value;
+    }
+}
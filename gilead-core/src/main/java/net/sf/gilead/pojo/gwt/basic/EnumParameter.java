@@ -0,0 +1,59 @@
+package net.sf.gilead.pojo.gwt.basic;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * Enum parameter : the enum class name and the constant name.
+ *
+ * @author bruno.marchesson
+ */
+public class EnumParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297498L;
+
+    /**
+     * The enum class name.
+     */
+    private String enumClassName;
+
+    /**
+     * The constant name.
+     */
+    private String value;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public EnumParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public EnumParameter(String enumClassName, String value) {
+        this.enumClassName = enumClassName;
+        this.value = value;
+    }
+
+    /**
+     * @return the enum class name
+     */
+    public String getEnumClassName() {
+        return enumClassName;
+    }
+
+    /**
+     * Change value.
+     */
+    public void setUnderlyingValue(String enumClassName, String value) {
+        this.enumClassName = enumClassName;
+        this.value = value;
+    }
+
+    /**
+     * @return the constant name
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this.value;
+    }
+}
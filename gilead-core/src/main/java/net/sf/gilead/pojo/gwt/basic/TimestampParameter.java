@@ -0,0 +1,47 @@
+package net.sf.gilead.pojo.gwt.basic;
+
+import java.sql.Timestamp;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * Timestamp parameter.
+ *
+ * @author bruno.marchesson
+ */
+public class TimestampParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297496L;
+
+    /**
+     * The underlying value.
+     */
+    private Timestamp value;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public TimestampParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public TimestampParameter(Timestamp value) {
+        this.value = value;
+    }
+
+    /**
+     * Change value.
+     */
+    public void setUnderlyingValue(Timestamp value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the underlying value
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this.value;
+    }
+}
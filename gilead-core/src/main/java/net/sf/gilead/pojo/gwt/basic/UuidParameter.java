@@ -0,0 +1,68 @@
+package net.sf.gilead.pojo.gwt.basic;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * UUID parameter, sent as its two 64 bits halves. It does not use java.util.UUID, so that GWT clients do not need its
+ * emulation : the underlying value is the canonical string form, and the server converts it back to UUID.
+ *
+ * @author bruno.marchesson
+ */
+public class UuidParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297497L;
+
+    /**
+     * Most significant bits of the underlying value.
+     */
+    private long mostSignificantBits;
+
+    /**
+     * Least significant bits of the underlying value.
+     */
+    private long leastSignificantBits;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public UuidParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public UuidParameter(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    /**
+     * @return the most significant bits
+     */
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    /**
+     * @return the least significant bits
+     */
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    /**
+     * @return the canonical string form of the UUID
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return digits(mostSignificantBits >> 32, 8) + "-" + digits(mostSignificantBits >> 16, 4) + "-" + digits(mostSignificantBits, 4) + "-"
+                + digits(leastSignificantBits >> 48, 4) + "-" + digits(leastSignificantBits, 12);
+    }
+
+    /**
+     * @return the lowest hexadecimal digits of the value
+     */
+    private static String digits(long value, int digits) {
+        long high = 1L << (digits * 4);
+        return Long.toHexString(high | (value & (high - 1))).substring(1);
+    }
+}
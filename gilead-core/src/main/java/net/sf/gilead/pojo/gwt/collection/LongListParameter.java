@@ -0,0 +1,45 @@
+package net.sf.gilead.pojo.gwt.collection;
+
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+
+/**
+ * List of non null Long values, backed by a primitive array.
+ *
+ * @author bruno.marchesson
+ */
+public class LongListParameter implements IGwtSerializableParameter {
+
+    private static final long serialVersionUID = 2165631776081297491L;
+
+    /**
+     * The underlying value.
+     */
+    private long[] value;
+
+    /**
+     * Empty constructor (needed by GWT)
+     */
+    public LongListParameter() {}
+
+    /**
+     * Constructor.
+     */
+    public LongListParameter(long[] value) {
+        this.value = value;
+    }
+
+    /**
+     * Change value.
+     */
+    public void setUnderlyingValue(long[] value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the underlying value
+     */
+    @Override
+    public Object getUnderlyingValue() {
+        return this.value;
+    }
+}
@@ -10,6 +10,13 @@ import java.util.Collection;
  */
 public class CollectionHelper {
 
+    /**
+     * @return the hash map initial capacity needed to hold the argument entry count without rehash
+     */
+    public static int getMapCapacity(int size) {
+        return (size < 3) ? (size + 1) : (int) (size / 0.75f) + 1;
+    }
+
     /**
      * Indicates if the collection has been wrapped by Collections.unmodifiableCollection(...)
      *
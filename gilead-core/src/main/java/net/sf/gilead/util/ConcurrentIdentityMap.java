@@ -0,0 +1,69 @@
+package net.sf.gilead.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe map comparing keys by identity (==) instead of equals, as IdentityHashMap does.
+ *
+ * @author bruno.marchesson
+ */
+public class ConcurrentIdentityMap<K, V> {
+
+    /**
+     * The underlying map
+     */
+    private final ConcurrentHashMap<IdentityKey, V> map;
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public ConcurrentIdentityMap(int expectedSize) {
+        map = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    /**
+     * @return the value associated with the argument key, or null
+     */
+    public V get(K key) {
+        return map.get(new IdentityKey(key));
+    }
+
+    /**
+     * Associate the value with the key, unless the key is already associated
+     *
+     * @return the previous value, or null if the value was associated
+     */
+    public V putIfAbsent(K key, V value) {
+        return map.putIfAbsent(new IdentityKey(key), value);
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Key wrapper, using identity hash code and identity comparison
+     */
+    private static final class IdentityKey {
+        private final Object key;
+
+        IdentityKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof IdentityKey) && (((IdentityKey) obj).key == key);
+        }
+    }
+}
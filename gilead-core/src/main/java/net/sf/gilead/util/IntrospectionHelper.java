@@ -5,9 +5,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Singleton for instrospection search
@@ -16,8 +16,20 @@ import java.util.Map;
  */
 public class IntrospectionHelper {
 
-    private static Map<Class<?>, Map<String, Method>> _declaredMethodMap = Collections
-            .synchronizedMap(new HashMap<Class<?>, Map<String, Method>>());
+    /**
+     * Marker for cached failed method lookups
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * Declared methods cache, by class
+     */
+    private static final ClassValue<DeclaredMethods> _declaredMethods = new ClassValue<DeclaredMethods>() {
+        @Override
+        protected DeclaredMethods computeValue(Class<?> type) {
+            return new DeclaredMethods();
+        }
+    };
 
     /**
      * Recursively get declared fields
@@ -58,32 +70,44 @@ public class IntrospectionHelper {
     }
 
     /**
-     * Recursively find declared method with the argument name Important notice : does not check parameters types since
-     * it is used for searching getter and setter !
+     * Recursively find declared method with the argument name and parameter types (null or empty for no parameter).
+     * Results, including failed lookups, are cached.
+     *
+     * @throws NoSuchMethodException if the method is not found
      */
     public static Method getRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
-        // Map checking
-        Map<String, Method> methodMap;
-        Map<String, Method> temp = _declaredMethodMap.get(clazz);
-
-        if (temp == null) {
-            methodMap = Collections.synchronizedMap(new HashMap<String, Method>());
-            _declaredMethodMap.put(clazz, methodMap);
-        } else {
-            methodMap = Collections.synchronizedMap(temp);
+        Method method = findRecursiveDeclaredMethod(clazz, methodName, parameterTypes);
+        if (method == null) {
+            throw new NoSuchMethodException(methodName);
         }
+        return method;
+    }
 
-        Method method = methodMap.get(methodName);
-        if (method != null) {
-            // Already computed
-            return method;
+    /**
+     * Recursively find declared method with the argument name and parameter types (null or empty for no parameter).
+     * Results, including failed lookups, are cached.
+     *
+     * @return the method, or null if not found
+     */
+    public static Method findRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
+        DeclaredMethods declaredMethods = _declaredMethods.get(clazz);
+        Object method;
+        if ((parameterTypes == null) || (parameterTypes.length == 0)) {
+            // Getters : lookup by name only
+            method = declaredMethods.noParameterMethods.get(methodName);
+            if (method == null) {
+                method = searchRecursiveDeclaredMethod(clazz, methodName);
+                declaredMethods.noParameterMethods.putIfAbsent(methodName, method);
+            }
+        } else {
+            MethodSignature signature = new MethodSignature(methodName, parameterTypes);
+            method = declaredMethods.methods.get(signature);
+            if (method == null) {
+                method = searchRecursiveDeclaredMethod(clazz, methodName, parameterTypes);
+                declaredMethods.methods.putIfAbsent(signature, method);
+            }
         }
-
-        // Need to search
-        method = searchRecursiveDeclaredMethod(clazz, methodName, parameterTypes);
-        methodMap.put(methodName, method);
-
-        return method;
+        return (method == NOT_FOUND) ? null : (Method) method;
     }
 
     /**
@@ -187,9 +211,10 @@ public class IntrospectionHelper {
 
     /**
      * Recursively find declared method with the argument name
+     *
+     * @return the method, or NOT_FOUND
      */
-    private static Method searchRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes)
-            throws NoSuchMethodException {
+    private static Object searchRecursiveDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
         // Recursive get superclass declared fields
         while (clazz != null) {
             try {
@@ -201,6 +226,52 @@ public class IntrospectionHelper {
         }
 
         // Method not found
-        throw new NoSuchMethodException(methodName);
+        return NOT_FOUND;
+    }
+
+    /**
+     * Cached declared methods of a class
+     */
+    private static final class DeclaredMethods {
+        /**
+         * Methods without parameter, by name
+         */
+        final ConcurrentMap<String, Object> noParameterMethods = new ConcurrentHashMap<>();
+
+        /**
+         * Methods with parameters, by signature
+         */
+        final ConcurrentMap<MethodSignature, Object> methods = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Method name and parameter types
+     */
+    private static final class MethodSignature {
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        private final int hashCode;
+
+        MethodSignature(String name, Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes.clone();
+            this.hashCode = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof MethodSignature == false) {
+                return false;
+            }
+            MethodSignature other = (MethodSignature) obj;
+            return name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
     }
 }
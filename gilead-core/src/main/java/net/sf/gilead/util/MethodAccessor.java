@@ -0,0 +1,207 @@
+package net.sf.gilead.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cached direct accessor for getter and setter methods. The accessor relies on a method handle adapted to a generic
+ * signature, so that invocation does not need access checks nor argument arrays. It falls back on reflection when the
+ * method cannot be unreflected.
+ *
+ * @author bruno.marchesson
+ */
+public final class MethodAccessor {
+
+    /**
+     * Generic getter signature
+     */
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Generic setter signature
+     */
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * The accessors cache, per declaring class. A class value does not prevent the class loader from being collected.
+     */
+    private static final ClassValue<ConcurrentMap<Method, MethodAccessor>> ACCESSORS = new ClassValue<ConcurrentMap<Method, MethodAccessor>>() {
+        @Override
+        protected ConcurrentMap<Method, MethodAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The underlying method
+     */
+    private final Method method;
+
+    /**
+     * The adapted method handle (null if not available)
+     */
+    private final MethodHandle handle;
+
+    /**
+     * Constructor
+     */
+    private MethodAccessor(Method method) {
+        this.method = method;
+        this.handle = createHandle(method);
+    }
+
+    /**
+     * Get the (cached) accessor for the argument getter or setter
+     */
+    public static MethodAccessor get(Method method) {
+        ConcurrentMap<Method, MethodAccessor> accessors = ACCESSORS.get(method.getDeclaringClass());
+        MethodAccessor accessor = accessors.get(method);
+        if (accessor == null) {
+            accessor = new MethodAccessor(method);
+            MethodAccessor existing = accessors.putIfAbsent(method, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * @return the underlying method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invoke the underlying getter on the argument bean
+     *
+     * @throws IllegalArgumentException if the bean is not an instance of the declaring class
+     * @throws InvocationTargetException if the getter throws an exception or an error, as with reflection
+     */
+    public Object read(Object bean) throws IllegalAccessException, InvocationTargetException {
+        checkBean(bean);
+        if (handle == null) {
+            return method.invoke(bean, (Object[]) null);
+        }
+        try {
+            return handle.invokeExact(bean);
+        } catch (Throwable e) {
+            // Same behaviour than reflection (errors included)
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Invoke the underlying setter on the argument bean
+     *
+     * @throws IllegalArgumentException if the bean is not an instance of the declaring class, or if the value does not
+     *             match the parameter type
+     * @throws InvocationTargetException if the setter throws an exception or an error, as with reflection
+     */
+    public void write(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+        checkBean(bean);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 1) {
+            checkValue(parameterTypes[0], value);
+        }
+        if (handle == null) {
+            method.invoke(bean, value);
+            return;
+        }
+        try {
+            handle.invokeExact(bean, value);
+        } catch (Throwable e) {
+            // Same behaviour than reflection (errors included)
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Check the receiver before invocation, so that a cast or null failure is not attributed to the method itself. Done
+     * for both the method handle and the reflection paths, so that they report the same exceptions.
+     */
+    private void checkBean(Object bean) {
+        if ((Modifier.isStatic(method.getModifiers()) == false) && (method.getDeclaringClass().isInstance(bean) == false)) {
+            throw new IllegalArgumentException("Object is not an instance of " + method.getDeclaringClass().getName() + " : " + bean);
+        }
+    }
+
+    /**
+     * Check the setter value before invocation (same conversions than reflection)
+     */
+    private static void checkValue(Class<?> parameterType, Object value) {
+        boolean assignable;
+        if (parameterType.isPrimitive() == false) {
+            assignable = (value == null) || parameterType.isInstance(value);
+        } else if (value == null) {
+            assignable = false;
+        } else if (parameterType == boolean.class) {
+            assignable = (value instanceof Boolean);
+        } else if (parameterType == char.class) {
+            assignable = (value instanceof Character);
+        } else if (value instanceof Character) {
+            // char widens to int, long, float and double
+            assignable = (rank(parameterType) >= rank(int.class));
+        } else {
+            // Primitive widening : byte < short < int < long < float < double
+            int valueRank = rank(value.getClass());
+            assignable = (valueRank >= 0) && (valueRank <= rank(parameterType));
+        }
+        if (assignable == false) {
+            throw new IllegalArgumentException("Argument type mismatch : " + parameterType.getName() + " expected, got " + ((value == null) ? "null" : value.getClass().getName()));
+        }
+    }
+
+    /**
+     * @return the widening rank of the argument numeric type or wrapper, -1 for other types
+     */
+    private static int rank(Class<?> type) {
+        if ((type == byte.class) || (type == Byte.class)) {
+            return 0;
+        } else if ((type == short.class) || (type == Short.class)) {
+            return 1;
+        } else if ((type == int.class) || (type == Integer.class)) {
+            return 2;
+        } else if ((type == long.class) || (type == Long.class)) {
+            return 3;
+        } else if ((type == float.class) || (type == Float.class)) {
+            return 4;
+        } else if ((type == double.class) || (type == Double.class)) {
+            return 5;
+        }
+        return -1;
+    }
+
+    /**
+     * Create the method handle adapted to generic getter or setter signature
+     */
+    private static MethodHandle createHandle(Method method) {
+        MethodType type;
+        int parameterCount = method.getParameterTypes().length;
+        if (parameterCount == 0) {
+            type = READER_TYPE;
+        } else if (parameterCount == 1) {
+            type = WRITER_TYPE;
+        } else {
+            // Neither a getter nor a setter
+            return null;
+        }
+
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (RuntimeException e) {
+            // Inaccessible method (module restriction) : use reflection
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+}
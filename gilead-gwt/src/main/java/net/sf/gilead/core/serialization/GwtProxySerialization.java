@@ -3,17 +3,21 @@ package net.sf.gilead.core.serialization;
 import com.google.gwt.user.client.rpc.SerializationException;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.gilead.pojo.gwt.GwtSerializableId;
+import net.sf.gilead.pojo.gwt.GwtSerializableIdList;
 import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
 import net.sf.gilead.pojo.gwt.SerializedParameter;
 
 /**
  * GWT compatible map serialization. Each basic type is encapsulated as IRequestParameter. Non basic type is serialised
- * as string and send as this
+ * as string and send as this : the serializer dispatch table sends such types (and unsupported collections) straight
+ * to the string serializer.
  *
  * @author bruno.marchesson
  */
@@ -21,6 +25,16 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
 
     private static final transient Logger LOGGER = LoggerFactory.getLogger(GwtProxySerialization.class);
 
+    /**
+     * Serializable id converter
+     */
+    private static final Converter SERIALIZABLE_ID_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return ((GwtProxySerialization) serializer).convertSerializableIdToGwt((SerializableId) object);
+        }
+    };
+
     /**
      * String serializer
      */
@@ -80,35 +94,84 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
     }
 
     @Override
-    protected IGwtSerializableParameter convertBasicToGwt(Serializable object) throws SerializationException {
+    protected Converter createConverter(Class<?> type) {
         // SerializableId handling
-        if (object instanceof SerializableId) {
-            SerializableId serializableId = (SerializableId) object;
-            GwtSerializableId gwtSerializableId = new GwtSerializableId();
-            gwtSerializableId.setEntityName(serializableId.getEntityName());
-            gwtSerializableId.setStringValue(serializableId.getValue());
-
-            if (serializableId.getId() != null) {
-                gwtSerializableId.setId(convertBasicToGwt(serializableId.getId()));
-            }
-
-            return gwtSerializableId;
+        if (SerializableId.class.isAssignableFrom(type)) {
+            return SERIALIZABLE_ID_CONVERTER;
         }
+        return super.createConverter(type);
+    }
 
-        // Basic case
-        try {
-            return super.convertBasicToGwt(object);
-        } catch (SerializationException ex) {
+    @Override
+    protected IGwtSerializableParameter convertUnsupportedToGwt(Serializable object) {
+        if (LOGGER.isTraceEnabled()) {
             LOGGER.trace(object.getClass() + " not serializable => convert to string");
-            return new SerializedParameter((String) stringSerializer.serialize(object));
         }
+        return new SerializedParameter((String) stringSerializer.serialize(object));
     }
 
+    /**
+     * Lists of SerializableId sharing their entity name, with Long ids, are sent as a primitive id array
+     */
     @Override
-    protected Serializable convertBasicFromGwt(IGwtSerializableParameter parameter) {
+    protected IGwtSerializableParameter convertHomogeneousListToGwt(List<Serializable> objectList) {
+        int size = objectList.size();
+        if ((size == 0) || (objectList.get(0) instanceof SerializableId == false)) {
+            return super.convertHomogeneousListToGwt(objectList);
+        }
+
+        String entityName = ((SerializableId) objectList.get(0)).getEntityName();
+        if (entityName == null) {
+            return null;
+        }
+        long[] ids = new long[size];
+        for (int index = 0; index < size; index++) {
+            Serializable item = objectList.get(index);
+            if ((item == null) || (item.getClass() != SerializableId.class)) {
+                return null;
+            }
+            SerializableId serializableId = (SerializableId) item;
+            if ((serializableId.getId() == null) || (serializableId.getId().getClass() != Long.class) || (serializableId.getValue() != null)
+                    || (entityName.equals(serializableId.getEntityName()) == false)) {
+                return null;
+            }
+            ids[index] = ((Long) serializableId.getId()).longValue();
+        }
+        return new GwtSerializableIdList(entityName, ids);
+    }
+
+    /**
+     * Convert the serializable id
+     */
+    protected IGwtSerializableParameter convertSerializableIdToGwt(SerializableId serializableId) throws SerializationException {
+        GwtSerializableId gwtSerializableId = new GwtSerializableId();
+        gwtSerializableId.setEntityName(serializableId.getEntityName());
+        gwtSerializableId.setStringValue(serializableId.getValue());
+
+        if (serializableId.getId() != null) {
+            gwtSerializableId.setId(convertBasicToGwt(serializableId.getId()));
+        }
+
+        return gwtSerializableId;
+    }
+
+    @Override
+    protected Serializable convertBasicFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
         // Serialized case
         if (parameter instanceof SerializedParameter) {
             return stringSerializer.unserialize(parameter.getUnderlyingValue());
+        } else if (parameter instanceof GwtSerializableIdList) {
+            // Re-create serializable Id list
+            GwtSerializableIdList gwtIdList = (GwtSerializableIdList) parameter;
+            long[] ids = gwtIdList.getIds();
+            ArrayList<SerializableId> idList = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                SerializableId serializableId = new SerializableId();
+                serializableId.setEntityName(gwtIdList.getEntityName());
+                serializableId.setId(Long.valueOf(id));
+                idList.add(serializableId);
+            }
+            return idList;
         } else if (parameter instanceof GwtSerializableId) {
             // Re-create serializable Id
             GwtSerializableId gwtSerializableId = (GwtSerializableId) parameter;
@@ -125,16 +188,6 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
         }
     }
 
-    @Override
-    protected IGwtSerializableParameter convertListToGwt(Serializable object) throws SerializationException {
-        try {
-            return super.convertListToGwt(object);
-        } catch (SerializationException ex) {
-            LOGGER.trace(object.getClass() + " not serializable => convert to string");
-            return new SerializedParameter((String) stringSerializer.serialize(object));
-        }
-    }
-
     @Override
     protected Serializable convertListFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
         if (parameter instanceof SerializedParameter) {
@@ -144,16 +197,6 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
         }
     }
 
-    @Override
-    protected IGwtSerializableParameter convertSetToGwt(Serializable object) throws SerializationException {
-        try {
-            return super.convertSetToGwt(object);
-        } catch (SerializationException ex) {
-            LOGGER.trace(object.getClass() + " not serializable => convert to string");
-            return new SerializedParameter((String) stringSerializer.serialize(object));
-        }
-    }
-
     @Override
     protected Serializable convertSetFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
         if (parameter instanceof SerializedParameter) {
@@ -163,16 +206,6 @@ public class GwtProxySerialization extends GwtSerializer implements IProxySerial
         }
     }
 
-    @Override
-    protected IGwtSerializableParameter convertMapToGwt(Serializable object) throws SerializationException {
-        try {
-            return super.convertMapToGwt(object);
-        } catch (SerializationException ex) {
-            LOGGER.trace(object.getClass() + " not serializable => convert to string");
-            return new SerializedParameter((String) stringSerializer.serialize(object));
-        }
-    }
-
     @Override
     protected Serializable convertMapFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
         if (parameter instanceof SerializedParameter) {
@@ -3,6 +3,13 @@ package net.sf.gilead.core.serialization;
 import com.google.gwt.user.client.rpc.SerializationException;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -16,28 +23,42 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.gilead.pojo.gwt.CompositeIdParameter;
 import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+import net.sf.gilead.pojo.gwt.basic.BigDecimalParameter;
+import net.sf.gilead.pojo.gwt.basic.BigIntegerParameter;
 import net.sf.gilead.pojo.gwt.basic.BooleanParameter;
 import net.sf.gilead.pojo.gwt.basic.ByteParameter;
 import net.sf.gilead.pojo.gwt.basic.CharacterParameter;
 import net.sf.gilead.pojo.gwt.basic.DateParameter;
 import net.sf.gilead.pojo.gwt.basic.DoubleParameter;
+import net.sf.gilead.pojo.gwt.basic.EnumParameter;
 import net.sf.gilead.pojo.gwt.basic.FloatParameter;
 import net.sf.gilead.pojo.gwt.basic.IntegerParameter;
 import net.sf.gilead.pojo.gwt.basic.LongParameter;
 import net.sf.gilead.pojo.gwt.basic.ShortParameter;
 import net.sf.gilead.pojo.gwt.basic.StringParameter;
+import net.sf.gilead.pojo.gwt.basic.TimestampParameter;
+import net.sf.gilead.pojo.gwt.basic.UuidParameter;
 import net.sf.gilead.pojo.gwt.collection.ListParameter;
+import net.sf.gilead.pojo.gwt.collection.LongListParameter;
 import net.sf.gilead.pojo.gwt.collection.MapParameter;
 import net.sf.gilead.pojo.gwt.collection.SetParameter;
+import net.sf.gilead.util.CollectionHelper;
 
 /**
  * GWT compatible serialization. Since Object class is not allowed, we replace it with a marker interface and
- * encapsulates each basic supported types and collections in an implementation of the interface.
+ * encapsulates each basic supported types and collections in an implementation of the interface. The converter of
+ * each class is computed once by {@link #createConverter(Class)}, and kept in a dispatch table. Converters are
+ * stateless and receive the serializer as parameter, so that the table does not retain the serializer from classes
+ * of other class loaders.
  *
  * @author bruno.marchesson
  */
@@ -46,7 +67,88 @@ public class GwtSerializer {
     private static final transient Logger LOGGER = LoggerFactory.getLogger(GwtSerializer.class);
 
     /**
-     * Converts a serializable type to GWT supported encapsulation.
+     * Conversion of a value to its GWT encapsulation
+     *
+     * @author bruno.marchesson
+     */
+    protected interface Converter {
+        /**
+         * Convert the argument value (of the converter class)
+         */
+        IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException;
+    }
+
+    /**
+     * Converter dispatch table, by class
+     */
+    private final ConcurrentMap<Class<?>, Converter> converters = new ConcurrentHashMap<>();
+
+    /**
+     * Composite id fields, by class
+     */
+    private static final ClassValue<Field[]> COMPOSITE_ID_FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            collectFields(type, fields);
+            return fields.toArray(new Field[fields.size()]);
+        }
+    };
+
+    /**
+     * List converter
+     */
+    private static final Converter LIST_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return serializer.convertListToGwt(object);
+        }
+    };
+
+    /**
+     * Set converter
+     */
+    private static final Converter SET_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return serializer.convertSetToGwt(object);
+        }
+    };
+
+    /**
+     * Map converter
+     */
+    private static final Converter MAP_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return serializer.convertMapToGwt(object);
+        }
+    };
+
+    /**
+     * Composite id converter
+     */
+    private static final Converter COMPOSITE_ID_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return serializer.convertCompositeIdToGwt(object);
+        }
+    };
+
+    /**
+     * Unsupported type converter
+     */
+    private static final Converter UNSUPPORTED_CONVERTER = new Converter() {
+        @Override
+        public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) throws SerializationException {
+            return serializer.convertUnsupportedToGwt(object);
+        }
+    };
+
+    /**
+     * Converts a serializable type to GWT supported encapsulation. The conversion is dispatched to the converter of the
+     * value class, so overriding {@link #convertBasicToGwt(Serializable)} does not change it : override
+     * {@link #createConverter(Class)} instead.
      *
      * @throws SerializationException if the serializable argument is not supported by GWT JRE.
      */
@@ -56,19 +158,12 @@ public class GwtSerializer {
             return null;
         }
 
-        LOGGER.trace("Converting " + serializable + " to GWT supported type");
-
-        // Type checking
-        if (serializable instanceof List) {
-            return convertListToGwt(serializable);
-        } else if (serializable instanceof Set) {
-            return convertSetToGwt(serializable);
-        } else if (serializable instanceof Map) {
-            return convertMapToGwt(serializable);
-        } else {
-            // Basic type ?
-            return convertBasicToGwt(serializable);
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Converting " + serializable + " to GWT supported type");
         }
+
+        // Type dispatch
+        return getConverter(serializable.getClass()).convert(this, serializable);
     }
 
     /**
@@ -76,14 +171,16 @@ public class GwtSerializer {
      * @return
      */
     public Serializable convertFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
-        LOGGER.trace("Converting " + parameter + " from GWT back to serializable type");
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Converting " + parameter + " from GWT back to serializable type");
+        }
         // Precondition checking
         if (parameter == null) {
             return null;
         }
 
         // Type checking
-        if (parameter instanceof ListParameter) {
+        if ((parameter instanceof ListParameter) || (parameter instanceof LongListParameter)) {
             return convertListFromGwt(parameter);
         } else if (parameter instanceof SetParameter) {
             return convertSetFromGwt(parameter);
@@ -96,7 +193,8 @@ public class GwtSerializer {
     }
 
     /**
-     * Convert the argument object to GWT serialzable IRequestParameter
+     * Convert the argument object to GWT serialzable IRequestParameter. Same dispatch than
+     * {@link #convertToGwt(Serializable)}, kept for subclasses : it is not called by the collection conversions.
      */
     protected IGwtSerializableParameter convertBasicToGwt(Serializable object) throws SerializationException {
         // Precondition checking
@@ -104,42 +202,206 @@ public class GwtSerializer {
             return null;
         }
 
-        // Check basic parameters (most current first)
-        if (object instanceof IGwtSerializableParameter) {
-            return (IGwtSerializableParameter) object;
-        }
-        if (object instanceof Integer) {
-            return new IntegerParameter((Integer) object);
-        }
-        if (object instanceof String) {
-            return new StringParameter((String) object);
-        }
-        if (object instanceof Long) {
-            return new LongParameter((Long) object);
-        }
-        if (object instanceof Boolean) {
-            return new BooleanParameter((Boolean) object);
-        }
-        if (object instanceof Date) {
-            return new DateParameter((Date) object);
-        }
-        if (object instanceof Short) {
-            return new ShortParameter((Short) object);
-        }
-        if (object instanceof Character) {
-            return new CharacterParameter((Character) object);
-        }
-        if (object instanceof Double) {
-            return new DoubleParameter((Double) object);
+        return getConverter(object.getClass()).convert(this, object);
+    }
+
+    /**
+     * @return the (cached) converter of the argument class
+     */
+    protected final Converter getConverter(Class<?> type) {
+        Converter converter = converters.get(type);
+        if (converter == null) {
+            converter = createConverter(type);
+            Converter existing = converters.putIfAbsent(type, converter);
+            if (existing != null) {
+                converter = existing;
+            }
+        }
+        return converter;
+    }
+
+    /**
+     * Convert a value whose type is not supported
+     *
+     * @throws SerializationException always, unless overridden
+     */
+    protected IGwtSerializableParameter convertUnsupportedToGwt(Serializable object) throws SerializationException {
+        throw new SerializationException("Unsupported type : " + object.getClass());
+    }
+
+    /**
+     * Create the converter of the argument class (called once per class)
+     */
+    protected Converter createConverter(Class<?> type) {
+        // Collections
+        if (List.class.isAssignableFrom(type)) {
+            return isSupportedCollection(type, ArrayList.class, LinkedList.class) ? LIST_CONVERTER : UNSUPPORTED_CONVERTER;
+        } else if (Set.class.isAssignableFrom(type)) {
+            return isSupportedCollection(type, HashSet.class, TreeSet.class) ? SET_CONVERTER : UNSUPPORTED_CONVERTER;
+        } else if (Map.class.isAssignableFrom(type)) {
+            return isSupportedCollection(type, HashMap.class, TreeMap.class) ? MAP_CONVERTER : UNSUPPORTED_CONVERTER;
         }
-        if (object instanceof Float) {
-            return new FloatParameter((Float) object);
+
+        // Basic parameters
+        Converter converter = createBasicConverter(type);
+        if (converter != null) {
+            return converter;
         }
-        if (object instanceof Byte) {
-            return new ByteParameter((Byte) object);
+        if (isCompositeId(type)) {
+            return COMPOSITE_ID_CONVERTER;
         }
         // else : unsupported type
-        throw new SerializationException("Unsupported type : " + object.getClass());
+        return UNSUPPORTED_CONVERTER;
+    }
+
+    /**
+     * Create the converter of the argument basic type, or null if the type is not a basic one. Static so that the
+     * converters do not reference the serializer.
+     */
+    private static Converter createBasicConverter(Class<?> type) {
+        if (IGwtSerializableParameter.class.isAssignableFrom(type)) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return (IGwtSerializableParameter) object;
+                }
+            };
+        }
+        if (type == Integer.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new IntegerParameter((Integer) object);
+                }
+            };
+        }
+        if (type == String.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new StringParameter((String) object);
+                }
+            };
+        }
+        if (type == Long.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new LongParameter((Long) object);
+                }
+            };
+        }
+        if (type == Boolean.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new BooleanParameter((Boolean) object);
+                }
+            };
+        }
+        if (Timestamp.class.isAssignableFrom(type)) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new TimestampParameter((Timestamp) object);
+                }
+            };
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new DateParameter((Date) object);
+                }
+            };
+        }
+        if (type == Short.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new ShortParameter((Short) object);
+                }
+            };
+        }
+        if (type == Character.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new CharacterParameter((Character) object);
+                }
+            };
+        }
+        if (type == Double.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new DoubleParameter((Double) object);
+                }
+            };
+        }
+        if (type == Float.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new FloatParameter((Float) object);
+                }
+            };
+        }
+        if (type == Byte.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new ByteParameter((Byte) object);
+                }
+            };
+        }
+        if (type == BigDecimal.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new BigDecimalParameter((BigDecimal) object);
+                }
+            };
+        }
+        if (type == BigInteger.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    return new BigIntegerParameter((BigInteger) object);
+                }
+            };
+        }
+        if (type == UUID.class) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    UUID uuid = (UUID) object;
+                    return new UuidParameter(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                }
+            };
+        }
+        if (Enum.class.isAssignableFrom(type)) {
+            return new Converter() {
+                @Override
+                public IGwtSerializableParameter convert(GwtSerializer serializer, Serializable object) {
+                    Enum<?> constant = (Enum<?>) object;
+                    return new EnumParameter(constant.getDeclaringClass().getName(), constant.name());
+                }
+            };
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the collection type inherits from one of the GWT supported implementations
+     */
+    private static boolean isSupportedCollection(Class<?> type, Class<?>... supportedTypes) {
+        for (Class<?> supportedType : supportedTypes) {
+            if (supportedType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -148,11 +410,126 @@ public class GwtSerializer {
      * @param parameter
      * @return
      */
-    protected Serializable convertBasicFromGwt(IGwtSerializableParameter parameter) {
+    protected Serializable convertBasicFromGwt(IGwtSerializableParameter parameter) throws SerializationException {
+        if (parameter instanceof EnumParameter) {
+            return convertEnumFromGwt((EnumParameter) parameter);
+        } else if (parameter instanceof CompositeIdParameter) {
+            return convertCompositeIdFromGwt((CompositeIdParameter) parameter);
+        } else if (parameter instanceof UuidParameter) {
+            UuidParameter uuid = (UuidParameter) parameter;
+            return new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+
         // Just use the underlying value
         return (Serializable) parameter.getUnderlyingValue();
     }
 
+    /**
+     * Convert the embedded composite id to its field values
+     */
+    protected IGwtSerializableParameter convertCompositeIdToGwt(Serializable compositeId) throws SerializationException {
+        Field[] fields = COMPOSITE_ID_FIELDS.get(compositeId.getClass());
+        ArrayList<IGwtSerializableParameter> values = new ArrayList<>(fields.length);
+        try {
+            for (Field field : fields) {
+                values.add(convertToGwt((Serializable) field.get(compositeId)));
+            }
+        } catch (IllegalAccessException ex) {
+            throw new SerializationException("Cannot read composite id " + compositeId.getClass(), ex);
+        }
+        return new CompositeIdParameter(compositeId.getClass().getName(), values);
+    }
+
+    /**
+     * Re-create the embedded composite id from its field values
+     */
+    protected Serializable convertCompositeIdFromGwt(CompositeIdParameter parameter) throws SerializationException {
+        Class<?> compositeIdClass = loadClass(parameter.getClassName());
+        if (isCompositeId(compositeIdClass) == false) {
+            throw new SerializationException("Not a composite id class : " + parameter.getClassName());
+        }
+        Field[] fields = COMPOSITE_ID_FIELDS.get(compositeIdClass);
+        List<IGwtSerializableParameter> values = parameter.getValues();
+        if (values.size() != fields.length) {
+            throw new SerializationException("Field count mismatch for composite id " + compositeIdClass);
+        }
+        try {
+            Constructor<?> constructor = compositeIdClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object compositeId = constructor.newInstance();
+            for (int index = 0; index < fields.length; index++) {
+                Object value = convertFromGwt(values.get(index));
+                if ((value != null) || (fields[index].getType().isPrimitive() == false)) {
+                    fields[index].set(compositeId, value);
+                }
+            }
+            return (Serializable) compositeId;
+        } catch (ReflectiveOperationException ex) {
+            throw new SerializationException("Cannot create composite id " + compositeIdClass, ex);
+        }
+    }
+
+    /**
+     * Re-create the enum constant
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Serializable convertEnumFromGwt(EnumParameter parameter) throws SerializationException {
+        Class enumClass = loadClass(parameter.getEnumClassName());
+        if (enumClass.isEnum() == false) {
+            throw new SerializationException("Not an enum class : " + parameter.getEnumClassName());
+        }
+        try {
+            return Enum.valueOf(enumClass, (String) parameter.getUnderlyingValue());
+        } catch (IllegalArgumentException ex) {
+            throw new SerializationException("Unknown constant of " + enumClass, ex);
+        }
+    }
+
+    /**
+     * @return true if the argument type is an embedded composite id (annotated with Embeddable)
+     */
+    protected boolean isCompositeId(Class<?> type) {
+        for (Annotation annotation : type.getAnnotations()) {
+            String name = annotation.annotationType().getName();
+            if ("javax.persistence.Embeddable".equals(name) || "jakarta.persistence.Embeddable".equals(name)) {
+                return Serializable.class.isAssignableFrom(type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Load the argument class, using the context class loader if any
+     */
+    private static Class<?> loadClass(String className) throws SerializationException {
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                return Class.forName(className, false, classLoader);
+            }
+            return Class.forName(className);
+        } catch (ClassNotFoundException ex) {
+            throw new SerializationException("Class not found : " + className, ex);
+        }
+    }
+
+    /**
+     * Collect the persistent fields of the composite id class (superclass first)
+     */
+    private static void collectFields(Class<?> type, List<Field> fields) {
+        if ((type == null) || (type == Object.class)) {
+            return;
+        }
+        collectFields(type.getSuperclass(), fields);
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if ((Modifier.isStatic(modifiers) == false) && (Modifier.isTransient(modifiers) == false)) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+    }
+
     /**
      * Convert the argument list to GWT serializable IRequestParameter
      */
@@ -160,13 +537,18 @@ public class GwtSerializer {
     protected IGwtSerializableParameter convertListToGwt(Serializable object) throws SerializationException {
         // Precondition checking
         Collection<Serializable> objectList = (Collection<Serializable>) object;
-        if ((objectList == null) || (objectList.isEmpty())) {
+        if (objectList == null) {
             return null;
         }
 
         // Create underlying list
         List<IGwtSerializableParameter> serializableCollection = null;
         if (object instanceof ArrayList) {
+            // Homogeneous list ?
+            IGwtSerializableParameter homogeneousList = convertHomogeneousListToGwt((List<Serializable>) objectList);
+            if (homogeneousList != null) {
+                return homogeneousList;
+            }
             serializableCollection = new ArrayList<>(objectList.size());
         } else if (object instanceof LinkedList) {
             serializableCollection = new LinkedList<>();
@@ -176,13 +558,53 @@ public class GwtSerializer {
         }
 
         // Copy list contents
-        for (Serializable item : objectList) {
-            serializableCollection.add(convertToGwt(item));
-        }
+        convertElementsToGwt(objectList, serializableCollection);
 
         return new ListParameter(serializableCollection);
     }
 
+    /**
+     * Convert a non empty ArrayList whose elements share a type with a primitive specialized form
+     *
+     * @return the specialized parameter, or null if the list is not homogeneous
+     */
+    protected IGwtSerializableParameter convertHomogeneousListToGwt(List<Serializable> objectList) {
+        int size = objectList.size();
+        if ((size == 0) || (objectList.get(0) instanceof Long == false)) {
+            return null;
+        }
+
+        long[] values = new long[size];
+        for (int index = 0; index < size; index++) {
+            Serializable item = objectList.get(index);
+            if ((item == null) || (item.getClass() != Long.class)) {
+                return null;
+            }
+            values[index] = ((Long) item).longValue();
+        }
+        return new LongListParameter(values);
+    }
+
+    /**
+     * Convert the collection elements to the target collection. The converter of the previous element is reused while
+     * the element type does not change.
+     */
+    protected void convertElementsToGwt(Collection<Serializable> source, Collection<IGwtSerializableParameter> target) throws SerializationException {
+        Class<?> lastClass = null;
+        Converter lastConverter = null;
+        for (Serializable item : source) {
+            if (item == null) {
+                target.add(null);
+                continue;
+            }
+            if (item.getClass() != lastClass) {
+                lastClass = item.getClass();
+                lastConverter = getConverter(lastClass);
+            }
+            target.add(lastConverter.convert(this, item));
+        }
+    }
+
     /**
      * Convert the argument list from GWT IRequestParameter one
      *
@@ -190,9 +612,19 @@ public class GwtSerializer {
      */
     @SuppressWarnings("unchecked")
     protected Serializable convertListFromGwt(IGwtSerializableParameter object) throws SerializationException {
+        // Primitive list
+        if (object instanceof LongListParameter) {
+            long[] values = (long[]) object.getUnderlyingValue();
+            ArrayList<Long> result = new ArrayList<>(values.length);
+            for (long value : values) {
+                result.add(Long.valueOf(value));
+            }
+            return result;
+        }
+
         // Precondition checking
         Collection<IGwtSerializableParameter> objectList = (Collection<IGwtSerializableParameter>) object.getUnderlyingValue();
-        if ((objectList == null) || (objectList.isEmpty())) {
+        if (objectList == null) {
             return null;
         }
 
@@ -222,16 +654,16 @@ public class GwtSerializer {
     protected IGwtSerializableParameter convertSetToGwt(Serializable object) throws SerializationException {
         // Precondition checking
         Collection<Serializable> objectList = (Collection<Serializable>) object;
-        if ((objectList == null) || (objectList.isEmpty())) {
+        if (objectList == null) {
             return null;
         }
 
         // Create underlying list
         Set<IGwtSerializableParameter> serializableCollection = null;
-        if (object instanceof HashSet) {
-            serializableCollection = new HashSet<>(objectList.size());
-        } else if (object instanceof LinkedHashSet) {
-            serializableCollection = new LinkedHashSet<>(objectList.size());
+        if (object instanceof LinkedHashSet) {
+            serializableCollection = new LinkedHashSet<>(CollectionHelper.getMapCapacity(objectList.size()));
+        } else if (object instanceof HashSet) {
+            serializableCollection = new HashSet<>(CollectionHelper.getMapCapacity(objectList.size()));
         } else if (object instanceof TreeSet) {
             serializableCollection = new TreeSet<>();
         } else {
@@ -239,10 +671,8 @@ public class GwtSerializer {
             throw new SerializationException("Unsupported collection type : " + object.getClass());
         }
 
-        // Copy list contents
-        for (Serializable item : objectList) {
-            serializableCollection.add(convertToGwt(item));
-        }
+        // Copy set contents
+        convertElementsToGwt(objectList, serializableCollection);
 
         return new SetParameter(serializableCollection);
     }
@@ -254,16 +684,16 @@ public class GwtSerializer {
     protected Serializable convertSetFromGwt(IGwtSerializableParameter object) throws SerializationException {
         // Precondition checking
         Collection<IGwtSerializableParameter> objectList = (Collection<IGwtSerializableParameter>) object.getUnderlyingValue();
-        if ((objectList == null) || (objectList.isEmpty())) {
+        if (objectList == null) {
             return null;
         }
 
         // Create serializable set
         Set<Serializable> serializableCollection = null;
-        if (objectList instanceof HashSet) {
-            serializableCollection = new HashSet<>(objectList.size());
-        } else if (objectList instanceof LinkedHashSet) {
-            serializableCollection = new LinkedHashSet<>(objectList.size());
+        if (objectList instanceof LinkedHashSet) {
+            serializableCollection = new LinkedHashSet<>(CollectionHelper.getMapCapacity(objectList.size()));
+        } else if (objectList instanceof HashSet) {
+            serializableCollection = new HashSet<>(CollectionHelper.getMapCapacity(objectList.size()));
         } else if (objectList instanceof TreeSet) {
             serializableCollection = new TreeSet<>();
         } else {
@@ -286,16 +716,16 @@ public class GwtSerializer {
     protected IGwtSerializableParameter convertMapToGwt(Serializable object) throws SerializationException {
         // Precondition checking
         Map<Serializable, Serializable> objectMap = (Map<Serializable, Serializable>) object;
-        if ((objectMap == null) || (objectMap.isEmpty())) {
+        if (objectMap == null) {
             return null;
         }
 
         // Create underlying list
         Map<IGwtSerializableParameter, IGwtSerializableParameter> serializableCollection = null;
-        if (object instanceof HashMap) {
-            serializableCollection = new HashMap<>(objectMap.size());
-        } else if (object instanceof LinkedHashMap) {
-            serializableCollection = new LinkedHashMap<>(objectMap.size());
+        if (object instanceof LinkedHashMap) {
+            serializableCollection = new LinkedHashMap<>(CollectionHelper.getMapCapacity(objectMap.size()));
+        } else if (object instanceof HashMap) {
+            serializableCollection = new HashMap<>(CollectionHelper.getMapCapacity(objectMap.size()));
         } else if (object instanceof TreeMap) {
             serializableCollection = new TreeMap<>();
         } else {
@@ -319,16 +749,16 @@ public class GwtSerializer {
         // Precondition checking
         Map<IGwtSerializableParameter, IGwtSerializableParameter> objectMap = (Map<IGwtSerializableParameter, IGwtSerializableParameter>) object
                 .getUnderlyingValue();
-        if ((objectMap == null) || (objectMap.isEmpty())) {
+        if (objectMap == null) {
             return null;
         }
 
         // Create underlying list
         Map<Serializable, Serializable> serializableCollection = null;
-        if (objectMap instanceof HashMap) {
-            serializableCollection = new HashMap<>(objectMap.size());
-        } else if (objectMap instanceof LinkedHashMap) {
-            serializableCollection = new LinkedHashMap<>(objectMap.size());
+        if (objectMap instanceof LinkedHashMap) {
+            serializableCollection = new LinkedHashMap<>(CollectionHelper.getMapCapacity(objectMap.size()));
+        } else if (objectMap instanceof HashMap) {
+            serializableCollection = new HashMap<>(CollectionHelper.getMapCapacity(objectMap.size()));
         } else if (objectMap instanceof TreeMap) {
             serializableCollection = new TreeMap<>();
         } else {
@@ -0,0 +1,100 @@
+package java.util;
+
+import java.io.Serializable;
+
+/**
+ * GWT emulation of java.util.UUID : value, comparison and string form only (no generation).
+ *
+ * @author bruno.marchesson
+ */
+public final class UUID implements Serializable, Comparable<UUID> {
+
+    private static final long serialVersionUID = -4856846361193249489L;
+
+    /**
+     * Most significant bits
+     */
+    private final long mostSigBits;
+
+    /**
+     * Least significant bits
+     */
+    private final long leastSigBits;
+
+    /**
+     * Constructor
+     */
+    public UUID(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+    }
+
+    /**
+     * Parse the standard string form
+     */
+    public static UUID fromString(String name) {
+        String[] components = name.split("-");
+        if (components.length != 5) {
+            throw new IllegalArgumentException("Invalid UUID string: " + name);
+        }
+        long mostSigBits = Long.parseLong(components[0], 16);
+        mostSigBits <<= 16;
+        mostSigBits |= Long.parseLong(components[1], 16);
+        mostSigBits <<= 16;
+        mostSigBits |= Long.parseLong(components[2], 16);
+
+        long leastSigBits = Long.parseLong(components[3], 16);
+        leastSigBits <<= 48;
+        leastSigBits |= Long.parseLong(components[4], 16);
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public long getMostSignificantBits() {
+        return mostSigBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSigBits;
+    }
+
+    @Override
+    public String toString() {
+        return digits(mostSigBits >> 32, 8) + "-" + digits(mostSigBits >> 16, 4) + "-" + digits(mostSigBits, 4) + "-"
+                + digits(leastSigBits >> 48, 4) + "-" + digits(leastSigBits, 12);
+    }
+
+    @Override
+    public int hashCode() {
+        long hilo = mostSigBits ^ leastSigBits;
+        return ((int) (hilo >> 32)) ^ (int) hilo;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof UUID == false) {
+            return false;
+        }
+        UUID id = (UUID) obj;
+        return (mostSigBits == id.mostSigBits) && (leastSigBits == id.leastSigBits);
+    }
+
+    @Override
+    public int compareTo(UUID val) {
+        if (mostSigBits != val.mostSigBits) {
+            return (mostSigBits < val.mostSigBits) ? -1 : 1;
+        }
+        if (leastSigBits != val.leastSigBits) {
+            return (leastSigBits < val.leastSigBits) ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the hexadecimal form of the lowest digits of the value, zero padded
+     */
+    private static String digits(long val, int digits) {
+        long hi = 1L << (digits * 4);
+        return Long.toHexString(hi | (val & (hi - 1))).substring(1);
+    }
+}
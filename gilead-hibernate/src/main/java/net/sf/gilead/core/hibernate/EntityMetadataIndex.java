@@ -0,0 +1,163 @@
+package net.sf.gilead.core.hibernate;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.engine.spi.IdentifierValue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.tuple.IdentifierProperty;
+
+/**
+ * Entity metadata index of a session factory. It is built once from the metamodel, so that entity names, persisters
+ * and identifier informations are resolved without scanning all the mapped entities.
+ *
+ * @author bruno.marchesson
+ */
+public class EntityMetadataIndex {
+
+    /**
+     * Entity names, by mapped class
+     */
+    private final Map<Class<?>, List<String>> entityNames;
+
+    /**
+     * Entity metadata, by entity name
+     */
+    private final Map<String, EntityMetadata> entities;
+
+    /**
+     * Constructor
+     *
+     * @param sessionFactory the indexed session factory
+     */
+    public EntityMetadataIndex(SessionFactoryImplementor sessionFactory) {
+        Map<Class<?>, List<String>> names = new HashMap<>();
+        Map<String, EntityMetadata> metadata = new HashMap<>();
+
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            metadata.put(persister.getEntityName(), new EntityMetadata(persister));
+
+            Class<?> mappedClass = persister.getMappedClass();
+            if (mappedClass != null) {
+                List<String> classNames = names.get(mappedClass);
+                if (classNames == null) {
+                    classNames = new ArrayList<>(1);
+                    names.put(mappedClass, classNames);
+                }
+                classNames.add(persister.getEntityName());
+            }
+        }
+
+        for (Map.Entry<Class<?>, List<String>> entry : names.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.entityNames = names;
+        this.entities = metadata;
+    }
+
+    /**
+     * @return all the entity names of the argument class (empty list if the class is not mapped)
+     */
+    public List<String> getEntityNames(Class<?> clazz) {
+        List<String> names = entityNames.get(clazz);
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        return names;
+    }
+
+    /**
+     * @return the metadata of the named entity, or null if not found
+     */
+    public EntityMetadata getEntityMetadata(String entityName) {
+        return entities.get(entityName);
+    }
+
+    /**
+     * Precomputed metadata of an entity
+     *
+     * @author bruno.marchesson
+     */
+    public static class EntityMetadata {
+
+        /**
+         * The entity persister
+         */
+        private final EntityPersister persister;
+
+        /**
+         * The identifier property name
+         */
+        private final String identifierPropertyName;
+
+        /**
+         * The unsaved value strategy (can be null)
+         */
+        private final IdentifierValue unsavedValue;
+
+        /**
+         * Identifier getters of not persistent classes (DTO), by class
+         */
+        private final ConcurrentMap<Class<?>, Method> identifierGetters = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor
+         */
+        EntityMetadata(EntityPersister persister) {
+            this.persister = persister;
+            this.identifierPropertyName = persister.getIdentifierPropertyName();
+
+            IdentifierProperty identifierProperty = persister.getEntityMetamodel().getIdentifierProperty();
+            this.unsavedValue = (identifierProperty != null) ? identifierProperty.getUnsavedValue() : null;
+        }
+
+        /**
+         * @return the entity persister
+         */
+        public EntityPersister getPersister() {
+            return persister;
+        }
+
+        /**
+         * @return the identifier property name
+         */
+        public String getIdentifierPropertyName() {
+            return identifierPropertyName;
+        }
+
+        /**
+         * Check if the id equals the unsaved value or not
+         *
+         * @return the unsaved status, or null if undefined
+         */
+        public Boolean isUnsaved(Serializable id) {
+            if (unsavedValue == null) {
+                return null;
+            }
+            return unsavedValue.isUnsaved(id);
+        }
+
+        /**
+         * Get the identifier getter of the argument (not persistent) class, matching the entity identifier property
+         *
+         * @throws NoSuchMethodException if the class has no such public getter
+         */
+        public Method getIdentifierGetter(Class<?> clazz) throws NoSuchMethodException {
+            Method getter = identifierGetters.get(clazz);
+            if (getter == null) {
+                String property = identifierPropertyName.substring(0, 1).toUpperCase() + identifierPropertyName.substring(1);
+                getter = clazz.getMethod("get" + property, (Class[]) null);
+                identifierGetters.putIfAbsent(clazz, getter);
+            }
+            return getter;
+        }
+    }
+}
@@ -9,14 +9,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.metamodel.EntityType;
-import javax.persistence.metamodel.ManagedType;
 
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
@@ -36,11 +37,8 @@ import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.internal.SessionFactoryImpl;
 import org.hibernate.persister.collection.CollectionPersister;
-import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.query.Query;
-import org.hibernate.tuple.IdentifierProperty;
-import org.hibernate.tuple.entity.EntityMetamodel;
 import org.hibernate.type.CollectionType;
 import org.hibernate.type.CompositeType;
 import org.hibernate.type.Type;
@@ -48,13 +46,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.beanlib.hibernate.UnEnhancer;
+import net.sf.gilead.core.PersistenceStatus;
 import net.sf.gilead.core.PersistenceUtil;
+import net.sf.gilead.core.hibernate.EntityMetadataIndex.EntityMetadata;
 import net.sf.gilead.core.hibernate.exception.UnableToCreateEntityException;
 import net.sf.gilead.core.serialization.SerializableId;
-import net.sf.gilead.exception.ComponentTypeException;
-import net.sf.gilead.exception.NotPersistentObjectException;
-import net.sf.gilead.exception.TransientObjectException;
 import net.sf.gilead.pojo.base.IUserType;
+import net.sf.gilead.util.CollectionHelper;
 import net.sf.gilead.util.IntrospectionHelper;
 
 /**
@@ -116,15 +114,36 @@ public class HibernateUtil implements PersistenceUtil {
     private SessionFactoryImpl sessionFactory;
 
     /**
-     * The persistance map, with persistance status of all classes including persistent component classes
+     * The persistance map, with persistance status of all classes including persistent component classes. It is
+     * eagerly filled from the session factory metamodel, and read only once frozen.
      */
-    private Map<Class<?>, Boolean> persistenceMap;
+    private volatile Map<Class<?>, Boolean> persistenceMap;
+
+    /**
+     * Is the persistence map frozen ?
+     */
+    private volatile boolean frozen;
+
+    /**
+     * Persistence of the classes that are not in the frozen map (persistent interface checking), null if not frozen
+     */
+    private volatile ClassValue<Boolean> unmappedPersistence;
+
+    /**
+     * The entity metadata index of the session factory
+     */
+    private volatile EntityMetadataIndex entityIndex;
 
     /**
      * The unenhancement map, used for performance purpose
      */
     private Map<Class<?>, Class<?>> unehancementMap;
 
+    /**
+     * Are deleted collection members reloaded with one multi id load per entity name ?
+     */
+    private boolean batchReload;
+
     /**
      * The current opened session
      */
@@ -157,21 +176,11 @@ public class HibernateUtil implements PersistenceUtil {
      * Complete constructor
      */
     public HibernateUtil(SessionFactory sessionFactory, Session session) {
-        setSessionFactory(sessionFactory);
         this.session = session;
         sessionThread = new ThreadLocal<>();
-        persistenceMap = Collections.synchronizedMap(new HashMap<Class<?>, Boolean>());
-        unehancementMap = Collections.synchronizedMap(new HashMap<Class<?>, Class<?>>());
-
-        // Filling persistence map with primitive types
-        persistenceMap.put(Byte.class, false);
-        persistenceMap.put(Short.class, false);
-        persistenceMap.put(Integer.class, false);
-        persistenceMap.put(Long.class, false);
-        persistenceMap.put(Float.class, false);
-        persistenceMap.put(Double.class, false);
-        persistenceMap.put(Boolean.class, false);
-        persistenceMap.put(String.class, false);
+        unehancementMap = new ConcurrentHashMap<>();
+        resetPersistenceMap();
+        setSessionFactory(sessionFactory);
     }
 
     /**
@@ -193,6 +202,84 @@ public class HibernateUtil implements PersistenceUtil {
             }
         }
         this.sessionFactory = (SessionFactoryImpl) sessionFactory;
+
+        // Entity metadata index and eager persistence computation
+        resetPersistenceMap();
+        if (this.sessionFactory != null) {
+            entityIndex = new EntityMetadataIndex(this.sessionFactory);
+
+            for (EntityType<?> entityType : this.sessionFactory.getMetamodel().getEntities()) {
+                if (entityType.getJavaType() != null) {
+                    computePersistenceForClass(entityType.getJavaType());
+                }
+            }
+        }
+    }
+
+    /**
+     * Freeze the persistence map : it becomes read only and classes that are not in the map (not mapped) are only
+     * checked once for persistent interfaces, the result being attached to the class. Since the map is eagerly filled
+     * from the session factory metamodel, this is typically called once the application is started.
+     */
+    public void freeze() {
+        persistenceMap = Collections.unmodifiableMap(new HashMap<>(persistenceMap));
+        unmappedPersistence = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> clazz) {
+                for (Class<?> inter : clazz.getInterfaces()) {
+                    if (isPersistentClass(inter)) {
+                        return Boolean.TRUE;
+                    }
+                }
+                return Boolean.FALSE;
+            }
+        };
+        frozen = true;
+    }
+
+    /**
+     * @return true if the persistence map is frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return true if deleted collection members are reloaded in batch
+     */
+    public boolean isBatchReload() {
+        return batchReload;
+    }
+
+    /**
+     * Enable or disable batch reloading of deleted collection members. When enabled, the members removed on client
+     * side are loaded with one multi id load per entity name, instead of one proxy (and later one select) per member.
+     *
+     * @param batchReload the batch reload flag
+     */
+    public void setBatchReload(boolean batchReload) {
+        this.batchReload = batchReload;
+    }
+
+    /**
+     * Reset the persistence map to its initial state
+     */
+    private void resetPersistenceMap() {
+        Map<Class<?>, Boolean> map = new ConcurrentHashMap<>();
+
+        // Filling persistence map with primitive types
+        map.put(Byte.class, false);
+        map.put(Short.class, false);
+        map.put(Integer.class, false);
+        map.put(Long.class, false);
+        map.put(Float.class, false);
+        map.put(Double.class, false);
+        map.put(Boolean.class, false);
+        map.put(String.class, false);
+
+        persistenceMap = map;
+        frozen = false;
+        unmappedPersistence = null;
     }
 
     @Override
@@ -202,6 +289,20 @@ public class HibernateUtil implements PersistenceUtil {
 
     @Override
     public Serializable getId(Object pojo, Class<?> hibernateClass) {
+        return getPersistenceStatus(pojo, hibernateClass).getIdOrThrow(pojo);
+    }
+
+    @Override
+    public PersistenceStatus getPersistenceStatus(Object pojo) {
+        // Precondition checking
+        if (pojo == null) {
+            return PersistenceStatus.NOT_PERSISTENT;
+        }
+        return getPersistenceStatus(pojo, getPersistentClass(pojo));
+    }
+
+    @Override
+    public PersistenceStatus getPersistenceStatus(Object pojo, Class<?> hibernateClass) {
         // Precondition checking
         if (sessionFactory == null) {
             throw new NullPointerException("No Hibernate Session Factory defined!");
@@ -210,15 +311,15 @@ public class HibernateUtil implements PersistenceUtil {
         // Verify if class is persistent.
         if (isPersistentClass(hibernateClass) == false) {
             LOGGER.debug("Class [{}] is not persistent.", hibernateClass.getName());
-            throw new NotPersistentObjectException(pojo);
+            return PersistenceStatus.NOT_PERSISTENT;
         }
 
         // Retrieve Class<?> hibernate metadata
-        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersisters().get(getEntityName(hibernateClass, pojo));
-        if (entityPersister == null) {
+        EntityMetadata entityMetadata = entityIndex.getEntityMetadata(getEntityName(hibernateClass, pojo));
+        if (entityMetadata == null) {
             // Component class (persistent but not metadata) : no associated id
             // So must be considered as transient
-            throw new ComponentTypeException(pojo);
+            return PersistenceStatus.COMPONENT;
         }
 
         // Retrieve ID
@@ -233,23 +334,14 @@ public class HibernateUtil implements PersistenceUtil {
             } else {
                 // Otherwise : use metada
                 LOGGER.debug("Get identifier by ClassMetadata [{}].", pojo.getClass().getName());
-                id = entityPersister.getClassMetadata().getIdentifier(pojo, (SharedSessionContractImplementor) session);
+                id = entityMetadata.getPersister().getClassMetadata().getIdentifier(pojo, (SharedSessionContractImplementor) session);
             }
         } else {
             LOGGER.debug("Get identifier of POJO [{}].", pojo.getClass().getName());
             // DTO case : invoke the method with the same name
-            String property = entityPersister.getIdentifierPropertyName();
-
             try {
-                // compute getter method name
-                property = property.substring(0, 1).toUpperCase() + property.substring(1);
-                String getter = "get" + property;
-
                 // Find getter method
-                Method method = pojoClass.getMethod(getter, (Class[]) null);
-                if (method == null) {
-                    throw new RuntimeException("Cannot find method " + getter + " for Class<?> " + pojoClass);
-                }
+                Method method = entityMetadata.getIdentifierGetter(pojoClass);
                 id = (Serializable) method.invoke(pojo, (Object[]) null);
             } catch (Exception ex) {
                 throw new RuntimeException("Invocation exception ", ex);
@@ -257,29 +349,17 @@ public class HibernateUtil implements PersistenceUtil {
         }
 
         // Post condition checking
-        if (isUnsavedValue(pojo, id, hibernateClass)) {
-            throw new TransientObjectException(pojo);
+        if (isUnsavedValue(entityMetadata, id)) {
+            return PersistenceStatus.TRANSIENT;
         }
 
-        return id;
+        return PersistenceStatus.persistent(id);
     }
 
     @Override
     public boolean isPersistentPojo(Object pojo) {
-        // Precondition checking
-        if (pojo == null) {
-            return false;
-        }
-
-        // Try to get the ID : if an exception is thrown the pojo is not persistent...
-        try {
-            getId(pojo);
-            return true;
-        } catch (TransientObjectException ex) {
-            return false;
-        } catch (NotPersistentObjectException ex) {
-            return false;
-        }
+        // No exception thrown for transient or not persistent pojo
+        return getPersistenceStatus(pojo).isPersistent();
     }
 
     @Override
@@ -293,11 +373,15 @@ public class HibernateUtil implements PersistenceUtil {
         clazz = getUnenhancedClass(clazz);
 
         // Look into the persistence map
-        synchronized (persistenceMap) {
-            Boolean persistent = persistenceMap.get(clazz);
-            if (persistent != null) {
-                return persistent.booleanValue();
-            }
+        Boolean persistent = persistenceMap.get(clazz);
+        if (persistent != null) {
+            return persistent.booleanValue();
+        }
+
+        ClassValue<Boolean> unmapped = unmappedPersistence;
+        if (frozen && (unmapped != null)) {
+            // Not a mapped class : implemented interfaces are checked once, outside of the frozen map
+            return unmapped.get(clazz).booleanValue();
         }
 
         // First clall for this Class<?> : compute persistence class
@@ -432,16 +516,17 @@ public class HibernateUtil implements PersistenceUtil {
         result.put(KEY, collection.getKey());
 
         // Store ids
-        if (isInitialized(collection) == true) {
-            // Store keys
-            ArrayList<SerializableId> keyList = createIdList(persistentMap.keySet());
-            if (keyList != null) {
-                result.put(ID_LIST, keyList);
-
-                // Store values (only if keys are persistents)
-                ArrayList<SerializableId> valueList = createIdList(persistentMap.values());
-                result.put(VALUE_LIST, valueList);
+        if ((isInitialized(collection) == true) && (persistentMap.isEmpty() == false)) {
+            // Key and value lists are index aligned : null keys and values are kept as null ids
+            int size = persistentMap.size();
+            ArrayList<SerializableId> keyList = new ArrayList<>(size);
+            ArrayList<SerializableId> valueList = new ArrayList<>(size);
+            for (Map.Entry<?, ?> entry : persistentMap.entrySet()) {
+                keyList.add(createSerializableId(entry.getKey()));
+                valueList.add(createSerializableId(entry.getValue()));
             }
+            result.put(ID_LIST, keyList);
+            result.put(VALUE_LIST, valueList);
         }
         return result;
     }
@@ -786,11 +871,9 @@ public class HibernateUtil implements PersistenceUtil {
      */
     private void computePersistenceForClass(Class<?> clazz) {
         // Precondition checking
-        synchronized (persistenceMap) {
-            if (persistenceMap.get(clazz) != null) {
-                // already computed
-                return;
-            }
+        if (persistenceMap.get(clazz) != null) {
+            // already computed
+            return;
         }
 
         // Get associated metadata
@@ -837,16 +920,11 @@ public class HibernateUtil implements PersistenceUtil {
         } else {
             LOGGER.debug("Marking [{}] as not persistent", clazz);
         }
-        synchronized (persistenceMap) {
-            // Debug check
-            if (persistenceMap.get(clazz) == null) {
-                persistenceMap.put(clazz, persistent);
-            } else {
-                // Check persistence information
-                if (persistent != persistenceMap.get(clazz).booleanValue()) {
-                    throw new RuntimeException("Invalid persistence state for " + clazz);
-                }
-            }
+        // Debug check
+        Boolean previous = persistenceMap.putIfAbsent(clazz, persistent);
+        if ((previous != null) && (persistent != previous.booleanValue())) {
+            // Check persistence information
+            throw new RuntimeException("Invalid persistence state for " + clazz);
         }
     }
 
@@ -857,11 +935,9 @@ public class HibernateUtil implements PersistenceUtil {
      */
     private void computePersistentForType(Type type) {
         // Precondition checking
-        synchronized (persistenceMap) {
-            if (persistenceMap.get(type.getReturnedClass()) != null) {
-                // already computed
-                return;
-            }
+        if (persistenceMap.get(type.getReturnedClass()) != null) {
+            // already computed
+            return;
         }
 
         LOGGER.debug("Scanning type [{}]", type.getName());
@@ -911,15 +987,7 @@ public class HibernateUtil implements PersistenceUtil {
         while (iterator.hasNext()) {
             Object item = iterator.next();
             if (item != null) {
-                SerializableId id;
-
-                if (isPersistentPojo(item)) {
-                    id = serializePersistentEntity(item);
-                } else {
-                    id = serializeNotPersistentEntity(item);
-                }
-
-                idList.add(id);
+                idList.add(createSerializableId(item));
             }
         }
 
@@ -930,16 +998,35 @@ public class HibernateUtil implements PersistenceUtil {
         }
     }
 
+    /**
+     * Create the serializable ID of the argument item
+     *
+     * @return the serializable ID, or null for a null item
+     */
+    private SerializableId createSerializableId(Object item) {
+        if (item == null) {
+            return null;
+        }
+
+        PersistenceStatus status = getPersistenceStatus(item);
+        if (status.isPersistent()) {
+            return serializePersistentEntity(item, status.getId());
+        } else {
+            return serializeNotPersistentEntity(item);
+        }
+    }
+
     /**
      * Serialize a persistent entity to a SerializableId
      *
      * @param item
+     * @param id the already computed item id
      * @return the generated SerializableId
      */
-    private SerializableId serializePersistentEntity(Object item) {
+    private SerializableId serializePersistentEntity(Object item, Serializable id) {
         SerializableId result = new SerializableId();
         result.setEntityName(getEntityName(getPersistentClass(item), item));
-        result.setId(getId(item));
+        result.setId(id);
 
         return result;
     }
@@ -977,17 +1064,14 @@ public class HibernateUtil implements PersistenceUtil {
      * @param entity
      * @return
      */
-    private boolean isUnsavedValue(Object pojo, Serializable id, Class<?> persistentClass) {
+    private boolean isUnsavedValue(EntityMetadata entityMetadata, Serializable id) {
         // Precondition checking
         if (id == null) {
             return true;
         }
 
         // Get unsaved value from entity metamodel
-        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersister(getEntityName(persistentClass, pojo));
-        EntityMetamodel metamodel = entityPersister.getEntityMetamodel();
-        IdentifierProperty idProperty = metamodel.getIdentifierProperty();
-        Boolean result = idProperty.getUnsavedValue().isUnsaved(id);
+        Boolean result = entityMetadata.isUnsaved(id);
 
         if (result == null) {
             // Unsaved value undefined
@@ -1045,10 +1129,11 @@ public class HibernateUtil implements PersistenceUtil {
             if (idList != null) {
                 // Create map(ID -> entity)
                 Map<Serializable, T> collectionMap = createCollectionMap(collection);
+                Map<String, Map<Serializable, Object>> deletedEntities = loadDeletedEntities(idList, collectionMap);
 
                 // Fill snapshot
                 for (SerializableId sid : idList) {
-                    original.add(createOriginalEntity(sid, collectionMap));
+                    original.add(createOriginalEntity(sid, collectionMap, deletedEntities));
                 }
             }
 
@@ -1061,33 +1146,40 @@ public class HibernateUtil implements PersistenceUtil {
     }
 
     /**
-     * (Re)create the original map
+     * (Re)create the original map (package visible for tests)
      *
      * @param proxyInformations
      * @param underlyingCollection
      */
     @SuppressWarnings("unchecked")
-    private <K, V> Map<K, V> createOriginalMap(Map<String, Serializable> proxyInformations, Map<K, V> map) {
+    <K, V> Map<K, V> createOriginalMap(Map<String, Serializable> proxyInformations, Map<K, V> map) {
         try {
             ArrayList<SerializableId> keyList = (ArrayList<SerializableId>) proxyInformations.get(ID_LIST);
             if (keyList != null) {
                 ArrayList<SerializableId> valueList = (ArrayList<SerializableId>) proxyInformations.get(VALUE_LIST);
 
-                // Create maps(ID -> entity)
-                Map<Serializable, K> keyMap = null;
-                Map<Serializable, V> valueMap = null;
+                // Create maps(ID -> entity), in one pass over the map entries
+                int size = (map != null) ? map.size() : 0;
+                Map<Serializable, K> keyMap = new HashMap<>(CollectionHelper.getMapCapacity(size));
+                Map<Serializable, V> valueMap = new HashMap<>(CollectionHelper.getMapCapacity(size));
                 if (map != null) {
-                    keyMap = createCollectionMap(map.keySet());
-                    valueMap = createCollectionMap(map.values());
-                } else {
-                    keyMap = new HashMap<>();
-                    valueMap = new HashMap<>();
+                    for (Map.Entry<K, V> entry : map.entrySet()) {
+                        addToCollectionMap(entry.getKey(), keyMap);
+                        addToCollectionMap(entry.getValue(), valueMap);
+                    }
                 }
 
-                // Fill snapshot map
-                Map<K, V> snapshot = new HashMap<>();
-                for (SerializableId sid : keyList) {
-                    snapshot.put(createOriginalEntity(sid, keyMap), createOriginalEntity(valueList.get(keyList.indexOf(sid)), valueMap));
+                Map<String, Map<Serializable, Object>> deletedKeys = loadDeletedEntities(keyList, keyMap);
+                Map<String, Map<Serializable, Object>> deletedValues = loadDeletedEntities(valueList, valueMap);
+
+                // Fill snapshot map : key and value lists are index aligned (null id for a null key or value)
+                int keyCount = keyList.size();
+                Map<K, V> snapshot = new HashMap<>(CollectionHelper.getMapCapacity(keyCount));
+                for (int index = 0; index < keyCount; index++) {
+                    SerializableId keyId = keyList.get(index);
+                    SerializableId valueId = (valueList != null) ? valueList.get(index) : null;
+                    snapshot.put((keyId != null) ? createOriginalEntity(keyId, keyMap, deletedKeys) : null,
+                            (valueId != null) ? createOriginalEntity(valueId, valueMap, deletedValues) : null);
                 }
 
                 return snapshot;
@@ -1191,16 +1283,27 @@ public class HibernateUtil implements PersistenceUtil {
      * Create an entity from its serializable id. The entity is taken from the argument map in priority.
      *
      * @param sid
+     * @param collectionMap map(ID -> entity) of the current collection members
+     * @param deletedEntities batch loaded deleted members, by entity name and id (null if batch reload is disabled)
      * @return
      */
     @SuppressWarnings("unchecked")
-    private <T> T createOriginalEntity(SerializableId sid, Map<Serializable, T> collectionMap) {
+    private <T> T createOriginalEntity(SerializableId sid, Map<Serializable, T> collectionMap, Map<String, Map<Serializable, Object>> deletedEntities) {
         // Precondition checking
         T entity = null;
         if (sid.getId() != null) {
             // Is the entity still present ?
             entity = collectionMap.get(sid.getId());
-            if (entity == null) {
+            if ((entity == null) && (deletedEntities != null)) {
+                // deleted item, already loaded (null if not found in DB)
+                Map<Serializable, Object> loadedEntities = deletedEntities.get(sid.getEntityName());
+                if (loadedEntities != null) {
+                    entity = (T) loadedEntities.get(sid.getId());
+                }
+                if (entity == null) {
+                    LOGGER.debug("Deleted entity: {} cannot be retrieved from DB and thus added to snapshot", sid);
+                }
+            } else if (entity == null) {
                 // deleted item
                 try {
                     entity = (T) createPersistentEntity(sid);
@@ -1220,6 +1323,55 @@ public class HibernateUtil implements PersistenceUtil {
         return entity;
     }
 
+    /**
+     * Load in batch the persistent members of the serialized id list that are no more in the collection map (deleted
+     * on client side) : missing ids are grouped by entity name and loaded with one multi id load per entity name.
+     *
+     * @param idList the serialized id list
+     * @param collectionMap map(ID -> entity) of the current collection members
+     * @return the loaded entities by entity name and id, or null if batch reload is disabled
+     */
+    @SuppressWarnings({ "resource", "unchecked" })
+    private Map<String, Map<Serializable, Object>> loadDeletedEntities(List<SerializableId> idList, Map<Serializable, ?> collectionMap) {
+        // Precondition checking
+        if ((batchReload == false) || (idList == null)) {
+            return null;
+        }
+
+        // Group missing ids by entity name
+        Map<String, Set<Serializable>> missingIds = new HashMap<>();
+        for (SerializableId sid : idList) {
+            if ((sid != null) && (sid.getId() != null) && (collectionMap.containsKey(sid.getId()) == false)) {
+                Set<Serializable> ids = missingIds.get(sid.getEntityName());
+                if (ids == null) {
+                    ids = new LinkedHashSet<>();
+                    missingIds.put(sid.getEntityName(), ids);
+                }
+                ids.add(sid.getId());
+            }
+        }
+
+        // One multi load per entity name
+        Map<String, Map<Serializable, Object>> deletedEntities = new HashMap<>();
+        for (Map.Entry<String, Set<Serializable>> entry : missingIds.entrySet()) {
+            List<Serializable> ids = new ArrayList<>(entry.getValue());
+            LOGGER.debug("Batch loading {} deleted entities of [{}].", ids.size(), entry.getKey());
+
+            List<Object> loaded = getSession().byMultipleIds(entry.getKey()).enableOrderedReturn(true).multiLoad(ids);
+
+            // Ordered return : one (possibly null) entity per id
+            Map<Serializable, Object> loadedEntities = new HashMap<>(ids.size() * 2);
+            for (int index = 0; index < ids.size(); index++) {
+                Object entity = loaded.get(index);
+                if (entity != null) {
+                    loadedEntities.put(ids.get(index), entity);
+                }
+            }
+            deletedEntities.put(entry.getKey(), loadedEntities);
+        }
+        return deletedEntities;
+    }
+
     /**
      * Create an entity back from its serializable id
      */
@@ -1273,26 +1425,32 @@ public class HibernateUtil implements PersistenceUtil {
      * @return
      */
     private <T> Map<Serializable, T> createCollectionMap(Collection<T> collection) {
-        Map<Serializable, T> collectionMap = new HashMap<>();
-        if (collection != null) {
-            for (T item : collection) {
-                if (item != null) {
-                    try {
-                        collectionMap.put(getId(item), item);
-                    } catch (NotPersistentObjectException ex) {
-                        // not hibernate entity : use hashcode instead
-                        collectionMap.put(item.hashCode(), item);
-                    } catch (TransientObjectException ex) {
-                        // transient entity : use hashcode instead
-                        collectionMap.put(item.hashCode(), item);
-                    }
-                }
-            }
+        if (collection == null) {
+            return new HashMap<>();
         }
 
+        Map<Serializable, T> collectionMap = new HashMap<>(CollectionHelper.getMapCapacity(collection.size()));
+        for (T item : collection) {
+            addToCollectionMap(item, collectionMap);
+        }
         return collectionMap;
     }
 
+    /**
+     * Add the argument item to the collection map (ID -> entity)
+     */
+    private <T> void addToCollectionMap(T item, Map<Serializable, T> collectionMap) {
+        if (item != null) {
+            PersistenceStatus status = getPersistenceStatus(item);
+            if (status.isPersistent()) {
+                collectionMap.put(status.getId(), item);
+            } else {
+                // not hibernate entity or transient entity : use hashcode instead
+                collectionMap.put(item.hashCode(), item);
+            }
+        }
+    }
+
     /**
      * @return the current session (open a new one if needed)
      */
@@ -1337,16 +1495,7 @@ public class HibernateUtil implements PersistenceUtil {
      */
     @SuppressWarnings("resource")
     private String getEntityName(Class<?> clazz, Object pojo) {
-        // Direct metadata search
-        ManagedType<?> metadata = sessionFactory.getMetamodel().managedType(clazz);
-        if (metadata != null) {
-            LOGGER.debug("Found metadata for class [{}] in managed types.", clazz.getName());
-            return metadata.getJavaType().getName();
-        } else {
-            LOGGER.debug("Not found metadata for class [{}] in managed types.", clazz.getName());
-        }
-
-        // Iterate over all metadata to prevent entity name bug.
+        // Indexed metadata search
         List<String> entityNames = getEntityNamesFor(clazz);
 
         // check entity names
@@ -1371,14 +1520,7 @@ public class HibernateUtil implements PersistenceUtil {
      * @return all possible entity names for the argument class.
      */
     private List<String> getEntityNamesFor(Class<?> clazz) {
-        List<String> entityNames = new ArrayList<>();
-        for (EntityType<?> type : sessionFactory.getMetamodel().getEntities()) {
-            if (clazz.equals(type.getBindableJavaType())) {
-                entityNames.add(type.getBindableJavaType().getName());
-            }
-        }
-
-        return entityNames;
+        return entityIndex.getEntityNames(clazz);
     }
 }
 
@@ -0,0 +1,227 @@
+package net.sf.gilead.core;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.store.ProxyStore;
+
+/**
+ * Test case for request scoped clone and merge operations
+ *
+ * @author bruno.marchesson
+ */
+public class OperationScopeTest extends TestCase {
+
+    /**
+     * Calls of the persistence util and proxy store, by method name
+     */
+    private final Map<String, Integer> calls = new HashMap<>();
+
+    /**
+     * Threads calling the persistence util
+     */
+    private final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+    /**
+     * Test that flush, session close and clean up are done once per top level call
+     */
+    public void testCollectionClone() {
+        PersistentBeanManager beanManager = PersistentBeanManager.getInstance();
+        PersistenceUtil previousPersistenceUtil = beanManager.getPersistenceUtil();
+        ProxyStore previousProxyStore = beanManager.getProxyStore();
+        try {
+            beanManager.setPersistenceUtil(createPersistenceUtil());
+            beanManager.setProxyStore(createProxyStore());
+
+            List<Object> list = new ArrayList<>();
+            for (int index = 0; index < 5000; index++) {
+                list.add(new Item(index));
+            }
+            List<Object> items = new ArrayList<>();
+            items.add(list);
+
+            assertEquals(items, beanManager.clone(items));
+            assertEquals(Integer.valueOf(1), calls.get("flushIfNeeded"));
+            assertEquals(Integer.valueOf(1), calls.get("closeCurrentSession"));
+            assertEquals(Integer.valueOf(1), calls.get("cleanUp"));
+            assertNull(CloneContext.current());
+
+            calls.clear();
+            assertEquals(items, beanManager.merge(items));
+            assertEquals(Integer.valueOf(1), calls.get("closeCurrentSession"));
+            assertEquals(Integer.valueOf(1), calls.get("cleanUp"));
+            assertNull(CloneContext.current());
+        } finally {
+            beanManager.setPersistenceUtil(previousPersistenceUtil);
+            beanManager.setProxyStore(previousProxyStore);
+        }
+    }
+
+    /**
+     * Test parallel clone of a large collection : order, shared references and top level calls
+     */
+    public void testParallelCollectionClone() {
+        PersistentBeanManager beanManager = PersistentBeanManager.getInstance();
+        PersistenceUtil previousPersistenceUtil = beanManager.getPersistenceUtil();
+        ProxyStore previousProxyStore = beanManager.getProxyStore();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            beanManager.setPersistenceUtil(createPersistenceUtil());
+            beanManager.setProxyStore(createProxyStore());
+            beanManager.setParallelCloneThreshold(1000);
+            beanManager.setParallelClonePool(pool);
+
+            // Persistent beans, sharing a parent and repeated in several partitions
+            List<Object> list = new ArrayList<>();
+            Node parent = new Node(-1, null);
+            Node shared = new Node(-2, parent);
+            for (int index = 0; index < 20000; index++) {
+                list.add((index % 1000 == 0) ? shared : new Node(index, parent));
+            }
+
+            List<?> clone = (List<?>) beanManager.clone(list);
+            assertEquals(list.size(), clone.size());
+            Node cloneParent = ((Node) clone.get(1)).getParent();
+            assertNotSame(parent, cloneParent);
+            for (int index = 0; index < list.size(); index++) {
+                Node node = (Node) clone.get(index);
+                assertNotSame(list.get(index), node);
+                assertEquals(((Node) list.get(index)).getValue(), node.getValue());
+                assertSame(cloneParent, node.getParent());
+            }
+            assertSame(clone.get(0), clone.get(19000));
+            assertTrue(threads.size() > 1);
+            assertEquals(Integer.valueOf(1), calls.get("flushIfNeeded"));
+            assertNull(CloneContext.current());
+        } finally {
+            beanManager.setParallelCloneThreshold(0);
+            beanManager.setParallelClonePool(null);
+            beanManager.setPersistenceUtil(previousPersistenceUtil);
+            beanManager.setProxyStore(previousProxyStore);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Not persistent list item
+     */
+    public static class Item {
+
+        private final int value;
+
+        public Item(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof Item) && (((Item) other).value == value);
+        }
+    }
+
+    /**
+     * Persistent bean (for the counting persistence util)
+     */
+    public static class Node {
+
+        private int value;
+
+        private Node parent;
+
+        public Node() {}
+
+        public Node(int value, Node parent) {
+            this.value = value;
+            this.parent = parent;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+
+        public void setParent(Node parent) {
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Count the call
+     */
+    private synchronized void count(String name) {
+        Integer count = calls.get(name);
+        calls.put(name, Integer.valueOf((count == null) ? 1 : count.intValue() + 1));
+    }
+
+    /**
+     * @return a counting persistence util, for which only nodes are persistent
+     */
+    private PersistenceUtil createPersistenceUtil() {
+        return (PersistenceUtil) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PersistenceUtil.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                count(method.getName());
+                threads.add(Thread.currentThread());
+                Class<?> returnType = method.getReturnType();
+                if (returnType == Boolean.TYPE) {
+                    return Boolean.valueOf((args != null) && ((args[0] instanceof Node) || (args[0] == Node.class)));
+                } else if (returnType == PersistenceStatus.class) {
+                    return PersistenceStatus.NOT_PERSISTENT;
+                } else if ((returnType == Class.class) && (args != null) && (args[0] instanceof Class)) {
+                    return args[0];
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @return a counting proxy store
+     */
+    private ProxyStore createProxyStore() {
+        return new ProxyStore() {
+            @Override
+            public void storeProxyInformations(Object cloneBean, Object persistentBean, String property, Map<String, Serializable> proxyInformations) {}
+
+            @Override
+            public void removeProxyInformations(Object object, String property) {}
+
+            @Override
+            public Map<String, Serializable> getProxyInformations(Object pojo, String property) {
+                return null;
+            }
+
+            @Override
+            public void cleanUp() {
+                count("cleanUp");
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package net.sf.gilead.core;
+
+import junit.framework.TestCase;
+import net.sf.gilead.exception.ComponentTypeException;
+import net.sf.gilead.exception.NotPersistentObjectException;
+import net.sf.gilead.exception.TransientObjectException;
+
+/**
+ * Test case for persistence status
+ *
+ * @author bruno.marchesson
+ */
+public class PersistenceStatusTest extends TestCase {
+
+    /**
+     * Test persistent status
+     */
+    public void testPersistent() {
+        PersistenceStatus status = PersistenceStatus.persistent(Long.valueOf(12));
+
+        assertTrue(status.isPersistent());
+        assertEquals(PersistenceStatus.State.PERSISTENT, status.getState());
+        assertEquals(Long.valueOf(12), status.getId());
+        assertEquals(Long.valueOf(12), status.getIdOrThrow(this));
+    }
+
+    /**
+     * Test exception mapping of not persistent states
+     */
+    public void testNotPersistent() {
+        assertFalse(PersistenceStatus.TRANSIENT.isPersistent());
+        assertNull(PersistenceStatus.TRANSIENT.getId());
+
+        try {
+            PersistenceStatus.COMPONENT.getIdOrThrow(this);
+            fail("Component exception expected");
+        } catch (ComponentTypeException e) {
+            // expected
+        }
+
+        try {
+            PersistenceStatus.TRANSIENT.getIdOrThrow(this);
+            fail("Transient exception expected");
+        } catch (ComponentTypeException e) {
+            fail("Transient exception expected");
+        } catch (TransientObjectException e) {
+            // expected
+        }
+
+        try {
+            PersistenceStatus.NOT_PERSISTENT.getIdOrThrow(this);
+            fail("Not persistent exception expected");
+        } catch (NotPersistentObjectException e) {
+            // expected
+        }
+    }
+}
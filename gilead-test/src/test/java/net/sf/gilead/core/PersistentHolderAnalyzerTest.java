@@ -0,0 +1,69 @@
+package net.sf.gilead.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the persistent holder analysis
+ *
+ * @author bruno.marchesson
+ */
+public class PersistentHolderAnalyzerTest extends TestCase {
+
+    /**
+     * Test that a collection of basic elements holding a persistent collection is detected (element collection)
+     */
+    public void testElementCollection() {
+        PersistentHolderAnalyzer analyzer = new PersistentHolderAnalyzer(createPersistenceUtil(), null);
+
+        Holder holder = new Holder();
+        holder.setNames(new ArrayList<String>());
+        assertFalse(analyzer.holdPersistentObject(holder));
+
+        holder.setNames(new PersistentBag());
+        assertTrue(analyzer.holdPersistentObject(holder));
+        assertTrue(analyzer.holdPersistentObject(holder, new ArrayList<Object>()));
+    }
+
+    /**
+     * Wrapper holding an element collection
+     */
+    public static class Holder {
+        private List<String> names;
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        public void setNames(List<String> names) {
+            this.names = names;
+        }
+    }
+
+    /**
+     * Fake persistent collection
+     */
+    public static class PersistentBag extends ArrayList<String> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * @return a persistence util for which only PersistentBag is persistent
+     */
+    private PersistenceUtil createPersistenceUtil() {
+        return (PersistenceUtil) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PersistenceUtil.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getReturnType() == Boolean.TYPE) {
+                    return Boolean.valueOf("isPersistentCollection".equals(method.getName()) && (args[0] == PersistentBag.class));
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package net.sf.gilead.core.beanlib.clone;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.beanlib.ClassMapper;
+import net.sf.gilead.core.beanlib.clone.ClonePlan.PropertyPlan;
+
+/**
+ * Test case for clone plan compilation
+ *
+ * @author bruno.marchesson
+ */
+public class ClonePlanCompilerTest extends TestCase {
+
+    /**
+     * Test plan setters and readers
+     */
+    public void testPlanProperties() throws Exception {
+        ClonePlanCompiler compiler = new ClonePlanCompiler(null);
+        ClonePlan plan = compiler.getPlan(Child.class);
+
+        // Same plan instance for further calls
+        assertSame(plan, compiler.getPlan(Child.class));
+
+        // Private and inherited setters
+        assertEquals(4, plan.getSetters().length);
+
+        // Readers
+        assertEquals("getName", plan.getReader("name").getName());
+        assertEquals("isActive", plan.getReader("active").getName());
+        assertEquals("getChildren", plan.getReader("Children").getName());
+        assertNull(plan.getReader("unknown"));
+
+        // Lazy handling
+        assertFalse(plan.getProperty("name").isLazyCandidate());
+        assertFalse(plan.getProperty("active").isLazyCandidate());
+        assertTrue(plan.getProperty("children").isLazyCandidate());
+        assertTrue(plan.getProperty("proxyInformations").isIgnored());
+
+        // Private reader is accessible
+        Child child = new Child();
+        child.setName("child");
+        assertEquals("child", plan.getProperty("name").readValue(child));
+    }
+
+    /**
+     * Test class mapper indirection cache
+     */
+    public void testTargetClass() {
+        final Map<Class<?>, Integer> calls = new HashMap<>();
+        ClassMapper classMapper = new ClassMapper() {
+            @Override
+            public Class<?> getTargetClass(Class<?> sourceClass) {
+                Integer count = calls.get(sourceClass);
+                calls.put(sourceClass, (count == null) ? 1 : count + 1);
+                return (sourceClass == Child.class) ? Parent.class : null;
+            }
+
+            @Override
+            public Class<?> getSourceClass(Class<?> targetClass) {
+                return null;
+            }
+        };
+
+        ClonePlanCompiler compiler = new ClonePlanCompiler(classMapper);
+        assertEquals(Parent.class, compiler.getTargetClass(Child.class));
+        assertEquals(Parent.class, compiler.getTargetClass(Child.class));
+        assertNull(compiler.getTargetClass(Parent.class));
+        assertNull(compiler.getTargetClass(Parent.class));
+
+        assertEquals(Integer.valueOf(1), calls.get(Child.class));
+        assertEquals(Integer.valueOf(1), calls.get(Parent.class));
+    }
+
+    /**
+     * Test parent bean
+     */
+    public static class Parent {
+        private boolean active;
+
+        private Map<String, Object> proxyInformations;
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public Map<String, Object> getProxyInformations() {
+            return proxyInformations;
+        }
+
+        public void setProxyInformations(Map<String, Object> proxyInformations) {
+            this.proxyInformations = proxyInformations;
+        }
+    }
+
+    /**
+     * Test child bean
+     */
+    public static class Child extends Parent {
+        private String name;
+
+        private Set<Child> children;
+
+        private String getName() {
+            return name;
+        }
+
+        private void setName(String name) {
+            this.name = name;
+        }
+
+        public Set<Child> getChildren() {
+            return children;
+        }
+
+        public void setChildren(Set<Child> children) {
+            this.children = children;
+        }
+
+        public static void setIgnored(Method method) {
+            // static setter : must be ignored
+        }
+    }
+}
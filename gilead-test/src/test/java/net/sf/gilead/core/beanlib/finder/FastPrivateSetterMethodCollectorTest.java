@@ -0,0 +1,65 @@
+package net.sf.gilead.core.beanlib.finder;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the setter method collector cache
+ *
+ * @author bruno.marchesson
+ */
+public class FastPrivateSetterMethodCollectorTest extends TestCase {
+
+    /**
+     * Test that inherited setters are collected and cached by bean class
+     */
+    public void testCollect() {
+        FastPrivateSetterMethodCollector collector = FastPrivateSetterMethodCollector.getSharedInstance();
+
+        Method[] setters = collector.collect(new Child());
+        Set<String> names = new HashSet<>();
+        for (Method setter : setters) {
+            names.add(setter.getName());
+        }
+        assertTrue(names.contains("setName"));
+        assertTrue(names.contains("setAge"));
+
+        assertSame(setters, collector.collect(Child.class));
+        assertSame(setters, collector.collect(new Child()));
+        assertNotSame(setters, collector.collect(Parent.class));
+        assertEquals(1, collector.collect(Parent.class).length);
+    }
+
+    /**
+     * Parent bean
+     */
+    public static class Parent {
+        private String name;
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Child bean
+     */
+    public static class Child extends Parent {
+        private int age;
+
+        private void setAge(int age) {
+            this.age = age;
+        }
+
+        public int getAge() {
+            return age;
+        }
+    }
+}
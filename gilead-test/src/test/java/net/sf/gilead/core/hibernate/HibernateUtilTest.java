@@ -1,6 +1,17 @@
 package net.sf.gilead.core.hibernate;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
 import org.hibernate.SessionFactory;
+import org.hibernate.collection.internal.PersistentMap;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 
 import junit.framework.TestCase;
 import net.sf.gilead.core.TestHelper;
@@ -119,4 +130,86 @@ public class HibernateUtilTest extends TestCase {
         assertTrue(HibernateUtil.getInstance().isInitialized(loadedMessage.getAuthor()));
 
     }
+
+    /**
+     * Test that collection members deleted on client side are reloaded the same way with and without batch reload
+     */
+    @SuppressWarnings("unchecked")
+    public void testDeletedMembersReload() {
+        // Gather all the messages in the message list of the first user
+        List<IUser> userList = DAOFactory.getUserDAO().loadAllUserAndMessages();
+        IUser user = userList.get(0);
+        Map<Serializable, IMessage> messages = new HashMap<>();
+        for (IUser other : userList) {
+            for (IMessage message : other.getMessageList()) {
+                messages.put(message.getId(), message);
+            }
+        }
+        assertTrue(messages.size() >= 3);
+        user.getMessageList().addAll(messages.values());
+        Map<String, Serializable> proxyInformations = HibernateUtil.getInstance().serializePersistentCollection(user.getMessageList());
+
+        // Two members are deleted on client side
+        List<IMessage> remaining = new ArrayList<>(user.getMessageList());
+        List<IMessage> deleted = new ArrayList<>(remaining.subList(0, 2));
+        remaining.removeAll(deleted);
+
+        HibernateUtil hibernateUtil = HibernateUtil.getInstance();
+        boolean batchReload = hibernateUtil.isBatchReload();
+        try {
+            Map<Serializable, String> unbatchedSnapshot = null;
+            for (boolean batch : new boolean[] { false, true }) {
+                hibernateUtil.setBatchReload(batch);
+                hibernateUtil.openSession();
+                try {
+                    Collection<IMessage> collection = (Collection<IMessage>) hibernateUtil.createPersistentCollection(user, proxyInformations, new LinkedHashSet<>(remaining));
+
+                    // Same members, in the same order than the client collection
+                    assertEquals(remaining, new ArrayList<>(collection));
+
+                    // The snapshot contains the remaining and the reloaded members
+                    Map<Serializable, String> snapshot = new HashMap<>();
+                    for (Object member : ((Map<Object, Object>) ((PersistentCollection) collection).getStoredSnapshot()).keySet()) {
+                        IMessage message = (IMessage) member;
+                        snapshot.put(hibernateUtil.getId(message), message.getMessage());
+                    }
+                    assertEquals(messages.keySet(), snapshot.keySet());
+                    for (IMessage message : deleted) {
+                        assertEquals(message.getMessage(), snapshot.get(message.getId()));
+                    }
+                    if (unbatchedSnapshot != null) {
+                        assertEquals(unbatchedSnapshot, snapshot);
+                    }
+                    unbatchedSnapshot = snapshot;
+                } finally {
+                    hibernateUtil.closeCurrentSession();
+                }
+            }
+        } finally {
+            hibernateUtil.setBatchReload(batchReload);
+        }
+    }
+
+    /**
+     * Test that the original map keeps its key and value pairs with null keys and values
+     */
+    public void testOriginalMapWithNulls() {
+        Map<String, String> map = new HashMap<>();
+        map.put(null, "first");
+        map.put("second", null);
+        map.put("third", "fourth");
+        map.put("fifth", "sixth");
+
+        HibernateUtil hibernateUtil = HibernateUtil.getInstance();
+        Map<String, Serializable> proxyInformations = hibernateUtil.serializePersistentMap(new PersistentMap((SharedSessionContractImplementor) null, map));
+
+        // Unchanged map
+        assertEquals(map, hibernateUtil.createOriginalMap(proxyInformations, map));
+
+        // Entries removed on client side are restored with their own values
+        Map<String, String> updated = new HashMap<>(map);
+        updated.remove(null);
+        updated.remove("third");
+        assertEquals(map, hibernateUtil.createOriginalMap(proxyInformations, updated));
+    }
 }
@@ -0,0 +1,144 @@
+package net.sf.gilead.core.serialization;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.gilead.exception.ConvertorException;
+import net.sf.gilead.pojo.base.ILightEntity;
+
+/**
+ * Test case for compact proxy serialization
+ *
+ * @author bruno.marchesson
+ */
+public class CompactProxySerializationTest extends TestCase {
+
+    /**
+     * Test persistent collection proxy informations round trip
+     */
+    @SuppressWarnings("unchecked")
+    public void testCollectionInformations() {
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("class", "org.hibernate.collection.internal.PersistentSet");
+        proxyInformations.put("underlying", "java.util.HashSet");
+        proxyInformations.put("role", "net.sf.gilead.test.domain.User.messageList");
+        proxyInformations.put("key", Integer.valueOf(-3));
+        proxyInformations.put(ILightEntity.INITIALISED, Boolean.TRUE);
+        proxyInformations.put("custom", Long.valueOf(Long.MAX_VALUE));
+
+        ArrayList<SerializableId> idList = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            idList.add(createId("net.sf.gilead.test.domain.Message", Long.valueOf(id), null));
+        }
+        idList.add(createId("java.lang.String", null, "value"));
+        idList.add(null);
+        proxyInformations.put("idList", idList);
+
+        CompactProxySerialization serialization = new CompactProxySerialization();
+        String serialized = (String) serialization.serialize(proxyInformations);
+        Map<String, Serializable> result = (Map<String, Serializable>) serialization.unserialize(serialized);
+
+        assertEquals(proxyInformations.size(), result.size());
+        assertEquals(proxyInformations.get("role"), result.get("role"));
+        assertEquals(Integer.valueOf(-3), result.get("key"));
+        assertEquals(Boolean.TRUE, result.get(ILightEntity.INITIALISED));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), result.get("custom"));
+
+        ArrayList<SerializableId> resultList = (ArrayList<SerializableId>) result.get("idList");
+        assertEquals(idList.size(), resultList.size());
+        for (int index = 0; index < idList.size() - 1; index++) {
+            assertEquals(idList.get(index), resultList.get(index));
+        }
+        assertNull(resultList.get(idList.size() - 1));
+
+        // Must be smaller than the default serialization
+        String defaultSerialized = (String) new DefaultProxySerialization().serialize(proxyInformations);
+        assertTrue(serialized.length() < defaultSerialized.length());
+    }
+
+    /**
+     * Test exotic values and default serialization compatibility
+     */
+    public void testFallback() {
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("id", new BigDecimal("12.5"));
+
+        CompactProxySerialization serialization = new CompactProxySerialization();
+        assertEquals(proxyInformations, serialization.unserialize(serialization.serialize(proxyInformations)));
+
+        // Not a proxy informations map
+        assertEquals("text", serialization.unserialize(serialization.serialize("text")));
+
+        // Data serialized by the default serialization
+        Object defaultSerialized = new DefaultProxySerialization().serialize(proxyInformations);
+        assertEquals(proxyInformations, serialization.unserialize(defaultSerialized));
+    }
+
+    /**
+     * Test that corrupt data is reported as a conversion error
+     */
+    public void testCorruptData() {
+        CompactProxySerialization serialization = new CompactProxySerialization();
+
+        // Size over the remaining bytes, negative size, unknown key token, unknown string reference, huge string length
+        checkCorrupt(serialization, new byte[] { 1, 5 });
+        checkCorrupt(serialization, new byte[] { 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+        checkCorrupt(serialization, new byte[] { 1, 1, 50, 0 });
+        checkCorrupt(serialization, new byte[] { 1, 1, 0, 7, 0 });
+        checkCorrupt(serialization, new byte[] { 1, 1, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+
+        // Id list size over the remaining bytes
+        checkCorrupt(serialization, new byte[] { 1, 1, 6, 7, 100 });
+
+        // Truncated and altered data
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("role", "net.sf.gilead.test.domain.User.messageList");
+        proxyInformations.put("class", "net.sf.gilead.test.domain.User.messageList");
+        ArrayList<SerializableId> idList = new ArrayList<>();
+        idList.add(createId("net.sf.gilead.test.domain.Message", Long.valueOf(1), null));
+        proxyInformations.put("idList", idList);
+        byte[] bytes = serialization.encode(proxyInformations);
+        for (int length = 2; length < bytes.length; length++) {
+            checkCorrupt(serialization, Arrays.copyOf(bytes, length));
+        }
+        Random random = new Random(0);
+        for (int index = 0; index < 1000; index++) {
+            byte[] altered = bytes.clone();
+            altered[1 + random.nextInt(altered.length - 1)] = (byte) random.nextInt();
+            try {
+                serialization.decode(altered);
+            } catch (ConvertorException e) {
+                // Expected (the altered byte can also keep data valid)
+            }
+        }
+    }
+
+    /**
+     * Check that the decoding of the argument data fails with a conversion error
+     */
+    private static void checkCorrupt(CompactProxySerialization serialization, byte[] bytes) {
+        try {
+            serialization.decode(bytes);
+            fail("Corrupt data decoded : " + Arrays.toString(bytes));
+        } catch (ConvertorException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Create a serializable id
+     */
+    private static SerializableId createId(String entityName, Serializable id, String value) {
+        SerializableId sid = new SerializableId();
+        sid.setEntityName(entityName);
+        sid.setId(id);
+        sid.setValue(value);
+        return sid;
+    }
+}
@@ -0,0 +1,198 @@
+package net.sf.gilead.core.serialization;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+
+import junit.framework.TestCase;
+import net.sf.gilead.pojo.gwt.CompositeIdParameter;
+import net.sf.gilead.pojo.gwt.GwtSerializableId;
+import net.sf.gilead.pojo.gwt.GwtSerializableIdList;
+import net.sf.gilead.pojo.gwt.IGwtSerializableParameter;
+import net.sf.gilead.pojo.gwt.SerializedParameter;
+import net.sf.gilead.pojo.gwt.basic.EnumParameter;
+import net.sf.gilead.pojo.gwt.basic.LongParameter;
+import net.sf.gilead.pojo.gwt.collection.ListParameter;
+import net.sf.gilead.pojo.gwt.collection.LongListParameter;
+import net.sf.gilead.pojo.gwt.collection.MapParameter;
+
+/**
+ * Test case for GWT proxy serialization type dispatch
+ *
+ * @author bruno.marchesson
+ */
+public class GwtProxySerializationTest extends TestCase {
+
+    /**
+     * Test that unsupported types are sent to the string serializer, element by element
+     */
+    @SuppressWarnings("unchecked")
+    public void testUnsupportedTypes() {
+        GwtProxySerialization serialization = new GwtProxySerialization();
+
+        ArrayList<Serializable> idList = new ArrayList<>();
+        idList.add(Long.valueOf(1));
+        idList.add(Locale.FRANCE);
+        idList.add(createId(Locale.GERMANY));
+        idList.add((Serializable) Arrays.asList("a", "b"));
+
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("idList", idList);
+
+        IGwtSerializableParameter parameter = (IGwtSerializableParameter) serialization.serialize(proxyInformations);
+        assertTrue(parameter instanceof MapParameter);
+
+        ListParameter listParameter = (ListParameter) serialization.serialize(idList);
+        List<IGwtSerializableParameter> gwtIdList = (List<IGwtSerializableParameter>) listParameter.getUnderlyingValue();
+        assertTrue(gwtIdList.get(0) instanceof LongParameter);
+        assertTrue(gwtIdList.get(1) instanceof SerializedParameter);
+        assertTrue(gwtIdList.get(2) instanceof GwtSerializableId);
+        assertTrue(((GwtSerializableId) gwtIdList.get(2)).getId() instanceof SerializedParameter);
+        assertTrue(gwtIdList.get(3) instanceof SerializedParameter);
+
+        // Round trip
+        assertEquals(proxyInformations, serialization.unserialize(parameter));
+    }
+
+    /**
+     * Test native conversion of common identifier types
+     */
+    public void testIdentifierTypes() throws Exception {
+        GwtProxySerialization serialization = new GwtProxySerialization() {
+            @Override
+            protected boolean isCompositeId(Class<?> type) {
+                return (type == CompositeKey.class) || super.isCompositeId(type);
+            }
+        };
+
+        UUID uuid = UUID.randomUUID();
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        timestamp.setNanos(123456789);
+        CompositeKey compositeKey = new CompositeKey();
+        compositeKey.code = "FR";
+        compositeKey.number = 42;
+        compositeKey.uuid = uuid;
+
+        ArrayList<Serializable> idList = new ArrayList<>();
+        idList.add(new BigDecimal("12.50"));
+        idList.add(new BigInteger("123456789012345678901234567890"));
+        idList.add(uuid);
+        idList.add(timestamp);
+        idList.add(Thread.State.RUNNABLE);
+        idList.add(createId(compositeKey));
+
+        ListParameter parameter = (ListParameter) serialization.serialize(idList);
+        for (Object item : (List<?>) parameter.getUnderlyingValue()) {
+            assertFalse(item instanceof SerializedParameter);
+        }
+        assertTrue(((GwtSerializableId) ((List<?>) parameter.getUnderlyingValue()).get(5)).getId() instanceof CompositeIdParameter);
+
+        // Round trip
+        assertEquals(idList, serialization.unserialize(parameter));
+    }
+
+    /**
+     * Test that client supplied classes are checked before instantiation
+     */
+    public void testClientClassValidation() {
+        GwtProxySerialization serialization = new GwtProxySerialization();
+        try {
+            serialization.convertFromGwt(new EnumParameter("java.lang.String", "x"));
+            fail("Not an enum class");
+        } catch (SerializationException ex) {
+            // Expected
+        }
+        try {
+            serialization.convertFromGwt(new EnumParameter(Thread.State.class.getName(), "UNKNOWN"));
+            fail("Unknown enum constant");
+        } catch (SerializationException ex) {
+            // Expected
+        }
+        try {
+            serialization.convertFromGwt(new CompositeIdParameter(CompositeKey.class.getName(), new ArrayList<IGwtSerializableParameter>()));
+            fail("Not a composite id class");
+        } catch (SerializationException ex) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test empty collections, ordered sets and primitive id lists
+     */
+    public void testCollections() throws Exception {
+        GwtProxySerialization serialization = new GwtProxySerialization();
+
+        ArrayList<SerializableId> idList = new ArrayList<>();
+        ArrayList<Long> longList = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            SerializableId serializableId = createId(Long.valueOf(id));
+            idList.add(serializableId);
+            longList.add(Long.valueOf(id));
+        }
+        assertTrue(serialization.serialize(idList) instanceof GwtSerializableIdList);
+        assertEquals(idList, serialization.unserialize(serialization.serialize(idList)));
+        assertTrue(serialization.serialize(longList) instanceof LongListParameter);
+        assertEquals(longList, serialization.unserialize(serialization.serialize(longList)));
+
+        // Mixed list
+        idList.add(createId(Locale.FRANCE));
+        assertTrue(serialization.serialize(idList) instanceof ListParameter);
+        assertEquals(idList, serialization.unserialize(serialization.serialize(idList)));
+
+        // Empty collections
+        assertEquals(new ArrayList<Serializable>(), serialization.unserialize(serialization.serialize(new ArrayList<Serializable>())));
+        assertEquals(new HashMap<Serializable, Serializable>(), serialization.unserialize(serialization.serialize(new HashMap<Serializable, Serializable>())));
+
+        // Ordered set
+        LinkedHashSet<String> set = new LinkedHashSet<>(Arrays.asList("z", "b", "y", "a", "x"));
+        assertEquals(new ArrayList<>(set), new ArrayList<>((LinkedHashSet<?>) serialization.unserialize(serialization.serialize(set))));
+    }
+
+    /**
+     * Composite key
+     */
+    private static class CompositeKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String code;
+
+        private int number;
+
+        private UUID uuid;
+
+        @Override
+        public int hashCode() {
+            return code.hashCode() + number + uuid.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof CompositeKey == false) {
+                return false;
+            }
+            CompositeKey key = (CompositeKey) other;
+            return code.equals(key.code) && (number == key.number) && uuid.equals(key.uuid);
+        }
+    }
+
+    /**
+     * Create a serializable id
+     */
+    private static SerializableId createId(Serializable id) {
+        SerializableId serializableId = new SerializableId();
+        serializableId.setEntityName("net.sf.gilead.test.domain.Message");
+        serializableId.setId(id);
+        return serializableId;
+    }
+}
@@ -0,0 +1,54 @@
+package net.sf.gilead.core.store;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import net.sf.gilead.core.serialization.SerializableId;
+
+/**
+ * Static helper class for proxy store tests
+ *
+ * @author bruno.marchesson
+ */
+public class ProxyStoreTestHelper {
+
+    /**
+     * The collection role of the proxy informations
+     */
+    public final static String ROLE = "net.sf.gilead.test.domain.User.messageList";
+
+    /**
+     * Create collection proxy informations
+     *
+     * @param role the collection role
+     */
+    public static HashMap<String, Serializable> createProxyInformations(String role) {
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("class", "org.hibernate.collection.internal.PersistentSet");
+        proxyInformations.put("role", role);
+        proxyInformations.put("initialized", Boolean.TRUE);
+        return proxyInformations;
+    }
+
+    /**
+     * Create loaded collection proxy informations, with the collection key and the id of its only element
+     *
+     * @param id the collection key and element id
+     */
+    public static HashMap<String, Serializable> createProxyInformations(long id) {
+        HashMap<String, Serializable> proxyInformations = new HashMap<>();
+        proxyInformations.put("class", "org.hibernate.collection.internal.PersistentSet");
+        proxyInformations.put("underlying", "java.util.HashSet");
+        proxyInformations.put("role", ROLE);
+        proxyInformations.put("key", Long.valueOf(id));
+
+        ArrayList<SerializableId> idList = new ArrayList<>();
+        SerializableId sid = new SerializableId();
+        sid.setEntityName("net.sf.gilead.test.domain.Message");
+        sid.setId(Long.valueOf(id));
+        idList.add(sid);
+        proxyInformations.put("idList", idList);
+        return proxyInformations;
+    }
+}
@@ -0,0 +1,187 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.CloneContext;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Test case for the directory backed batch proxy store
+ *
+ * @author bruno.marchesson
+ */
+public class FileSystemProxyStoreTest extends TestCase {
+
+    /**
+     * The store directory
+     */
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("gilead", ".store");
+        directory.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    /**
+     * Test operation buffering and sharing between nodes
+     */
+    public void testSharedStore() throws Exception {
+        FileSystemProxyStore firstNode = new FileSystemProxyStore(directory);
+        FileSystemProxyStore secondNode = new FileSystemProxyStore(directory);
+        ProxyStoreKey key = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(1), "messageList");
+
+        CloneContext previous = new CloneContext().bind();
+        try {
+            // Buffered in the operation until clean up
+            firstNode.store(key, ProxyStoreTestHelper.createProxyInformations("messageList"));
+            assertNotNull(firstNode.get(key));
+            assertNull(secondNode.get(key));
+
+            firstNode.cleanUp();
+            assertEquals("messageList", secondNode.get(key).get("role"));
+
+            secondNode.delete(key);
+            secondNode.cleanUp();
+            assertNull(firstNode.get(key));
+        } finally {
+            CloneContext.restore(previous);
+        }
+
+        // Sent at once outside of an operation
+        firstNode.store(key, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        assertNotNull(secondNode.get(key));
+    }
+
+    /**
+     * Test batch and asynchronous operations
+     */
+    public void testBatch() throws Exception {
+        FileSystemProxyStore store = new FileSystemProxyStore(directory);
+        ProxyStoreKey first = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey second = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(1), "groupList");
+        ProxyStoreKey other = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(2), "messageList");
+
+        Map<ProxyStoreKey, Map<String, Serializable>> proxyInformations = new HashMap<>();
+        proxyInformations.put(first, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        proxyInformations.put(second, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        proxyInformations.put(other, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        store.storeAllAsync(proxyInformations).get();
+        assertEquals(3, store.getAllAsync(Arrays.asList(first, second, other)).get().size());
+
+        // Delete all the proxy informations of the first entity
+        store.deleteEntity(FileSystemProxyStoreTest.class, Long.valueOf(1));
+        Map<ProxyStoreKey, Map<String, Serializable>> result = store.getAll(Arrays.asList(first, second, other));
+        assertEquals(1, result.size());
+        assertNotNull(result.get(other));
+    }
+
+    /**
+     * Test entity deletion against ids with the same string prefix
+     */
+    public void testDeleteEntity() throws Exception {
+        FileSystemProxyStore store = new FileSystemProxyStore(directory);
+        ProxyStoreKey first = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey tenth = new ProxyStoreKey(FileSystemProxyStoreTest.class, Long.valueOf(10), "messageList");
+        store.store(first, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        store.store(tenth, ProxyStoreTestHelper.createProxyInformations("messageList"));
+
+        store.deleteEntityAsync(FileSystemProxyStoreTest.class, Long.valueOf(1)).get();
+        assertNull(store.get(first));
+        assertNotNull(store.get(tenth));
+
+        // Prefix deletion reads the key stored in the files
+        store.deleteByPrefix(FileSystemProxyStoreTest.class.getName() + "@");
+        assertNull(store.get(tenth));
+    }
+
+    /**
+     * Test file names of long keys and ids without a stable string form
+     */
+    public void testFileName() throws Exception {
+        FileSystemProxyStore store = new FileSystemProxyStore(directory);
+        StringBuilder property = new StringBuilder();
+        for (int index = 0; index < 300; index++) {
+            property.append('p');
+        }
+        ProxyStoreKey key = new ProxyStoreKey(FileSystemProxyStoreTest.class, new CompositeId(1, "first"),
+                                              property.toString());
+        store.store(key, ProxyStoreTestHelper.createProxyInformations("messageList"));
+
+        // Same entity, another id instance
+        ProxyStoreKey copy = new ProxyStoreKey(FileSystemProxyStoreTest.class, new CompositeId(1, "first"),
+                                               property.toString());
+        assertEquals("messageList", store.get(copy).get("role"));
+
+        store.deleteEntity(FileSystemProxyStoreTest.class, new CompositeId(1, "first"));
+        assertNull(store.get(copy));
+        assertEquals(0, directory.list().length);
+    }
+
+    /**
+     * Test that I/O errors are reported with their cause
+     */
+    public void testErrorCause() throws Exception {
+        assertTrue(directory.createNewFile());
+        try {
+            new FileSystemProxyStore(directory);
+            fail("Store created on a file");
+        } catch (ProxyStoreException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+    /**
+     * Recursively delete the argument file
+     */
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Composite id, whose string form is the (unstable) identity one
+     */
+    private static class CompositeId implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int number;
+
+        private final String name;
+
+        CompositeId(int number, String name) {
+            this.number = number;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof CompositeId == false) {
+                return false;
+            }
+            CompositeId other = (CompositeId) obj;
+            return (number == other.number) && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * number + name.hashCode();
+        }
+    }
+}
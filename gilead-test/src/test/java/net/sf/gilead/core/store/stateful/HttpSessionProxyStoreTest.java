@@ -0,0 +1,109 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpSession;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+
+/**
+ * Test case for the bulk mode of the HTTP session proxy store
+ *
+ * @author bruno.marchesson
+ */
+public class HttpSessionProxyStoreTest extends TestCase {
+
+    @Override
+    protected void tearDown() throws Exception {
+        HttpSessionProxyStore.setHttpSession(null);
+    }
+
+    /**
+     * Test that only deltas are set on the session, and that a replicated session gets them back
+     */
+    public void testDeltaReplication() throws Exception {
+        HttpSessionProxyStore store = new HttpSessionProxyStore();
+        store.setUseBulkAttribute(true);
+        store.setMaxDeltaCount(2);
+        ProxyStoreKey first = new ProxyStoreKey(HttpSessionProxyStoreTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey second = new ProxyStoreKey(HttpSessionProxyStoreTest.class, Long.valueOf(2), "messageList");
+        ProxyStoreKey third = new ProxyStoreKey(HttpSessionProxyStoreTest.class, Long.valueOf(3), "messageList");
+
+        // First request : the container is set once
+        Map<String, Object> attributes = new HashMap<>();
+        HttpSessionProxyStore.setHttpSession(createSession(attributes));
+        store.store(first, ProxyStoreTestHelper.createProxyInformations("first"));
+        store.cleanUp();
+        Object container = attributes.get(HttpSessionProxyStore.CONTAINER_ATTRIBUTE);
+        assertNotNull(container);
+        assertNotNull(attributes.get(HttpSessionProxyStore.DELTA_ATTRIBUTE_PREFIX + 1));
+
+        // Second request : only a delta is set
+        Map<String, Object> replicated = copy(attributes);
+        store.store(second, ProxyStoreTestHelper.createProxyInformations("second"));
+        store.delete(first);
+        store.cleanUp();
+        assertNotNull(attributes.get(HttpSessionProxyStore.DELTA_ATTRIBUTE_PREFIX + 2));
+        replicated.put(HttpSessionProxyStore.DELTA_ATTRIBUTE_PREFIX + 2, copy(attributes).get(HttpSessionProxyStore.DELTA_ATTRIBUTE_PREFIX + 2));
+
+        // Failover : the replicated container applies the deltas
+        HttpSessionProxyStore.setHttpSession(createSession(replicated));
+        assertNull(store.get(first));
+        assertEquals("second", store.get(second).get("role"));
+
+        // Third request : too many deltas, the container is set again as a whole
+        store.store(third, ProxyStoreTestHelper.createProxyInformations("third"));
+        store.cleanUp();
+        for (String name : replicated.keySet()) {
+            assertFalse(name.startsWith(HttpSessionProxyStore.DELTA_ATTRIBUTE_PREFIX));
+        }
+        HttpSessionProxyStore.setHttpSession(createSession(copy(replicated)));
+        assertEquals("second", store.get(second).get("role"));
+        assertEquals("third", store.get(third).get("role"));
+    }
+
+    /**
+     * Create a session backed by the argument attributes
+     */
+    private static HttpSession createSession(final Map<String, Object> attributes) {
+        return (HttpSession) Proxy.newProxyInstance(HttpSession.class.getClassLoader(), new Class<?>[] { HttpSession.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getAttribute".equals(method.getName())) {
+                    return attributes.get(args[0]);
+                } else if ("setAttribute".equals(method.getName())) {
+                    attributes.put((String) args[0], args[1]);
+                } else if ("removeAttribute".equals(method.getName())) {
+                    attributes.remove(args[0]);
+                } else if ("getAttributeNames".equals(method.getName())) {
+                    return Collections.enumeration(new HashMap<>(attributes).keySet());
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Serialization copy of session attributes
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copy(Map<String, Object> attributes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(new HashMap<>(attributes));
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            return (Map<String, Object>) ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Test case for bounded in memory proxy store
+ *
+ * @author bruno.marchesson
+ */
+public class InMemoryProxyStoreTest extends TestCase {
+
+    /**
+     * Test size bound and statistics
+     */
+    public void testSizeEviction() {
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.setMaximumSize(160);
+
+        for (int index = 0; index < 1000; index++) {
+            proxyStore.store(createKey(index), ProxyStoreTestHelper.createProxyInformations("messageList"));
+        }
+        assertTrue(proxyStore.getSize() <= 160);
+        assertEquals(1000 - proxyStore.getSize(), proxyStore.getEvictionCount());
+
+        // Most recent entry is kept
+        assertNotNull(proxyStore.get(createKey(999)));
+        assertNull(proxyStore.get(createKey(0)));
+        assertEquals(1, proxyStore.getHitCount());
+        assertEquals(1, proxyStore.getMissCount());
+
+        proxyStore.delete(createKey(999));
+        assertNull(proxyStore.get(createKey(999)));
+    }
+
+    /**
+     * Test idle expiration
+     */
+    public void testExpiration() {
+        final long[] time = new long[1];
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.setTicker(new InMemoryProxyStore.Ticker() {
+            @Override
+            public long read() {
+                return time[0];
+            }
+        });
+        proxyStore.setExpireAfterAccess(20);
+
+        proxyStore.store(createKey(1), ProxyStoreTestHelper.createProxyInformations("messageList"));
+        time[0] += TimeUnit.MILLISECONDS.toNanos(15);
+        assertNotNull(proxyStore.get(createKey(1)));
+
+        // Access resets the idle time
+        time[0] += TimeUnit.MILLISECONDS.toNanos(15);
+        assertNotNull(proxyStore.get(createKey(1)));
+
+        time[0] += TimeUnit.MILLISECONDS.toNanos(20);
+        assertNull(proxyStore.get(createKey(1)));
+        assertEquals(1, proxyStore.getExpirationCount());
+        assertEquals(0, proxyStore.getSize());
+    }
+
+    /**
+     * Test that clean up expires the entries of all the segments, without any other access
+     */
+    public void testCleanUpExpiration() {
+        final long[] time = new long[1];
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.setTicker(new InMemoryProxyStore.Ticker() {
+            @Override
+            public long read() {
+                return time[0];
+            }
+        });
+        proxyStore.setExpireAfterAccess(20);
+
+        for (int index = 0; index < 100; index++) {
+            proxyStore.store(createKey(index), ProxyStoreTestHelper.createProxyInformations("messageList"));
+        }
+        time[0] += TimeUnit.MILLISECONDS.toNanos(10);
+        proxyStore.store(createKey(100), ProxyStoreTestHelper.createProxyInformations("messageList"));
+
+        time[0] += TimeUnit.MILLISECONDS.toNanos(10);
+        proxyStore.cleanUp();
+        assertEquals(100, proxyStore.getExpirationCount());
+        assertEquals(1, proxyStore.getSize());
+        assertEquals(0, proxyStore.getMissCount());
+        assertNotNull(proxyStore.get(createKey(100)));
+    }
+
+    /**
+     * Test key equality and string form
+     */
+    public void testKey() {
+        ProxyStoreKey key = createKey(12);
+        assertEquals(key, new ProxyStoreKey(InMemoryProxyStoreTest.class, Long.valueOf(12), new String("messageList")));
+        assertEquals(key.hashCode(), createKey(12).hashCode());
+        assertFalse(key.equals(createKey(13)));
+        assertEquals(InMemoryProxyStoreTest.class.getName() + "@12.messageList", key.toString());
+    }
+
+    /**
+     * Test that an entry over the segment weight bound is rejected, not silently evicted
+     */
+    public void testOverweightEntry() {
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        // Four units per segment : one entry, three values
+        proxyStore.setMaximumWeight(64);
+        proxyStore.store(createKey(1), ProxyStoreTestHelper.createProxyInformations("messageList"));
+        assertNotNull(proxyStore.get(createKey(1)));
+
+        Map<String, Serializable> overweight = ProxyStoreTestHelper.createProxyInformations("messageList");
+        overweight.put("key", Long.valueOf(1));
+        try {
+            proxyStore.store(createKey(1), overweight);
+            fail("Overweight entry stored");
+        } catch (ProxyStoreException e) {
+            // Expected, and the previous value is not kept
+            assertNull(proxyStore.get(createKey(1)));
+        }
+        assertEquals(0, proxyStore.getEvictionCount());
+    }
+
+    /**
+     * Test that entity deletion does not match other ids with the same prefix
+     */
+    public void testDeleteEntity() {
+        InMemoryProxyStore proxyStore = new InMemoryProxyStore();
+        proxyStore.store(createKey(1), ProxyStoreTestHelper.createProxyInformations("messageList"));
+        proxyStore.store(createKey(10), ProxyStoreTestHelper.createProxyInformations("messageList"));
+
+        proxyStore.deleteEntity(InMemoryProxyStoreTest.class, Long.valueOf(1));
+        assertNull(proxyStore.get(createKey(1)));
+        assertNotNull(proxyStore.get(createKey(10)));
+    }
+
+    /**
+     * Create a store key
+     */
+    private static ProxyStoreKey createKey(int id) {
+        return new ProxyStoreKey(InMemoryProxyStoreTest.class, Long.valueOf(id), "messageList");
+    }
+}
@@ -0,0 +1,184 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+import net.sf.gilead.exception.ProxyStoreException;
+
+/**
+ * Test case for the memory mapped proxy store
+ *
+ * @author bruno.marchesson
+ */
+public class MappedFileProxyStoreTest extends TestCase {
+
+    /**
+     * The log file
+     */
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("gilead", ".store");
+        file.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        new File(file.getPath() + ".compact").delete();
+    }
+
+    /**
+     * Test that stored informations survive a restart
+     */
+    public void testRestart() throws Exception {
+        ProxyStoreKey first = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey second = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(2), "messageList");
+
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 4096);
+        store.store(first, ProxyStoreTestHelper.createProxyInformations("first"));
+        store.store(second, ProxyStoreTestHelper.createProxyInformations("second"));
+        store.store(first, ProxyStoreTestHelper.createProxyInformations("updated"));
+        store.delete(second);
+        assertEquals("updated", store.get(first).get("role"));
+        assertNull(store.get(second));
+        store.close();
+
+        store = new MappedFileProxyStore(file, 4096);
+        assertEquals(1, store.getSize());
+        assertEquals("updated", store.get(first).get("role"));
+        assertEquals(Boolean.TRUE, store.get(first).get("initialized"));
+        assertNull(store.get(second));
+        store.close();
+    }
+
+    /**
+     * Test log growth and automatic compaction
+     */
+    public void testCompaction() throws Exception {
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 4096);
+        ProxyStoreKey key = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(1), "messageList");
+        for (int index = 0; index < 50000; index++) {
+            store.store(key, ProxyStoreTestHelper.createProxyInformations("role" + index));
+        }
+        assertEquals(1, store.getSize());
+        assertEquals("role49999", store.get(key).get("role"));
+
+        // Compacted below the size of all the written records
+        assertTrue(file.length() < 50000L * 20);
+        store.close();
+
+        store = new MappedFileProxyStore(file);
+        assertEquals("role49999", store.get(key).get("role"));
+        store.close();
+    }
+
+    /**
+     * Test records spread over several segments, through restart and compaction
+     */
+    public void testSegments() throws Exception {
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 64, 512);
+        for (int index = 0; index < 200; index++) {
+            ProxyStoreKey key = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(index), "messageList");
+            store.store(key, ProxyStoreTestHelper.createProxyInformations("role" + index));
+        }
+        for (int index = 0; index < 200; index += 2) {
+            store.delete(new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(index), "messageList"));
+        }
+        assertTrue(file.length() > 512 * 10);
+        store.close();
+
+        // Segment size is read from the file
+        store = new MappedFileProxyStore(file, 64, 4096);
+        assertEquals(100, store.getSize());
+        assertEquals("role199", store.get(new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(199), "messageList")).get("role"));
+        assertNull(store.get(new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(198), "messageList")));
+
+        store.compact();
+        for (int index = 1; index < 200; index += 2) {
+            ProxyStoreKey key = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(index), "messageList");
+            assertEquals("role" + index, store.get(key).get("role"));
+        }
+        store.close();
+
+        store = new MappedFileProxyStore(file, 64, 4096);
+        assertEquals(100, store.getSize());
+        assertEquals("role101", store.get(new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(101), "messageList")).get("role"));
+        store.close();
+    }
+
+    /**
+     * Test that the original log is kept when the compacted one cannot replace it
+     */
+    public void testCompactionFailure() throws Exception {
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 4096) {
+            @Override
+            protected void replaceFile(File source, File target) throws IOException {
+                throw new IOException("Move failure");
+            }
+        };
+        ProxyStoreKey first = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey second = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(2), "messageList");
+        store.store(first, ProxyStoreTestHelper.createProxyInformations("first"));
+        store.store(second, ProxyStoreTestHelper.createProxyInformations("second"));
+        store.delete(second);
+        try {
+            store.compact();
+            fail("Compaction failure expected");
+        } catch (ProxyStoreException ex) {
+            // Expected
+        }
+        assertFalse(new File(file.getPath() + ".compact").exists());
+
+        // The store goes on with the original log
+        assertEquals("first", store.get(first).get("role"));
+        assertNull(store.get(second));
+        store.store(second, ProxyStoreTestHelper.createProxyInformations("updated"));
+
+        // Automatic compaction failures are only logged
+        for (int index = 0; index < 50000; index++) {
+            store.store(first, ProxyStoreTestHelper.createProxyInformations("role" + index));
+        }
+        assertEquals("role49999", store.get(first).get("role"));
+        store.close();
+
+        store = new MappedFileProxyStore(file, 4096);
+        assertEquals(2, store.getSize());
+        assertEquals("role49999", store.get(first).get("role"));
+        assertEquals("updated", store.get(second).get("role"));
+        store.close();
+    }
+
+    /**
+     * Test that a closed store is reported
+     */
+    public void testClosed() throws Exception {
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 4096);
+        store.close();
+        try {
+            store.get(new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(1), "messageList"));
+            fail("Closed store");
+        } catch (ProxyStoreException ex) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test that a record larger than a segment is refused
+     */
+    public void testRecordTooLarge() throws Exception {
+        MappedFileProxyStore store = new MappedFileProxyStore(file, 64, 128);
+        ProxyStoreKey key = new ProxyStoreKey(MappedFileProxyStoreTest.class, Long.valueOf(1), "messageList");
+        try {
+            store.store(key, ProxyStoreTestHelper.createProxyInformations(new String(new char[256]).replace('\0', 'x')));
+            fail("Record larger than a segment");
+        } catch (ProxyStoreException ex) {
+            // Expected
+        }
+        assertNull(store.get(key));
+        store.close();
+    }
+}
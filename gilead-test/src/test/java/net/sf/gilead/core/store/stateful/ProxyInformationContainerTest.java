@@ -0,0 +1,71 @@
+package net.sf.gilead.core.store.stateful;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+
+/**
+ * Test case for the bulk session container
+ *
+ * @author bruno.marchesson
+ */
+public class ProxyInformationContainerTest extends TestCase {
+
+    /**
+     * Test dirty tracking and delta replication
+     */
+    public void testDelta() throws Exception {
+        ProxyInformationContainer container = new ProxyInformationContainer();
+        ProxyStoreKey first = new ProxyStoreKey(ProxyInformationContainerTest.class, Long.valueOf(1), "messageList");
+        ProxyStoreKey second = new ProxyStoreKey(ProxyInformationContainerTest.class, Long.valueOf(2), "messageList");
+
+        container.put(first, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        container.put(second, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        assertTrue(container.hasDelta());
+
+        // Full copy on another node
+        ProxyInformationContainer replica = copy(container);
+        assertEquals(2, replica.size());
+        assertNotNull(replica.get(first));
+        assertFalse(replica.hasDelta());
+
+        // Incremental changes
+        container.getDelta();
+        container.remove(first);
+        ProxyInformationContainer.Delta delta = container.getDelta();
+        assertEquals(2, delta.getSequence());
+        assertEquals(2, container.getVersion());
+        assertTrue(delta.getStored().isEmpty());
+        assertEquals(1, delta.getRemoved().size());
+        assertFalse(container.hasDelta());
+
+        replica.applyDelta(delta);
+        assertNull(replica.get(first));
+        assertNotNull(replica.get(second));
+        assertEquals(2, replica.getVersion());
+
+        // Already included delta is ignored
+        container.put(first, ProxyStoreTestHelper.createProxyInformations("messageList"));
+        replica.applyDelta(delta);
+        replica.applyDelta(container.getDelta());
+        replica.applyDelta(delta);
+        assertNotNull(replica.get(first));
+    }
+
+    /**
+     * Serialization copy
+     */
+    private static ProxyInformationContainer copy(ProxyInformationContainer container) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(container);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            return (ProxyInformationContainer) ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.sf.gilead.core.store.stateless;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.CloneContext;
+import net.sf.gilead.core.serialization.CompactProxySerialization;
+import net.sf.gilead.core.serialization.DefaultProxySerialization;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+import net.sf.gilead.pojo.gwt.ProxyInformationDictionary;
+import net.sf.gilead.pojo.java5.LightEntity;
+
+/**
+ * Test case for the stateless proxy store dictionary
+ *
+ * @author bruno.marchesson
+ */
+public class ProxyInformationDictionaryTest extends TestCase {
+
+    /**
+     * Test shared dictionary and round trip
+     */
+    public void testDictionaryRoundTrip() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setUseDictionary(true);
+
+        // The dictionary belongs to the operation bound to the thread
+        CloneContext previous = new CloneContext().bind();
+        try {
+            checkDictionary(proxyStore);
+        } finally {
+            CloneContext.restore(previous);
+        }
+    }
+
+    /**
+     * Store proxy informations with a dictionary and check results
+     */
+    private void checkDictionary(StatelessProxyStore proxyStore) {
+        Entity first = new Entity();
+        Entity second = new Entity();
+        proxyStore.storeProxyInformations(first, null, "messageList", ProxyStoreTestHelper.createProxyInformations(1));
+        proxyStore.storeProxyInformations(second, null, "messageList", ProxyStoreTestHelper.createProxyInformations(2));
+
+        // Shared dictionary, with references only
+        Map<?, ?> firstStored = (Map<?, ?>) first.getProxyInformation("messageList");
+        Map<?, ?> secondStored = (Map<?, ?>) second.getProxyInformation("messageList");
+        ProxyInformationDictionary dictionary = (ProxyInformationDictionary) firstStored.get("dictionary");
+        assertSame(dictionary, secondStored.get("dictionary"));
+        assertEquals(4, dictionary.size());
+        assertEquals(firstStored.get("role"), secondStored.get("role"));
+        assertTrue(firstStored.get("role") instanceof Integer);
+        proxyStore.cleanUp();
+
+        // Round trip
+        Map<String, Serializable> proxyInformations = proxyStore.getProxyInformations(second, "messageList");
+        assertEquals(ProxyStoreTestHelper.createProxyInformations(2), proxyInformations);
+
+        // New response : new dictionary
+        Entity third = new Entity();
+        proxyStore.storeProxyInformations(third, null, "messageList", ProxyStoreTestHelper.createProxyInformations(3));
+        assertNotSame(dictionary, ((Map<?, ?>) third.getProxyInformation("messageList")).get("dictionary"));
+    }
+
+    /**
+     * Test that the dictionary is refused with asynchronous serialization
+     */
+    public void testAsynchronousSerializationRefused() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setParallelSerialization(true);
+        try {
+            proxyStore.setUseDictionary(true);
+            fail("Dictionary with parallel serialization");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        assertFalse(proxyStore.getUseDictionary());
+
+        proxyStore = new StatelessProxyStore();
+        proxyStore.setUseDictionary(true);
+        try {
+            proxyStore.setUseSerializationThread(true);
+            fail("Dictionary with serialization thread");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        assertFalse(proxyStore.getUseSerializationThread());
+    }
+
+    /**
+     * Test that the dictionary is refused with a string serializer, that would copy it in each serialized map
+     */
+    public void testStringSerializerRefused() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new CompactProxySerialization());
+        try {
+            proxyStore.setUseDictionary(true);
+            fail("Dictionary with string serializer");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        assertFalse(proxyStore.getUseDictionary());
+
+        proxyStore = new StatelessProxyStore();
+        proxyStore.setUseDictionary(true);
+        try {
+            proxyStore.setProxySerializer(new DefaultProxySerialization());
+            fail("String serializer with dictionary");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        assertNull(proxyStore.getProxySerializer());
+    }
+
+    /**
+     * Test light entity
+     */
+    public static class Entity extends LightEntity {
+        private static final long serialVersionUID = 1L;
+    }
+}
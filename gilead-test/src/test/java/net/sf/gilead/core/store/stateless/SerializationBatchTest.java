@@ -0,0 +1,122 @@
+package net.sf.gilead.core.store.stateless;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+import net.sf.gilead.core.CloneContext;
+import net.sf.gilead.core.serialization.DefaultProxySerialization;
+import net.sf.gilead.core.store.ProxyStoreTestHelper;
+import net.sf.gilead.exception.ProxyStoreException;
+import net.sf.gilead.pojo.java5.legacy.LightEntity;
+
+/**
+ * Test case for asynchronous proxy informations serialization
+ *
+ * @author bruno.marchesson
+ */
+public class SerializationBatchTest extends TestCase {
+
+    /**
+     * Test that all the proxy informations are serialized and attached at clean up
+     */
+    public void testAsynchronousSerialization() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new DefaultProxySerialization());
+        proxyStore.setUseSerializationThread(true);
+        checkSerialization(proxyStore);
+    }
+
+    /**
+     * Test parallel serialization
+     */
+    public void testParallelSerialization() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new DefaultProxySerialization());
+        proxyStore.setParallelSerialization(true);
+        checkSerialization(proxyStore);
+    }
+
+    /**
+     * Test that an interrupted wait fails instead of returning incomplete entities
+     */
+    public void testInterruptedCompletion() {
+        // Executor never running the serialization
+        SerializationBatch batch = new SerializationBatch(new DefaultProxySerialization(), new Executor() {
+            @Override
+            public void execute(Runnable command) {}
+        }, false);
+        Entity entity = new Entity();
+        batch.serialize(entity, "messageList", ProxyStoreTestHelper.createProxyInformations(1));
+
+        Thread.currentThread().interrupt();
+        try {
+            batch.awaitCompletion();
+            fail("Interrupted wait");
+        } catch (ProxyStoreException ex) {
+            assertTrue(ex.getCause() instanceof InterruptedException);
+        }
+        assertTrue(Thread.interrupted());
+        assertNull(entity.getProxyInformation("messageList"));
+    }
+
+    /**
+     * Test that a failed item serialization is reported at clean up, instead of leaving an entity without proxy
+     * informations
+     */
+    public void testSerializationFailure() {
+        StatelessProxyStore proxyStore = new StatelessProxyStore();
+        proxyStore.setProxySerializer(new DefaultProxySerialization() {
+            @Override
+            public Object serialize(Serializable serializable) {
+                if (Long.valueOf(7).equals(((Map<?, ?>) serializable).get("key"))) {
+                    throw new IllegalStateException("Serialization failure");
+                }
+                return super.serialize(serializable);
+            }
+        });
+        proxyStore.setParallelSerialization(true);
+
+        CloneContext context = new CloneContext();
+        Entity[] entities = new Entity[100];
+        for (int index = 0; index < entities.length; index++) {
+            entities[index] = new Entity();
+            proxyStore.storeProxyInformations(context, entities[index], null, "messageList", ProxyStoreTestHelper.createProxyInformations(index));
+        }
+        try {
+            proxyStore.cleanUp(context);
+            fail("Serialization failure not reported");
+        } catch (ProxyStoreException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertNull(entities[0].getProxyInformation("messageList"));
+    }
+
+    /**
+     * Store proxy informations, clean up and check results
+     */
+    private void checkSerialization(StatelessProxyStore proxyStore) {
+        // The serialization batch belongs to the operation
+        CloneContext context = new CloneContext();
+        Entity[] entities = new Entity[500];
+        for (int index = 0; index < entities.length; index++) {
+            entities[index] = new Entity();
+            proxyStore.storeProxyInformations(context, entities[index], null, "messageList", ProxyStoreTestHelper.createProxyInformations(index));
+        }
+        assertNull(entities[0].getProxyInformation("messageList"));
+        proxyStore.cleanUp(context);
+
+        for (int index = 0; index < entities.length; index++) {
+            assertTrue(entities[index].getProxyInformation("messageList") instanceof String);
+            assertEquals(ProxyStoreTestHelper.createProxyInformations(index), proxyStore.getProxyInformations(entities[index], "messageList"));
+        }
+    }
+
+    /**
+     * Test light entity
+     */
+    public static class Entity extends LightEntity {
+        private static final long serialVersionUID = 1L;
+    }
+}
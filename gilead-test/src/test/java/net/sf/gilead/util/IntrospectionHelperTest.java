@@ -0,0 +1,69 @@
+package net.sf.gilead.util;
+
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for introspection helper method lookup
+ *
+ * @author bruno.marchesson
+ */
+public class IntrospectionHelperTest extends TestCase {
+
+    /**
+     * Test that overloaded methods are resolved by signature
+     */
+    public void testOverloadedSetters() throws Exception {
+        Method intSetter = IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "setValue", int.class);
+        Method stringSetter = IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "setValue", String.class);
+
+        assertEquals(int.class, intSetter.getParameterTypes()[0]);
+        assertEquals(String.class, stringSetter.getParameterTypes()[0]);
+        assertSame(intSetter, IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "setValue", int.class));
+
+        Method getter = IntrospectionHelper.getReaderMethodForProperty(Child.class, "value");
+        assertEquals(Parent.class, getter.getDeclaringClass());
+        assertSame(getter, IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "getValue"));
+    }
+
+    /**
+     * Test that missing methods are reported on each lookup
+     */
+    public void testMissingMethod() {
+        for (int index = 0; index < 2; index++) {
+            assertNull(IntrospectionHelper.findRecursiveDeclaredMethod(Child.class, "getMissing"));
+            assertNull(IntrospectionHelper.findRecursiveDeclaredMethod(Child.class, "setValue", long.class));
+            try {
+                IntrospectionHelper.getRecursiveDeclaredMethod(Child.class, "getMissing");
+                fail("Missing method found");
+            } catch (NoSuchMethodException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Parent bean
+     */
+    public static class Parent {
+        private String value;
+
+        private String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Child bean, with an overloaded setter
+     */
+    public static class Child extends Parent {
+        public void setValue(int value) {
+            setValue(String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package net.sf.gilead.util;
+
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for method accessor
+ *
+ * @author bruno.marchesson
+ */
+public class MethodAccessorTest extends TestCase {
+
+    /**
+     * Test getter and setter access, even private ones
+     */
+    public void testReadWrite() throws Exception {
+        Bean bean = new Bean();
+
+        MethodAccessor writer = MethodAccessor.get(Bean.class.getDeclaredMethod("setCount", int.class));
+        MethodAccessor reader = MethodAccessor.get(Bean.class.getDeclaredMethod("getCount"));
+        assertSame(reader, MethodAccessor.get(Bean.class.getDeclaredMethod("getCount")));
+
+        writer.write(bean, 12);
+        assertEquals(Integer.valueOf(12), reader.read(bean));
+    }
+
+    /**
+     * Test exception wrapping
+     */
+    public void testException() throws Exception {
+        MethodAccessor reader = MethodAccessor.get(Bean.class.getDeclaredMethod("getFailure"));
+        try {
+            reader.read(new Bean());
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Test that receiver and argument problems are not reported as method exceptions
+     */
+    public void testInvocationProblems() throws Exception {
+        MethodAccessor writer = MethodAccessor.get(Bean.class.getDeclaredMethod("setCount", int.class));
+        MethodAccessor reader = MethodAccessor.get(Bean.class.getDeclaredMethod("getCount"));
+        try {
+            reader.read("not a bean");
+            fail("Wrong receiver");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            reader.read(null);
+            fail("Null receiver");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            writer.write(new Bean(), null);
+            fail("Null primitive");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            writer.write(new Bean(), Long.valueOf(1));
+            fail("Narrowing");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // Widening, as reflection does
+        Bean bean = new Bean();
+        writer.write(bean, Short.valueOf((short) 3));
+        assertEquals(Integer.valueOf(3), reader.read(bean));
+        writer.write(bean, Character.valueOf('a'));
+        assertEquals(Integer.valueOf('a'), reader.read(bean));
+
+        // Exceptions thrown by the method itself
+        try {
+            MethodAccessor.get(Bean.class.getDeclaredMethod("getCast")).read(new Bean());
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+        // Errors are wrapped as reflection does
+        try {
+            MethodAccessor.get(Bean.class.getDeclaredMethod("getError")).read(new Bean());
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof BeanError);
+        }
+    }
+
+    /**
+     * Test bean
+     */
+    public static class Bean {
+        private int count;
+
+        private int getCount() {
+            return count;
+        }
+
+        private void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getFailure() {
+            throw new IllegalStateException();
+        }
+
+        public String getCast() {
+            Object value = Integer.valueOf(1);
+            return (String) value;
+        }
+
+        public String getError() {
+            throw new BeanError();
+        }
+    }
+
+    /**
+     * Error thrown by the test bean
+     */
+    public static class BeanError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+}